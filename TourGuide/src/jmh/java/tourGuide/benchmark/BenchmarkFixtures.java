@@ -0,0 +1,97 @@
+package tourGuide.benchmark;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executor;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import tourGuide.client.RewardClient;
+import tourGuide.executor.ExecutionStrategy;
+import tourGuide.executor.ExternalDependency;
+import tourGuide.helper.InternalUserGenerator;
+import tourGuide.user.LocationHistoryRetention;
+import tourGuide.user.User;
+
+/**
+ * Users and services shared by the benchmarks.
+ *
+ * External dependencies answer at once, so that benchmarks measure the code of
+ * TourGuide rather than the latency of GpsUtil and RewardCentral.
+ *
+ */
+final class BenchmarkFixtures {
+
+	static final long SEED = 42;
+
+	// box around the continental United States, where the attractions are
+	private static final double MIN_LATITUDE = 25;
+	private static final double MAX_LATITUDE = 49;
+	private static final double MIN_LONGITUDE = -125;
+	private static final double MAX_LONGITUDE = -67;
+
+	private BenchmarkFixtures() {
+	}
+
+	/**
+	 * Execution strategy running calls in the calling thread
+	 *
+	 * @return executionStrategy - ExecutionStrategy
+	 */
+	static ExecutionStrategy directExecutionStrategy() {
+		return new ExecutionStrategy() {
+
+			@Override
+			public Executor getExecutor(ExternalDependency dependency) {
+				return Runnable::run;
+			}
+
+			@Override
+			public void shutdown() {
+			}
+		};
+	}
+
+	/**
+	 * Reward client giving the same points to a user and an attraction, without
+	 * waiting
+	 *
+	 * @return rewardClient - RewardClient
+	 */
+	static RewardClient immediateRewardClient() {
+		return (attractionId, userId) -> (attractionId.hashCode() ^ userId.hashCode()) & 0x3FF;
+	}
+
+	/**
+	 * Generate users keeping a whole history of locations around the attractions
+	 *
+	 * @param userCount     - number of users
+	 * @param historyLength - number of visited locations added to each user
+	 * @return List of User
+	 */
+	static List<User> users(int userCount, int historyLength) {
+		LocationHistoryRetention retention = new LocationHistoryRetention(historyLength + 3, 0, Duration.ofHours(1));
+		List<User> users = new InternalUserGenerator(SEED, retention, null).generate(0, userCount);
+		SplittableRandom random = new SplittableRandom(SEED);
+		for (User user : users) {
+			for (int i = 0; i < historyLength; i++) {
+				user.addToVisitedLocations(new VisitedLocation(user.getUserId(), location(random), new Date()));
+			}
+		}
+		return users;
+	}
+
+	/**
+	 * Draw a location around the attractions
+	 *
+	 * @param random - SplittableRandom
+	 * @return location - Location
+	 */
+	static Location location(SplittableRandom random) {
+		return new Location(random.nextDouble(MIN_LATITUDE, MAX_LATITUDE),
+				random.nextDouble(MIN_LONGITUDE, MAX_LONGITUDE));
+	}
+
+}
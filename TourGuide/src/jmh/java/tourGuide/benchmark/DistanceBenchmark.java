@@ -0,0 +1,59 @@
+package tourGuide.benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import gpsUtil.location.Location;
+import tourGuide.service.GpsUtilService;
+import tourGuide.service.RewardsService;
+
+/**
+ * Distance between two locations, computed for every location against every
+ * attraction
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DistanceBenchmark {
+
+	// power of two, locations are picked with a mask
+	private static final int LOCATION_COUNT = 1024;
+
+	private GpsUtilService gpsUtilService;
+	private RewardsService rewardsService;
+	private Location[] locations;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		gpsUtilService = new GpsUtilService(BenchmarkFixtures.directExecutionStrategy());
+		rewardsService = new RewardsService(gpsUtilService, BenchmarkFixtures.immediateRewardClient());
+		SplittableRandom random = new SplittableRandom(BenchmarkFixtures.SEED);
+		locations = new Location[LOCATION_COUNT];
+		for (int i = 0; i < LOCATION_COUNT; i++) {
+			locations[i] = BenchmarkFixtures.location(random);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		gpsUtilService.shutdown();
+	}
+
+	@Benchmark
+	public double getDistance() {
+		int i = next++ & (LOCATION_COUNT - 1);
+		return rewardsService.getDistance(locations[i], locations[(i + 1) & (LOCATION_COUNT - 1)]);
+	}
+
+}
@@ -0,0 +1,72 @@
+package tourGuide.benchmark;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import gpsUtil.location.VisitedLocation;
+import tourGuide.helper.InternalTestHelper;
+import tourGuide.model.NearbyAttractionsDTO;
+import tourGuide.service.GpsUtilService;
+import tourGuide.service.RewardsService;
+import tourGuide.service.TourGuideService;
+import tourGuide.user.User;
+
+/**
+ * Nearest attractions of the current locations of users, asked in turn. Below
+ * the size of the cache of nearby attractions, answers come from the cache.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NearbyAttractionsBenchmark {
+
+	@Param({ "1000", "100000" })
+	public int userCount;
+
+	private GpsUtilService gpsUtilService;
+	private TourGuideService tourGuideService;
+	private VisitedLocation[] visitedLocations;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		InternalTestHelper.setInternalUserNumber(0);
+		gpsUtilService = new GpsUtilService(BenchmarkFixtures.directExecutionStrategy());
+		RewardsService rewardsService = new RewardsService(gpsUtilService,
+				BenchmarkFixtures.immediateRewardClient(), BenchmarkFixtures.directExecutionStrategy(),
+				RewardsService.DEFAULT_REWARD_POINTS_CACHE_SIZE, Duration.ZERO);
+		tourGuideService = new TourGuideService(gpsUtilService, rewardsService);
+		tourGuideService.tracker.stopTracking();
+		List<User> users = BenchmarkFixtures.users(userCount, 0);
+		visitedLocations = new VisitedLocation[userCount];
+		for (int i = 0; i < userCount; i++) {
+			tourGuideService.addUser(users.get(i));
+			visitedLocations[i] = users.get(i).getLastVisitedLocation();
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		gpsUtilService.shutdown();
+	}
+
+	@Benchmark
+	public List<NearbyAttractionsDTO> getNearByAttractions() {
+		VisitedLocation visitedLocation = visitedLocations[next];
+		next = next + 1 == visitedLocations.length ? 0 : next + 1;
+		return tourGuideService.getNearByAttractions(visitedLocation);
+	}
+
+}
@@ -0,0 +1,64 @@
+package tourGuide.benchmark;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import tourGuide.service.GpsUtilService;
+import tourGuide.service.RewardsService;
+import tourGuide.user.User;
+
+/**
+ * Rewards of all users, every kept location being matched against the
+ * attractions. Users are rewarded and reward points are cached during the
+ * setup, each evaluation then only walks the histories.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RewardsBenchmark {
+
+	@Param({ "1000", "10000" })
+	public int userCount;
+
+	@Param({ "3", "288" })
+	public int historyLength;
+
+	private GpsUtilService gpsUtilService;
+	private RewardsService rewardsService;
+	private List<User> users;
+
+	@Setup
+	public void setUp() {
+		gpsUtilService = new GpsUtilService(BenchmarkFixtures.directExecutionStrategy());
+		rewardsService = new RewardsService(gpsUtilService, BenchmarkFixtures.immediateRewardClient(),
+				BenchmarkFixtures.directExecutionStrategy(), RewardsService.DEFAULT_REWARD_POINTS_CACHE_SIZE,
+				Duration.ZERO);
+		users = BenchmarkFixtures.users(userCount, historyLength);
+		rewardsService.calculateAllRewards(users).join();
+	}
+
+	@TearDown
+	public void tearDown() {
+		gpsUtilService.shutdown();
+	}
+
+	@Benchmark
+	public void calculateAllRewards() {
+		// a new proximity buffer makes already evaluated locations evaluated again
+		rewardsService.setDefaultProximityBuffer();
+		rewardsService.calculateAllRewards(users).join();
+	}
+
+}
@@ -0,0 +1,95 @@
+package tourGuide.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.jsoniter.output.JsonStream;
+
+import gpsUtil.location.Attraction;
+import tourGuide.helper.InternalTestHelper;
+import tourGuide.model.NearbyAttractionsDTO;
+import tourGuide.service.GpsUtilService;
+import tourGuide.service.RewardsService;
+import tourGuide.service.TourGuideService;
+import tourGuide.user.User;
+import tourGuide.user.UserReward;
+import tourGuide.web.CurrentLocationsJsonWriter;
+
+/**
+ * JSON answers of the controller : nearby attractions and rewards of a user,
+ * and current locations of all users
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializationBenchmark {
+
+	@Param({ "1000", "100000" })
+	public int userCount;
+
+	private GpsUtilService gpsUtilService;
+	private List<NearbyAttractionsDTO> nearbyAttractions;
+	private List<UserReward> userRewards;
+	private CurrentLocationsJsonWriter currentLocationsJsonWriter;
+	private ByteArrayOutputStream out;
+
+	@Setup
+	public void setUp() {
+		InternalTestHelper.setInternalUserNumber(0);
+		gpsUtilService = new GpsUtilService(BenchmarkFixtures.directExecutionStrategy());
+		RewardsService rewardsService = new RewardsService(gpsUtilService,
+				BenchmarkFixtures.immediateRewardClient(), BenchmarkFixtures.directExecutionStrategy(),
+				RewardsService.DEFAULT_REWARD_POINTS_CACHE_SIZE, Duration.ZERO);
+		TourGuideService tourGuideService = new TourGuideService(gpsUtilService, rewardsService);
+		tourGuideService.tracker.stopTracking();
+		List<User> users = BenchmarkFixtures.users(userCount, 0);
+		users.forEach(tourGuideService::addUser);
+
+		User user = users.get(0);
+		nearbyAttractions = tourGuideService.getNearByAttractions(user.getLastVisitedLocation());
+		for (Attraction attraction : gpsUtilService.getListOfAttractions()) {
+			user.addUserReward(new UserReward(user.getLastVisitedLocation(), attraction,
+					rewardsService.getRewardPoints(attraction, user.getUserId())));
+		}
+		userRewards = tourGuideService.getUserRewards(user);
+		currentLocationsJsonWriter = new CurrentLocationsJsonWriter(tourGuideService);
+		out = new ByteArrayOutputStream();
+	}
+
+	@TearDown
+	public void tearDown() {
+		gpsUtilService.shutdown();
+	}
+
+	@Benchmark
+	public String serializeNearbyAttractions() {
+		return JsonStream.serialize(nearbyAttractions);
+	}
+
+	@Benchmark
+	public String serializeUserRewards() {
+		return JsonStream.serialize(userRewards);
+	}
+
+	@Benchmark
+	public int writeAllCurrentLocations() throws IOException {
+		out.reset();
+		currentLocationsJsonWriter.writeAll(out);
+		return out.size();
+	}
+
+}
@@ -0,0 +1,63 @@
+package tourGuide.benchmark;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import tourGuide.service.GpsUtilService;
+import tourGuide.user.LocationHistoryRetention;
+import tourGuide.user.User;
+import tourGuide.user.UserReward;
+
+/**
+ * Rewards added to a new user for every attraction, then added again and
+ * rejected as already given
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserRewardBenchmark {
+
+	private GpsUtilService gpsUtilService;
+	private List<Attraction> attractions;
+	private VisitedLocation visitedLocation;
+
+	@Setup
+	public void setUp() {
+		gpsUtilService = new GpsUtilService(BenchmarkFixtures.directExecutionStrategy());
+		attractions = gpsUtilService.getListOfAttractions();
+		visitedLocation = new VisitedLocation(UUID.randomUUID(), new Location(33.817595, -117.922008), new Date());
+	}
+
+	@TearDown
+	public void tearDown() {
+		gpsUtilService.shutdown();
+	}
+
+	@Benchmark
+	public int addUserReward() {
+		User user = new User(visitedLocation.userId, "jon", "000", "jon@tourGuide.com",
+				LocationHistoryRetention.DEFAULT);
+		for (int round = 0; round < 2; round++) {
+			for (Attraction attraction : attractions) {
+				user.addUserReward(new UserReward(visitedLocation, attraction, 100));
+			}
+		}
+		return user.getUserRewardCount();
+	}
+
+}
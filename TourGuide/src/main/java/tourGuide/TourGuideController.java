@@ -1,35 +1,57 @@
 package tourGuide;
 
-import java.util.List;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.servlet.http.HttpServletResponse;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.jsoniter.output.JsonStream;
 
-import gpsUtil.location.VisitedLocation;
 import tourGuide.service.TourGuideService;
 import tourGuide.user.User;
-import tripPricer.Provider;
+import tourGuide.web.CurrentLocationsJsonWriter;
+import tourGuide.web.LocationHistoryJsonWriter;
 
 /**
  * Controller class for TourGuide Application
  *
+ * Endpoints calling external services return a CompletableFuture : the request
+ * is released from its Tomcat thread while the services answer, and fails with
+ * a 503 status when they do not answer in time.
  *
  */
 @RestController
 public class TourGuideController {
 
 	final static Logger lOGGER = LogManager.getLogger(TourGuideController.class);
+	private static final int DEFAULT_PAGE_SIZE = 1000;
 
 	@Autowired
 	TourGuideService tourGuideService;
 
+	@Value("${tourguide.web.location-timeout-millis:5000}")
+	private long locationTimeout;
+
+	@Value("${tourguide.web.nearby-attractions-timeout-millis:5000}")
+	private long nearbyAttractionsTimeout;
+
+	@Value("${tourguide.web.trip-deals-timeout-millis:5000}")
+	private long tripDealsTimeout;
+
 	/**
 	 * Get TourGuide welcome message
 	 * 
@@ -44,27 +66,30 @@ public class TourGuideController {
 	 * Get location of a user by his userName
 	 * 
 	 * @param userName - String
-	 * @return Json object with location of a specific user
+	 * @return CompletableFuture of Json object with location of a specific user
 	 */
 	@GetMapping("/getLocation")
-	public String getLocation(@RequestParam String userName) {
+	public CompletableFuture<String> getLocation(@RequestParam String userName) {
 		lOGGER.debug("Getting location of username : {}", userName);
-		VisitedLocation visitedLocation = tourGuideService.getUserLocation(getUser(userName));
-		return JsonStream.serialize(visitedLocation.location);
+		return tourGuideService.getUserLocationAsync(getUser(userName))
+				.thenApply(visitedLocation -> JsonStream.serialize(visitedLocation.location))
+				.orTimeout(locationTimeout, TimeUnit.MILLISECONDS);
 	}
 
 	/**
 	 * Get 5 nearest attractions from a specific user by his userName
 	 * 
 	 * @param userName - String
-	 * @return Json object that contain informations of the five nearest attractions
-	 *         - List of NearByAttractionsDTO
+	 * @return CompletableFuture of Json object that contain informations of the
+	 *         five nearest attractions - List of NearByAttractionsDTO
 	 */
 	@GetMapping("/getNearbyAttractions")
-	public String getNearbyAttractions(@RequestParam String userName) {
+	public CompletableFuture<String> getNearbyAttractions(@RequestParam String userName) {
 		lOGGER.debug("Getting 5 nearest attractions for username : {}", userName);
-		VisitedLocation visitedLocation = tourGuideService.getUserLocation(getUser(userName));
-		return JsonStream.serialize(tourGuideService.getNearByAttractions(visitedLocation));
+		return tourGuideService.getUserLocationAsync(getUser(userName))
+				.thenCompose(visitedLocation -> tourGuideService.getNearByAttractionsAsync(visitedLocation))
+				.thenApply(nearbyAttractions -> JsonStream.serialize(nearbyAttractions))
+				.orTimeout(nearbyAttractionsTimeout, TimeUnit.MILLISECONDS);
 	}
 
 	/**
@@ -80,27 +105,78 @@ public class TourGuideController {
 	}
 
 	/**
-	 * Get current locations of all users
+	 * Get current locations of all users. The JSON is streamed to the response as
+	 * it is written, without a content length, so it is sent in chunks. With a
+	 * cursor or a limit, a page of locations is returned along with the cursor of
+	 * the next page.
 	 * 
-	 * @return Json object that contains all users current locations
+	 * @param cursor   - cursor of the page, 0 for the first page - Integer
+	 * @param limit    - maximum number of locations in the page - Integer
+	 * @param response - HttpServletResponse
+	 * @throws IOException when the response cannot be written
 	 */
 	@GetMapping("/getAllCurrentLocations")
-	public String getAllCurrentLocations() {
-		lOGGER.debug("Getting all current locations");
-		return JsonStream.serialize(tourGuideService.getAllCurrentLocations());
+	public void getAllCurrentLocations(@RequestParam(required = false) Integer cursor,
+			@RequestParam(required = false) Integer limit, HttpServletResponse response) throws IOException {
+		lOGGER.debug("Getting all current locations, cursor : {}, limit : {}", cursor, limit);
+		if ((cursor != null && cursor < 0) || (limit != null && limit <= 0)) {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Cursor must not be negative, limit must be positive");
+			return;
+		}
+		response.setContentType("application/json");
+		response.setCharacterEncoding("UTF-8");
+		CurrentLocationsJsonWriter writer = new CurrentLocationsJsonWriter(tourGuideService);
+		if (cursor == null && limit == null) {
+			writer.writeAll(response.getOutputStream());
+		} else {
+			writer.writePage(response.getOutputStream(), cursor == null ? 0 : cursor,
+					limit == null ? DEFAULT_PAGE_SIZE : limit);
+		}
+	}
+
+	/**
+	 * Get location history of a user by his userName, streamed to the response
+	 * from the location store when full histories are kept off heap
+	 * 
+	 * @param userName - String
+	 * @param response - HttpServletResponse
+	 * @throws IOException when the response cannot be written
+	 */
+	@GetMapping("/getLocationHistory")
+	public void getLocationHistory(@RequestParam String userName, HttpServletResponse response) throws IOException {
+		lOGGER.debug("Getting location history of username : {}", userName);
+		response.setContentType("application/json");
+		response.setCharacterEncoding("UTF-8");
+		new LocationHistoryJsonWriter().write(response.getOutputStream(),
+				tourGuideService.getLocationHistory(getUser(userName)));
 	}
 
 	/**
 	 * Get tripDeals for a user by his userName
 	 * 
 	 * @param userName - String
-	 * @return Json object that contains tripDeals for a specific user
+	 * @return CompletableFuture of Json object that contains tripDeals for a
+	 *         specific user
 	 */
 	@GetMapping("/getTripDeals")
-	public String getTripDeals(@RequestParam String userName) {
+	public CompletableFuture<String> getTripDeals(@RequestParam String userName) {
 		lOGGER.debug("Getting trip deals for username : {}", userName);
-		List<Provider> providers = tourGuideService.getTripDeals(getUser(userName));
-		return JsonStream.serialize(providers);
+		return tourGuideService.getTripDealsAsync(getUser(userName))
+				.thenApply(providers -> JsonStream.serialize(providers))
+				.orTimeout(tripDealsTimeout, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Answer requests whose external services did not answer in time
+	 * 
+	 * @param e - TimeoutException
+	 * @return error message - String
+	 */
+	@ExceptionHandler(TimeoutException.class)
+	@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+	public String handleTimeout(TimeoutException e) {
+		lOGGER.warn("Request timed out");
+		return "Request timed out, please retry later";
 	}
 
 	/**
@@ -1,33 +1,152 @@
 package tourGuide;
 
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.lang.Nullable;
 
-import gpsUtil.GpsUtil;
-import rewardCentral.RewardCentral;
+import tourGuide.client.GpsUtilClient;
+import tourGuide.client.LocationClient;
+import tourGuide.client.PricingClient;
+import tourGuide.client.RewardCentralClient;
+import tourGuide.client.RewardClient;
+import tourGuide.client.SimulatedLocationClient;
+import tourGuide.client.SimulatedPricingClient;
+import tourGuide.client.SimulatedRewardClient;
+import tourGuide.client.SimulationProperties;
+import tourGuide.client.TripPricerClient;
+import tourGuide.executor.ExecutionStrategy;
+import tourGuide.executor.ExecutorProperties;
+import tourGuide.helper.InternalUserProperties;
+import tourGuide.persistence.PersistenceProperties;
+import tourGuide.persistence.UserJournal;
 import tourGuide.service.GpsUtilService;
 import tourGuide.service.RewardsService;
+import tourGuide.service.TourGuideOptions;
+import tourGuide.service.TourGuideService;
+import tourGuide.service.TripDealsService;
+import tourGuide.tracker.TrackerEndpoint;
+import tourGuide.tracker.TrackerProperties;
+import tourGuide.user.LocationHistoryProperties;
+import tourGuide.user.MappedLocationStore;
 
 /**
- * Configuration class of TourGuide application
+ * Configuration class of TourGuide application. The simulation profile
+ * replaces GpsUtil, RewardCentral and TripPricer with seeded simulations.
  *
  */
 @Configuration
+@EnableConfigurationProperties({ ExecutorProperties.class, TrackerProperties.class,
+		LocationHistoryProperties.class, PersistenceProperties.class, InternalUserProperties.class,
+		SimulationProperties.class })
 public class TourGuideModule {
 	
-	@Bean
-	public GpsUtilService getGpsUtilService() {
-		return new GpsUtilService();
+	@Value("${tourguide.attraction-catalog.refresh-interval-minutes:60}")
+	private long attractionCatalogRefreshInterval;
+
+	@Bean(destroyMethod = "shutdown")
+	public ExecutionStrategy getExecutionStrategy(ExecutorProperties executorProperties) {
+		return executorProperties.getMode().createStrategy(executorProperties);
+	}
+
+	@Bean(destroyMethod = "shutdown")
+	public GpsUtilService getGpsUtilService(LocationClient locationClient, ExecutionStrategy executionStrategy) {
+		GpsUtilService gpsUtilService = new GpsUtilService(locationClient, executionStrategy);
+		gpsUtilService.startAttractionCatalogRefresh(Duration.ofMinutes(attractionCatalogRefreshInterval));
+		return gpsUtilService;
 	}
 	
 	@Bean
-	public RewardsService getRewardsService() {
-		return new RewardsService(getGpsUtilService(), getRewardCentral());
+	public RewardsService getRewardsService(GpsUtilService gpsUtilService, RewardClient rewardClient,
+			ExecutionStrategy executionStrategy,
+			@Value("${tourguide.reward-points-cache.maximum-size:500000}") int rewardPointsCacheSize,
+			@Value("${tourguide.reward-points-cache.time-to-live-seconds:0}") long rewardPointsTimeToLive) {
+		return new RewardsService(gpsUtilService, rewardClient, executionStrategy, rewardPointsCacheSize,
+				Duration.ofSeconds(rewardPointsTimeToLive));
 	}
 	
 	@Bean
-	public RewardCentral getRewardCentral() {
-		return new RewardCentral();
+	public TripDealsService getTripDealsService(PricingClient pricingClient, ExecutionStrategy executionStrategy,
+			@Value("${tourguide.trip-deals.cache.maximum-size:10000}") int tripDealsCacheSize,
+			@Value("${tourguide.trip-deals.cache.time-to-live-seconds:3600}") long tripDealsTimeToLive,
+			@Value("${tourguide.trip-deals.reward-points-bucket-size:100}") int rewardPointsBucketSize,
+			@Value("${tourguide.trip-deals.quote-deadline-millis:2000}") long quoteDeadline) {
+		return new TripDealsService(pricingClient, executionStrategy, tripDealsCacheSize,
+				Duration.ofSeconds(tripDealsTimeToLive), rewardPointsBucketSize, Duration.ofMillis(quoteDeadline));
+	}
+
+	@Bean
+	@Profile("!simulation")
+	public LocationClient getLocationClient() {
+		return new GpsUtilClient();
+	}
+
+	@Bean
+	@Profile("!simulation")
+	public RewardClient getRewardClient() {
+		return new RewardCentralClient();
+	}
+
+	@Bean
+	@Profile("!simulation")
+	public PricingClient getPricingClient() {
+		return new TripPricerClient();
+	}
+
+	@Bean
+	@Profile("simulation")
+	public SimulatedLocationClient getSimulatedLocationClient(SimulationProperties simulationProperties) {
+		return new SimulatedLocationClient(simulationProperties.getSeed(), simulationProperties.getGpsUtil());
+	}
+
+	@Bean
+	@Profile("simulation")
+	public SimulatedRewardClient getSimulatedRewardClient(SimulationProperties simulationProperties,
+			SimulatedLocationClient simulatedLocationClient) {
+		return new SimulatedRewardClient(simulationProperties.getSeed(), simulationProperties.getRewardCentral(),
+				simulatedLocationClient);
+	}
+
+	@Bean
+	@Profile("simulation")
+	public SimulatedPricingClient getSimulatedPricingClient(SimulationProperties simulationProperties) {
+		return new SimulatedPricingClient(simulationProperties.getSeed(), simulationProperties.getTripPricer());
+	}
+
+	// null when no store directory is set, only retained locations are then kept
+	@Bean(destroyMethod = "close")
+	public MappedLocationStore getMappedLocationStore(LocationHistoryProperties locationHistoryProperties) {
+		return locationHistoryProperties.openStore();
+	}
+
+	// null when no directory is set, users are then not persisted
+	@Bean(destroyMethod = "close")
+	public UserJournal getUserJournal(PersistenceProperties persistenceProperties) {
+		return persistenceProperties.openJournal();
+	}
+
+	@Bean
+	public TourGuideOptions getTourGuideOptions(TrackerProperties trackerProperties,
+			LocationHistoryProperties locationHistoryProperties, PersistenceProperties persistenceProperties,
+			InternalUserProperties internalUserProperties, @Nullable MappedLocationStore locationStore,
+			@Nullable UserJournal userJournal) {
+		TourGuideOptions options = new TourGuideOptions();
+		options.setTrackerProperties(trackerProperties);
+		options.setLocationHistoryProperties(locationHistoryProperties);
+		options.setInternalUserProperties(internalUserProperties);
+		options.setLocationStore(locationStore);
+		options.setUserJournal(userJournal);
+		options.setSnapshotInterval(persistenceProperties.getSnapshotInterval());
+		return options;
+	}
+
+	@Bean
+	public TrackerEndpoint getTrackerEndpoint(TourGuideService tourGuideService) {
+		return new TrackerEndpoint(tourGuideService);
 	}
 	
 }
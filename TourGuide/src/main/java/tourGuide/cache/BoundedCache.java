@@ -0,0 +1,249 @@
+package tourGuide.cache;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Concurrent cache with a maximum size and an optional time to live.
+ *
+ * Concurrent requests for a missing key share a single load. Failed loads are
+ * not cached. When the cache is full the oldest loaded entries are evicted
+ * first.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class BoundedCache<K, V> {
+
+	private final int maximumSize;
+	private final long timeToLiveNanos;
+
+	private final ConcurrentHashMap<K, Entry> entries = new ConcurrentHashMap<>();
+	// insertion order used for eviction, may hold entries already removed
+	private final Queue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger insertionOrderLength = new AtomicInteger();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder loadFailures = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Constructor for a cache without time to live
+	 *
+	 * @param maximumSize - int
+	 */
+	public BoundedCache(int maximumSize) {
+		this(maximumSize, Duration.ZERO);
+	}
+
+	/**
+	 * Constructor for a cache
+	 *
+	 * @param maximumSize - int
+	 * @param timeToLive  - Duration after which a loaded value is reloaded, zero
+	 *                    for no expiration
+	 */
+	public BoundedCache(int maximumSize, Duration timeToLive) {
+		if (maximumSize <= 0) {
+			throw new IllegalArgumentException("Maximum size must be positive : " + maximumSize);
+		}
+		if (timeToLive.isNegative()) {
+			throw new IllegalArgumentException("Time to live must not be negative : " + timeToLive);
+		}
+		this.maximumSize = maximumSize;
+		this.timeToLiveNanos = timeToLive.toNanos();
+	}
+
+	/**
+	 * Get the value of a key, loading it asynchronously if absent or expired
+	 *
+	 * @param key    - K
+	 * @param loader - Function loading the value of a key
+	 * @return CompletableFuture of the value
+	 */
+	public CompletableFuture<V> getAsync(K key, Function<? super K, CompletableFuture<? extends V>> loader) {
+		Entry entry = entries.get(key);
+		if (entry != null && !entry.isExpired()) {
+			hits.increment();
+			return entry.future;
+		}
+
+		Entry newEntry = new Entry(key);
+		entry = entries.compute(key, (k, existing) -> existing != null && !existing.isExpired() ? existing : newEntry);
+		if (entry != newEntry) {
+			// another caller started loading this key in the meantime
+			hits.increment();
+			return entry.future;
+		}
+
+		misses.increment();
+		insertionOrder.add(newEntry);
+		insertionOrderLength.incrementAndGet();
+		evictIfNeeded();
+
+		CompletableFuture<? extends V> loading;
+		try {
+			loading = loader.apply(key);
+		} catch (RuntimeException e) {
+			loading = failedFuture(e);
+		}
+		loading.whenComplete((value, throwable) -> {
+			if (throwable != null) {
+				loadFailures.increment();
+				entries.remove(key, newEntry);
+				newEntry.future.completeExceptionally(throwable);
+			} else {
+				newEntry.loadedAt = System.nanoTime();
+				newEntry.future.complete(value);
+			}
+		});
+		return newEntry.future;
+	}
+
+	/**
+	 * Get the value of a key, loading it in the calling thread if absent or
+	 * expired
+	 *
+	 * @param key    - K
+	 * @param loader - Function loading the value of a key
+	 * @return value - V
+	 */
+	public V get(K key, Function<? super K, ? extends V> loader) {
+		CompletableFuture<V> future = getAsync(key, k -> {
+			try {
+				return CompletableFuture.completedFuture(loader.apply(k));
+			} catch (RuntimeException e) {
+				return failedFuture(e);
+			}
+		});
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Get the value of a key if it is loaded and not expired
+	 *
+	 * @param key - K
+	 * @return value or null - V
+	 */
+	public V getIfPresent(K key) {
+		Entry entry = entries.get(key);
+		if (entry == null || entry.isExpired() || !entry.future.isDone() || entry.future.isCompletedExceptionally()) {
+			return null;
+		}
+		return entry.future.join();
+	}
+
+	/**
+	 * Remove a key from the cache
+	 *
+	 * @param key - K
+	 */
+	public void invalidate(K key) {
+		entries.remove(key);
+	}
+
+	/**
+	 * Remove all keys from the cache
+	 */
+	public void invalidateAll() {
+		entries.clear();
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	public int getMaximumSize() {
+		return maximumSize;
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	public long getLoadFailureCount() {
+		return loadFailures.sum();
+	}
+
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	/**
+	 * Get the ratio of requests served without loading
+	 *
+	 * @return hit rate between 0 and 1 - double
+	 */
+	public double getHitRate() {
+		long hitCount = hits.sum();
+		long requestCount = hitCount + misses.sum();
+		return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+	}
+
+	/**
+	 * Evict oldest entries while the cache is too big, and drop removed entries
+	 * from the insertion order once it grows past twice the maximum size
+	 */
+	private void evictIfNeeded() {
+		while (entries.size() > maximumSize || insertionOrderLength.get() > 2 * maximumSize) {
+			Entry oldest = insertionOrder.poll();
+			if (oldest == null) {
+				return;
+			}
+			insertionOrderLength.decrementAndGet();
+			if (entries.get(oldest.key) != oldest) {
+				continue;
+			}
+			if (entries.size() > maximumSize) {
+				if (entries.remove(oldest.key, oldest)) {
+					evictions.increment();
+				}
+			} else {
+				// still cached, keep it in the insertion order
+				insertionOrder.add(oldest);
+				insertionOrderLength.incrementAndGet();
+				return;
+			}
+		}
+	}
+
+	private static <V> CompletableFuture<V> failedFuture(Throwable throwable) {
+		CompletableFuture<V> future = new CompletableFuture<>();
+		future.completeExceptionally(throwable);
+		return future;
+	}
+
+	private final class Entry {
+		final K key;
+		final CompletableFuture<V> future = new CompletableFuture<>();
+		volatile long loadedAt;
+
+		Entry(K key) {
+			this.key = key;
+		}
+
+		boolean isExpired() {
+			return timeToLiveNanos > 0 && future.isDone() && System.nanoTime() - loadedAt >= timeToLiveNanos;
+		}
+	}
+
+}
@@ -0,0 +1,62 @@
+package tourGuide.client;
+
+import java.util.SplittableRandom;
+
+/**
+ * Distribution of the latency of a simulated dependency
+ * 
+ */
+public enum LatencyDistribution {
+
+	/**
+	 * Always the minimum latency
+	 */
+	FIXED {
+		@Override
+		long sampleNanos(LatencySettings settings, SplittableRandom random) {
+			return settings.getMin().toNanos();
+		}
+	},
+
+	/**
+	 * Any latency between the minimum and the maximum, with the same probability
+	 */
+	UNIFORM {
+		@Override
+		long sampleNanos(LatencySettings settings, SplittableRandom random) {
+			long min = settings.getMin().toNanos();
+			long max = settings.getMax().toNanos();
+			return max > min ? random.nextLong(min, max + 1) : min;
+		}
+	},
+
+	/**
+	 * Pareto latency from the minimum, half of the calls being slower than the
+	 * median, capped at the maximum
+	 */
+	LONG_TAIL {
+		@Override
+		long sampleNanos(LatencySettings settings, SplittableRandom random) {
+			long min = Math.max(settings.getMin().toNanos(), 1);
+			long median = settings.getMedian().toNanos();
+			long max = settings.getMax().toNanos();
+			if (median <= min) {
+				return Math.min(min, max);
+			}
+			// the median of a Pareto distribution is min * 2^(1/shape)
+			double shape = Math.log(2) / Math.log((double) median / min);
+			double latency = min * Math.pow(1 - random.nextDouble(), -1 / shape);
+			return (long) Math.min(latency, max);
+		}
+	};
+
+	/**
+	 * Draw a latency
+	 * 
+	 * @param settings - LatencySettings
+	 * @param random   - SplittableRandom
+	 * @return latency in nanoseconds - long
+	 */
+	abstract long sampleNanos(LatencySettings settings, SplittableRandom random);
+
+}
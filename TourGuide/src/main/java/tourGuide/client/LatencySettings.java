@@ -0,0 +1,88 @@
+package tourGuide.client;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settings of the latency of a simulated dependency
+ * 
+ */
+public class LatencySettings {
+
+	private LatencyDistribution distribution;
+	private Duration min;
+	private Duration median;
+	private Duration max;
+
+	public LatencySettings() {
+		this(LatencyDistribution.FIXED, Duration.ZERO, Duration.ZERO, Duration.ZERO);
+	}
+
+	public LatencySettings(LatencyDistribution distribution, Duration min, Duration median, Duration max) {
+		this.distribution = distribution;
+		this.min = min;
+		this.median = median;
+		this.max = max;
+	}
+
+	public LatencyDistribution getDistribution() {
+		return distribution;
+	}
+
+	public void setDistribution(LatencyDistribution distribution) {
+		this.distribution = distribution;
+	}
+
+	public Duration getMin() {
+		return min;
+	}
+
+	public void setMin(Duration min) {
+		this.min = min;
+	}
+
+	public Duration getMedian() {
+		return median;
+	}
+
+	public void setMedian(Duration median) {
+		this.median = median;
+	}
+
+	public Duration getMax() {
+		return max;
+	}
+
+	public void setMax(Duration max) {
+		this.max = max;
+	}
+
+	/**
+	 * Draw a latency from the distribution
+	 * 
+	 * @param random - SplittableRandom
+	 * @return latency in nanoseconds - long
+	 */
+	public long sampleNanos(SplittableRandom random) {
+		return distribution.sampleNanos(this, random);
+	}
+
+	/**
+	 * Wait for a latency drawn from the distribution
+	 * 
+	 * @param random - SplittableRandom
+	 */
+	public void await(SplittableRandom random) {
+		long latency = sampleNanos(random);
+		if (latency <= 0) {
+			return;
+		}
+		try {
+			TimeUnit.NANOSECONDS.sleep(latency);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
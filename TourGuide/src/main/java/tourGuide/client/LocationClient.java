@@ -0,0 +1,30 @@
+package tourGuide.client;
+
+import java.util.List;
+import java.util.UUID;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Client of the service locating users and listing attractions
+ * 
+ */
+public interface LocationClient {
+
+	/**
+	 * Get the current location of a user
+	 * 
+	 * @param userId - UUID
+	 * @return location of the user - VisitedLocation
+	 */
+	VisitedLocation getUserLocation(UUID userId);
+
+	/**
+	 * Get all attractions
+	 * 
+	 * @return List of Attraction
+	 */
+	List<Attraction> getAttractions();
+
+}
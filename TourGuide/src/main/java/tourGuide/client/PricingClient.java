@@ -0,0 +1,27 @@
+package tourGuide.client;
+
+import java.util.List;
+import java.util.UUID;
+
+import tripPricer.Provider;
+
+/**
+ * Client of the service quoting trips
+ * 
+ */
+public interface PricingClient {
+
+	/**
+	 * Get a quote of a trip, as a list of providers and their prices
+	 * 
+	 * @param apiKey        - String
+	 * @param tripId        - UUID
+	 * @param adults        - number of adults
+	 * @param children      - number of children
+	 * @param nightsStay    - duration of the trip
+	 * @param rewardsPoints - reward points of the user
+	 * @return List of Provider
+	 */
+	List<Provider> getPrice(String apiKey, UUID tripId, int adults, int children, int nightsStay, int rewardsPoints);
+
+}
@@ -0,0 +1,28 @@
+package tourGuide.client;
+
+import java.util.UUID;
+
+import rewardCentral.RewardCentral;
+
+/**
+ * Reward client calling the RewardCentral library
+ * 
+ */
+public class RewardCentralClient implements RewardClient {
+
+	private final RewardCentral rewardCentral;
+
+	public RewardCentralClient() {
+		this(new RewardCentral());
+	}
+
+	public RewardCentralClient(RewardCentral rewardCentral) {
+		this.rewardCentral = rewardCentral;
+	}
+
+	@Override
+	public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+		return rewardCentral.getAttractionRewardPoints(attractionId, userId);
+	}
+
+}
@@ -0,0 +1,20 @@
+package tourGuide.client;
+
+import java.util.UUID;
+
+/**
+ * Client of the service giving reward points
+ * 
+ */
+public interface RewardClient {
+
+	/**
+	 * Get the reward points of a user for an attraction
+	 * 
+	 * @param attractionId - UUID
+	 * @param userId       - UUID
+	 * @return rewardPoints - int
+	 */
+	int getAttractionRewardPoints(UUID attractionId, UUID userId);
+
+}
@@ -0,0 +1,92 @@
+package tourGuide.client;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Location client simulating GpsUtil in process.
+ *
+ * The n-th location of a user only depends on the seed, the user and n, and
+ * attractions are loaded once so that their ids do not change. Each call waits
+ * for a latency drawn from its settings.
+ * 
+ */
+public class SimulatedLocationClient implements LocationClient {
+
+	private static final long LATENCY_KEY = 1;
+	private static final long LOCATION_KEY = 2;
+	private static final double MAX_LATITUDE = 85.05112878;
+	private static final double MAX_LONGITUDE = 180;
+
+	private final long seed;
+	private final LatencySettings latency;
+	private final AtomicLong calls = new AtomicLong();
+	private final ConcurrentHashMap<UUID, AtomicLong> locationCounts = new ConcurrentHashMap<>();
+	private final List<Attraction> attractions;
+	private final Map<UUID, Integer> attractionIndexes = new HashMap<>();
+
+	/**
+	 * Constructor for a client with the attractions of GpsUtil
+	 * 
+	 * @param seed    - long
+	 * @param latency - LatencySettings of each call
+	 */
+	public SimulatedLocationClient(long seed, LatencySettings latency) {
+		this(seed, latency, new GpsUtil().getAttractions());
+	}
+
+	/**
+	 * Constructor for a client
+	 * 
+	 * @param seed        - long
+	 * @param latency     - LatencySettings of each call
+	 * @param attractions - List of Attraction
+	 */
+	public SimulatedLocationClient(long seed, LatencySettings latency, List<Attraction> attractions) {
+		this.seed = seed;
+		this.latency = latency;
+		this.attractions = Collections.unmodifiableList(attractions);
+		for (int i = 0; i < attractions.size(); i++) {
+			attractionIndexes.put(attractions.get(i).attractionId, i);
+		}
+	}
+
+	@Override
+	public VisitedLocation getUserLocation(UUID userId) {
+		latency.await(SimulatedRandom.of(seed, LATENCY_KEY, calls.incrementAndGet()));
+		long count = locationCounts.computeIfAbsent(userId, id -> new AtomicLong()).getAndIncrement();
+		SplittableRandom random = SimulatedRandom.of(seed, LOCATION_KEY, SimulatedRandom.key(userId), count);
+		Location location = new Location(random.nextDouble(-MAX_LATITUDE, MAX_LATITUDE),
+				random.nextDouble(-MAX_LONGITUDE, MAX_LONGITUDE));
+		return new VisitedLocation(userId, location, new Date());
+	}
+
+	@Override
+	public List<Attraction> getAttractions() {
+		latency.await(SimulatedRandom.of(seed, LATENCY_KEY, calls.incrementAndGet()));
+		return attractions;
+	}
+
+	/**
+	 * Get the position of an attraction in the list of attractions
+	 * 
+	 * @param attractionId - UUID
+	 * @return index or -1 for an unknown attraction - int
+	 */
+	public int indexOf(UUID attractionId) {
+		return attractionIndexes.getOrDefault(attractionId, -1);
+	}
+
+}
@@ -0,0 +1,72 @@
+package tourGuide.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import tripPricer.Provider;
+
+/**
+ * Pricing client simulating TripPricer in process.
+ *
+ * The n-th quote of a trip only depends on the seed, the party, duration and
+ * reward points of the trip, and n. Each call waits for a latency drawn from
+ * its settings.
+ * 
+ */
+public class SimulatedPricingClient implements PricingClient {
+
+	private static final long LATENCY_KEY = 5;
+	private static final long PRICE_KEY = 6;
+	private static final int PROVIDERS_PER_QUOTE = 5;
+	private static final String[] PROVIDER_NAMES = { "Holiday Travels", "Enterprize Ventures Limited", "Sunny Days",
+			"FlyAway Trips", "United Partners Vacations", "Dream Trips", "Live Free",
+			"Dancing Waves Cruselines and Partners", "AdventureCo", "Cure-Your-Blues" };
+
+	private final long seed;
+	private final LatencySettings latency;
+	private final AtomicLong calls = new AtomicLong();
+	private final ConcurrentHashMap<List<Integer>, AtomicLong> quoteCounts = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructor for a client
+	 * 
+	 * @param seed    - long
+	 * @param latency - LatencySettings of each call
+	 */
+	public SimulatedPricingClient(long seed, LatencySettings latency) {
+		this.seed = seed;
+		this.latency = latency;
+	}
+
+	@Override
+	public List<Provider> getPrice(String apiKey, UUID tripId, int adults, int children, int nightsStay,
+			int rewardsPoints) {
+		latency.await(SimulatedRandom.of(seed, LATENCY_KEY, calls.incrementAndGet()));
+		List<Integer> trip = Arrays.asList(adults, children, nightsStay, rewardsPoints);
+		long count = quoteCounts.computeIfAbsent(trip, t -> new AtomicLong()).getAndIncrement();
+		SplittableRandom random = SimulatedRandom.of(seed, PRICE_KEY, trip.hashCode(), count);
+
+		List<Provider> providers = new ArrayList<>(PROVIDERS_PER_QUOTE);
+		Set<String> names = new HashSet<>();
+		while (providers.size() < PROVIDERS_PER_QUOTE) {
+			String name = PROVIDER_NAMES[random.nextInt(PROVIDER_NAMES.length)];
+			if (names.add(name)) {
+				// same formula as TripPricer
+				int multiple = random.nextInt(100, 700);
+				double childrenDiscount = children / 3;
+				double price = Math.max(
+						multiple * adults + multiple * childrenDiscount * nightsStay + 0.99 - rewardsPoints, 0);
+				providers.add(new Provider(tripId, name, price));
+			}
+		}
+		return providers;
+	}
+
+}
@@ -0,0 +1,49 @@
+package tourGuide.client;
+
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Random generators of the simulated dependencies, drawn from a seed and the
+ * arguments of a call so that the same calls always give the same answers
+ * 
+ */
+final class SimulatedRandom {
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private SimulatedRandom() {
+	}
+
+	/**
+	 * Generator of a seed and keys
+	 * 
+	 * @param seed - long
+	 * @param keys - longs the generator is drawn from
+	 * @return random - SplittableRandom
+	 */
+	static SplittableRandom of(long seed, long... keys) {
+		long state = mix64(seed);
+		for (long key : keys) {
+			state = mix64(state + GOLDEN_GAMMA + key);
+		}
+		return new SplittableRandom(state);
+	}
+
+	/**
+	 * Key of a UUID
+	 * 
+	 * @param uuid - UUID
+	 * @return key - long
+	 */
+	static long key(UUID uuid) {
+		return mix64(uuid.getMostSignificantBits()) ^ uuid.getLeastSignificantBits();
+	}
+
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+}
@@ -0,0 +1,47 @@
+package tourGuide.client;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reward client simulating RewardCentral in process.
+ *
+ * Points of a user for an attraction only depend on the seed, the user and
+ * the position of the attraction among the simulated attractions. Each call
+ * waits for a latency drawn from its settings.
+ * 
+ */
+public class SimulatedRewardClient implements RewardClient {
+
+	private static final long LATENCY_KEY = 3;
+	private static final long POINTS_KEY = 4;
+	private static final int MAX_REWARD_POINTS = 1000;
+
+	private final long seed;
+	private final LatencySettings latency;
+	private final SimulatedLocationClient locationClient;
+	private final AtomicLong calls = new AtomicLong();
+
+	/**
+	 * Constructor for a client
+	 * 
+	 * @param seed           - long
+	 * @param latency        - LatencySettings of each call
+	 * @param locationClient - SimulatedLocationClient of the attractions
+	 */
+	public SimulatedRewardClient(long seed, LatencySettings latency, SimulatedLocationClient locationClient) {
+		this.seed = seed;
+		this.latency = latency;
+		this.locationClient = locationClient;
+	}
+
+	@Override
+	public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+		latency.await(SimulatedRandom.of(seed, LATENCY_KEY, calls.incrementAndGet()));
+		int index = locationClient.indexOf(attractionId);
+		long attractionKey = index >= 0 ? index : SimulatedRandom.key(attractionId);
+		return SimulatedRandom.of(seed, POINTS_KEY, attractionKey, SimulatedRandom.key(userId)).nextInt(1,
+				MAX_REWARD_POINTS);
+	}
+
+}
@@ -0,0 +1,56 @@
+package tourGuide.client;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the simulated dependencies, bound from
+ * tourguide.simulation.* properties. Defaults are the latencies of the
+ * libraries.
+ * 
+ */
+@ConfigurationProperties(prefix = "tourguide.simulation")
+public class SimulationProperties {
+
+	private long seed = 0;
+	private LatencySettings gpsUtil = new LatencySettings(LatencyDistribution.UNIFORM, Duration.ofMillis(30),
+			Duration.ofMillis(65), Duration.ofMillis(100));
+	private LatencySettings rewardCentral = new LatencySettings(LatencyDistribution.UNIFORM, Duration.ofMillis(1),
+			Duration.ofMillis(500), Duration.ofMillis(1000));
+	private LatencySettings tripPricer = new LatencySettings(LatencyDistribution.UNIFORM, Duration.ofMillis(1),
+			Duration.ofMillis(25), Duration.ofMillis(50));
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	public LatencySettings getGpsUtil() {
+		return gpsUtil;
+	}
+
+	public void setGpsUtil(LatencySettings gpsUtil) {
+		this.gpsUtil = gpsUtil;
+	}
+
+	public LatencySettings getRewardCentral() {
+		return rewardCentral;
+	}
+
+	public void setRewardCentral(LatencySettings rewardCentral) {
+		this.rewardCentral = rewardCentral;
+	}
+
+	public LatencySettings getTripPricer() {
+		return tripPricer;
+	}
+
+	public void setTripPricer(LatencySettings tripPricer) {
+		this.tripPricer = tripPricer;
+	}
+
+}
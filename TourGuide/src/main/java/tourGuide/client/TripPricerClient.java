@@ -0,0 +1,31 @@
+package tourGuide.client;
+
+import java.util.List;
+import java.util.UUID;
+
+import tripPricer.Provider;
+import tripPricer.TripPricer;
+
+/**
+ * Pricing client calling the TripPricer library
+ * 
+ */
+public class TripPricerClient implements PricingClient {
+
+	private final TripPricer tripPricer;
+
+	public TripPricerClient() {
+		this(new TripPricer());
+	}
+
+	public TripPricerClient(TripPricer tripPricer) {
+		this.tripPricer = tripPricer;
+	}
+
+	@Override
+	public List<Provider> getPrice(String apiKey, UUID tripId, int adults, int children, int nightsStay,
+			int rewardsPoints) {
+		return tripPricer.getPrice(apiKey, tripId, adults, children, nightsStay, rewardsPoints);
+	}
+
+}
@@ -0,0 +1,124 @@
+package tourGuide.executor;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import tourGuide.metrics.TourGuideMetrics;
+
+/**
+ * Bounded thread pool isolating the calls to one dependency
+ * 
+ */
+public class Bulkhead implements Executor, MeterBinder {
+
+	private static final String MODE = "bulkhead";
+
+	private static final long IDLE_THREAD_TIMEOUT_SECONDS = 60;
+
+	private final ExternalDependency dependency;
+	private final ThreadPoolExecutor threadPool;
+
+	/**
+	 * Constructor for a bulkhead, its threads are daemon threads stopped after a
+	 * minute without calls
+	 * 
+	 * @param dependency - ExternalDependency
+	 * @param settings   - BulkheadSettings
+	 */
+	public Bulkhead(ExternalDependency dependency, BulkheadSettings settings) {
+		if (settings.getPoolSize() <= 0) {
+			throw new IllegalArgumentException(
+					"Pool size of " + dependency.getId() + " must be positive : " + settings.getPoolSize());
+		}
+		this.dependency = dependency;
+		BlockingQueue<Runnable> queue = settings.getQueueCapacity() > 0
+				? new LinkedBlockingQueue<>(settings.getQueueCapacity())
+				: new SynchronousQueue<>();
+		AtomicInteger threadNumber = new AtomicInteger();
+		this.threadPool = new ThreadPoolExecutor(settings.getPoolSize(), settings.getPoolSize(),
+				IDLE_THREAD_TIMEOUT_SECONDS, TimeUnit.SECONDS, queue, runnable -> {
+					Thread thread = new Thread(runnable, dependency.getId() + "-" + threadNumber.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}, settings.getRejectionPolicy().getHandler());
+		this.threadPool.allowCoreThreadTimeOut(true);
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		threadPool.execute(command);
+	}
+
+	public ExternalDependency getDependency() {
+		return dependency;
+	}
+
+	public int getPoolSize() {
+		return threadPool.getMaximumPoolSize();
+	}
+
+	public int getActiveCount() {
+		return threadPool.getActiveCount();
+	}
+
+	public int getQueueSize() {
+		return threadPool.getQueue().size();
+	}
+
+	public long getCompletedTaskCount() {
+		return threadPool.getCompletedTaskCount();
+	}
+
+	/**
+	 * Register gauges of the size, active threads and queue of the pool, and a
+	 * counter of completed calls
+	 * 
+	 * @param registry - MeterRegistry
+	 */
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		String id = dependency.getId();
+		Gauge.builder(TourGuideMetrics.EXECUTOR_POOL_SIZE, this, Bulkhead::getPoolSize)
+				.tag(TourGuideMetrics.DEPENDENCY_TAG, id).tag(TourGuideMetrics.MODE_TAG, MODE).register(registry);
+		Gauge.builder(TourGuideMetrics.EXECUTOR_ACTIVE, this, Bulkhead::getActiveCount)
+				.tag(TourGuideMetrics.DEPENDENCY_TAG, id).tag(TourGuideMetrics.MODE_TAG, MODE).register(registry);
+		Gauge.builder(TourGuideMetrics.EXECUTOR_QUEUED, this, Bulkhead::getQueueSize)
+				.tag(TourGuideMetrics.DEPENDENCY_TAG, id).tag(TourGuideMetrics.MODE_TAG, MODE).register(registry);
+		FunctionCounter.builder(TourGuideMetrics.EXECUTOR_COMPLETED, this, Bulkhead::getCompletedTaskCount)
+				.tag(TourGuideMetrics.DEPENDENCY_TAG, id).tag(TourGuideMetrics.MODE_TAG, MODE).register(registry);
+	}
+
+	/**
+	 * Stop accepting calls, queued ones are still run
+	 */
+	public void shutdown() {
+		threadPool.shutdown();
+	}
+
+	/**
+	 * Wait for calls to finish after a shutdown, then interrupt them
+	 * 
+	 * @param timeout - time to wait
+	 * @param unit    - TimeUnit of the timeout
+	 */
+	public void awaitTermination(long timeout, TimeUnit unit) {
+		try {
+			if (!threadPool.awaitTermination(timeout, unit)) {
+				threadPool.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			threadPool.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,81 @@
+package tourGuide.executor;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Execution strategy running the calls to each dependency in its own bounded
+ * thread pool
+ * 
+ */
+public class BulkheadExecutionStrategy implements ExecutionStrategy {
+
+	private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+	private static volatile BulkheadExecutionStrategy defaultStrategy;
+
+	private final Map<ExternalDependency, Bulkhead> bulkheads = new EnumMap<>(ExternalDependency.class);
+
+	/**
+	 * Constructor for a strategy
+	 * 
+	 * @param executorProperties - settings of each bulkhead
+	 */
+	public BulkheadExecutionStrategy(ExecutorProperties executorProperties) {
+		for (ExternalDependency dependency : ExternalDependency.values()) {
+			bulkheads.put(dependency, new Bulkhead(dependency, executorProperties.getSettings(dependency)));
+		}
+	}
+
+	/**
+	 * Get the strategy shared by services created outside of Spring, with default
+	 * settings. Its threads stop by themselves when idle.
+	 * 
+	 * @return strategy - BulkheadExecutionStrategy
+	 */
+	public static BulkheadExecutionStrategy getDefault() {
+		BulkheadExecutionStrategy strategy = defaultStrategy;
+		if (strategy == null) {
+			synchronized (BulkheadExecutionStrategy.class) {
+				strategy = defaultStrategy;
+				if (strategy == null) {
+					strategy = new BulkheadExecutionStrategy(new ExecutorProperties());
+					defaultStrategy = strategy;
+				}
+			}
+		}
+		return strategy;
+	}
+
+	@Override
+	public Executor getExecutor(ExternalDependency dependency) {
+		return bulkheads.get(dependency);
+	}
+
+	/**
+	 * Get all bulkheads
+	 * 
+	 * @return Collection of Bulkhead
+	 */
+	public Collection<Bulkhead> getBulkheads() {
+		return Collections.unmodifiableCollection(bulkheads.values());
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		bulkheads.values().forEach(bulkhead -> bulkhead.bindTo(registry));
+	}
+
+	@Override
+	public void shutdown() {
+		bulkheads.values().forEach(Bulkhead::shutdown);
+		bulkheads.values().forEach(bulkhead -> bulkhead.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+	}
+
+}
@@ -0,0 +1,63 @@
+package tourGuide.executor;
+
+/**
+ * Settings of the bulkhead of a dependency
+ * 
+ */
+public class BulkheadSettings {
+
+	private int poolSize;
+	private int queueCapacity;
+	private RejectionPolicy rejectionPolicy;
+	// calls running at the same time in virtual thread mode
+	private int maxConcurrentCalls;
+
+	public BulkheadSettings() {
+		this(10, 1000, RejectionPolicy.BLOCK);
+	}
+
+	public BulkheadSettings(int poolSize, int queueCapacity, RejectionPolicy rejectionPolicy) {
+		this(poolSize, queueCapacity, rejectionPolicy, poolSize);
+	}
+
+	public BulkheadSettings(int poolSize, int queueCapacity, RejectionPolicy rejectionPolicy,
+			int maxConcurrentCalls) {
+		this.poolSize = poolSize;
+		this.queueCapacity = queueCapacity;
+		this.rejectionPolicy = rejectionPolicy;
+		this.maxConcurrentCalls = maxConcurrentCalls;
+	}
+
+	public int getPoolSize() {
+		return poolSize;
+	}
+
+	public void setPoolSize(int poolSize) {
+		this.poolSize = poolSize;
+	}
+
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	public void setQueueCapacity(int queueCapacity) {
+		this.queueCapacity = queueCapacity;
+	}
+
+	public RejectionPolicy getRejectionPolicy() {
+		return rejectionPolicy;
+	}
+
+	public void setRejectionPolicy(RejectionPolicy rejectionPolicy) {
+		this.rejectionPolicy = rejectionPolicy;
+	}
+
+	public int getMaxConcurrentCalls() {
+		return maxConcurrentCalls;
+	}
+
+	public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+		this.maxConcurrentCalls = maxConcurrentCalls;
+	}
+
+}
@@ -0,0 +1,30 @@
+package tourGuide.executor;
+
+/**
+ * How calls to external dependencies are run
+ * 
+ */
+public enum ExecutionMode {
+
+	/**
+	 * One bounded pool of platform threads per dependency
+	 */
+	BULKHEAD,
+
+	/**
+	 * One virtual thread per call, limited by a semaphore per dependency
+	 */
+	VIRTUAL_THREADS;
+
+	/**
+	 * Create the execution strategy of this mode
+	 * 
+	 * @param executorProperties - ExecutorProperties
+	 * @return strategy - ExecutionStrategy
+	 */
+	public ExecutionStrategy createStrategy(ExecutorProperties executorProperties) {
+		return this == VIRTUAL_THREADS ? new VirtualThreadExecutionStrategy(executorProperties)
+				: new BulkheadExecutionStrategy(executorProperties);
+	}
+
+}
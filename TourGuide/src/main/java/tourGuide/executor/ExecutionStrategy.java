@@ -0,0 +1,49 @@
+package tourGuide.executor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Strategy running blocking calls to external dependencies
+ * 
+ */
+public interface ExecutionStrategy extends MeterBinder {
+
+	/**
+	 * Get the executor dedicated to calls to a dependency
+	 * 
+	 * @param dependency - ExternalDependency
+	 * @return executor - Executor
+	 */
+	Executor getExecutor(ExternalDependency dependency);
+
+	/**
+	 * Run a call to a dependency asynchronously
+	 * 
+	 * @param dependency - ExternalDependency
+	 * @param call       - Supplier of the result
+	 * @return CompletableFuture of the result
+	 */
+	default <T> CompletableFuture<T> supplyAsync(ExternalDependency dependency, Supplier<T> call) {
+		return CompletableFuture.supplyAsync(call, getExecutor(dependency));
+	}
+
+	/**
+	 * Register the gauges of the executors, none by default
+	 * 
+	 * @param registry - MeterRegistry
+	 */
+	@Override
+	default void bindTo(MeterRegistry registry) {
+	}
+
+	/**
+	 * Stop accepting calls and release threads
+	 */
+	void shutdown();
+
+}
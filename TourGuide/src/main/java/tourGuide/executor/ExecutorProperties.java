@@ -0,0 +1,67 @@
+package tourGuide.executor;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the bulkheads, bound from tourguide.executor.* properties
+ * 
+ */
+@ConfigurationProperties(prefix = "tourguide.executor")
+public class ExecutorProperties {
+
+	private ExecutionMode mode = ExecutionMode.BULKHEAD;
+	// calls are submitted by the location batcher and by threads of other bulkheads, which must never make them
+	private BulkheadSettings gpsUtil = new BulkheadSettings(200, 10000, RejectionPolicy.BLOCK, 1000);
+	private BulkheadSettings rewardCentral = new BulkheadSettings(500, 10000, RejectionPolicy.BLOCK, 5000);
+	private BulkheadSettings tripPricer = new BulkheadSettings(50, 200, RejectionPolicy.ABORT, 50);
+
+	public ExecutionMode getMode() {
+		return mode;
+	}
+
+	public void setMode(ExecutionMode mode) {
+		this.mode = mode;
+	}
+
+	public BulkheadSettings getGpsUtil() {
+		return gpsUtil;
+	}
+
+	public void setGpsUtil(BulkheadSettings gpsUtil) {
+		this.gpsUtil = gpsUtil;
+	}
+
+	public BulkheadSettings getRewardCentral() {
+		return rewardCentral;
+	}
+
+	public void setRewardCentral(BulkheadSettings rewardCentral) {
+		this.rewardCentral = rewardCentral;
+	}
+
+	public BulkheadSettings getTripPricer() {
+		return tripPricer;
+	}
+
+	public void setTripPricer(BulkheadSettings tripPricer) {
+		this.tripPricer = tripPricer;
+	}
+
+	/**
+	 * Get the settings of a dependency
+	 * 
+	 * @param dependency - ExternalDependency
+	 * @return settings - BulkheadSettings
+	 */
+	public BulkheadSettings getSettings(ExternalDependency dependency) {
+		switch (dependency) {
+		case GPS_UTIL:
+			return gpsUtil;
+		case REWARD_CENTRAL:
+			return rewardCentral;
+		default:
+			return tripPricer;
+		}
+	}
+
+}
@@ -0,0 +1,22 @@
+package tourGuide.executor;
+
+/**
+ * External services called by TourGuide, each one gets its own bulkhead so that
+ * a slow dependency cannot starve the others
+ * 
+ */
+public enum ExternalDependency {
+
+	GPS_UTIL("gps-util"), REWARD_CENTRAL("reward-central"), TRIP_PRICER("trip-pricer");
+
+	private final String id;
+
+	ExternalDependency(String id) {
+		this.id = id;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+}
@@ -0,0 +1,187 @@
+package tourGuide.executor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Front-end turning single requests into batch requests.
+ *
+ * Requests are collected during a short delay after the first one, or until a
+ * batch is full, then loaded together. The number of batches loading at the
+ * same time is limited : when the limit is reached, requests keep on being
+ * collected and go in the next batches. Each caller gets its own future,
+ * completed when its batch is loaded.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class MicroBatcher<K, V> {
+
+	private final long maxDelayNanos;
+	private final int maxBatchSize;
+	private final Semaphore batchesInFlight;
+	private final Function<List<K>, CompletableFuture<Map<K, V>>> batchLoader;
+
+	private final Queue<Request<K, V>> requests = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger pendingRequests = new AtomicInteger();
+	private final AtomicBoolean delayedFlushScheduled = new AtomicBoolean();
+	private final AtomicBoolean immediateFlushScheduled = new AtomicBoolean();
+	private final ScheduledExecutorService flusher;
+	private volatile boolean shutdown = false;
+
+	/**
+	 * Constructor for a batcher
+	 *
+	 * @param name                 - name of the thread dispatching batches
+	 * @param maxDelay             - Duration a request can wait for others
+	 * @param maxBatchSize         - maximum number of keys in a batch
+	 * @param maxConcurrentBatches - maximum number of batches loading at the same
+	 *                             time
+	 * @param batchLoader          - Function loading the values of distinct keys
+	 */
+	public MicroBatcher(String name, Duration maxDelay, int maxBatchSize, int maxConcurrentBatches,
+			Function<List<K>, CompletableFuture<Map<K, V>>> batchLoader) {
+		if (maxBatchSize <= 0 || maxConcurrentBatches <= 0) {
+			throw new IllegalArgumentException("Batch size and concurrent batches must be positive");
+		}
+		this.maxDelayNanos = maxDelay.toNanos();
+		this.maxBatchSize = maxBatchSize;
+		this.batchesInFlight = new Semaphore(maxConcurrentBatches);
+		this.batchLoader = batchLoader;
+		this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, name);
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Request the value of a key
+	 *
+	 * @param key - K
+	 * @return CompletableFuture of the value, null if the batch has no value for
+	 *         the key
+	 */
+	public CompletableFuture<V> submit(K key) {
+		Request<K, V> request = new Request<>(key);
+		if (shutdown) {
+			request.future.completeExceptionally(new RejectedExecutionException("Batcher is shut down"));
+			return request.future;
+		}
+		requests.add(request);
+		int pending = pendingRequests.incrementAndGet();
+		// a shutdown since the check above may have drained the queue before the request was added
+		if (shutdown) {
+			failQueuedRequests();
+			return request.future;
+		}
+		try {
+			if (pending >= maxBatchSize) {
+				if (immediateFlushScheduled.compareAndSet(false, true)) {
+					flusher.execute(this::flush);
+				}
+			} else if (delayedFlushScheduled.compareAndSet(false, true)) {
+				flusher.schedule(this::flush, maxDelayNanos, TimeUnit.NANOSECONDS);
+			}
+		} catch (RejectedExecutionException e) {
+			request.future.completeExceptionally(e);
+		}
+		return request.future;
+	}
+
+	public int getPendingRequestCount() {
+		return pendingRequests.get();
+	}
+
+	/**
+	 * Stop dispatching batches, requests not dispatched yet fail
+	 */
+	public void shutdown() {
+		shutdown = true;
+		flusher.shutdownNow();
+		failQueuedRequests();
+	}
+
+	private void failQueuedRequests() {
+		Request<K, V> request;
+		while ((request = requests.poll()) != null) {
+			pendingRequests.decrementAndGet();
+			request.future.completeExceptionally(new RejectedExecutionException("Batcher is shut down"));
+		}
+	}
+
+	/**
+	 * Dispatch all collected requests. Flags are cleared first so that a request
+	 * added during the flush either is drained by it or schedules another one.
+	 */
+	private void flush() {
+		immediateFlushScheduled.set(false);
+		delayedFlushScheduled.set(false);
+		while (true) {
+			List<Request<K, V>> batch = new ArrayList<>();
+			Request<K, V> request;
+			while (batch.size() < maxBatchSize && (request = requests.poll()) != null) {
+				batch.add(request);
+			}
+			if (batch.isEmpty()) {
+				return;
+			}
+			pendingRequests.addAndGet(-batch.size());
+			try {
+				batchesInFlight.acquire();
+			} catch (InterruptedException e) {
+				batch.forEach(r -> r.future.completeExceptionally(e));
+				Thread.currentThread().interrupt();
+				return;
+			}
+			dispatch(batch);
+		}
+	}
+
+	private void dispatch(List<Request<K, V>> batch) {
+		Set<K> keys = new LinkedHashSet<>();
+		batch.forEach(request -> keys.add(request.key));
+		CompletableFuture<Map<K, V>> loading;
+		try {
+			loading = batchLoader.apply(new ArrayList<>(keys));
+		} catch (RuntimeException e) {
+			loading = new CompletableFuture<>();
+			loading.completeExceptionally(e);
+		}
+		loading.whenComplete((values, throwable) -> {
+			batchesInFlight.release();
+			for (Request<K, V> request : batch) {
+				if (throwable != null) {
+					request.future.completeExceptionally(throwable);
+				} else {
+					request.future.complete(values.get(request.key));
+				}
+			}
+		});
+	}
+
+	private static final class Request<K, V> {
+		final K key;
+		final CompletableFuture<V> future = new CompletableFuture<>();
+
+		Request(K key) {
+			this.key = key;
+		}
+	}
+
+}
@@ -0,0 +1,71 @@
+package tourGuide.executor;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What a bulkhead does with a call when all its threads are busy and its queue
+ * is full
+ * 
+ */
+public enum RejectionPolicy {
+
+	/**
+	 * Fail the call with a RejectedExecutionException
+	 */
+	ABORT(new ThreadPoolExecutor.AbortPolicy()),
+
+	/**
+	 * Run the call in the submitting thread, which slows down the submitter. The
+	 * submitter may be a thread of another bulkhead or of the application, which
+	 * then makes the call itself.
+	 */
+	CALLER_RUNS(new ThreadPoolExecutor.CallerRunsPolicy()),
+
+	/**
+	 * Wait in the submitting thread for room in the queue, then fail the call
+	 * with a RejectedExecutionException if none was made in time. The call
+	 * always runs on a thread of the bulkhead.
+	 */
+	BLOCK(new BlockPolicy());
+
+	// longest wait for room in the queue of a bulkhead
+	private static final long BLOCK_TIMEOUT_SECONDS = 30;
+
+	private final RejectedExecutionHandler handler;
+
+	RejectionPolicy(RejectedExecutionHandler handler) {
+		this.handler = handler;
+	}
+
+	RejectedExecutionHandler getHandler() {
+		return handler;
+	}
+
+	/**
+	 * Put a rejected call in the queue once it has room
+	 */
+	private static final class BlockPolicy implements RejectedExecutionHandler {
+
+		@Override
+		public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+			if (executor.isShutdown()) {
+				throw new RejectedExecutionException("Bulkhead is shut down");
+			}
+			try {
+				if (!executor.getQueue().offer(runnable, BLOCK_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+					throw new RejectedExecutionException(
+							"No room in the queue after " + BLOCK_TIMEOUT_SECONDS + " seconds");
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RejectedExecutionException("Interrupted while waiting for room in the queue", e);
+			}
+			// threads of an idle bulkhead may have stopped while waiting
+			executor.prestartCoreThread();
+		}
+	}
+
+}
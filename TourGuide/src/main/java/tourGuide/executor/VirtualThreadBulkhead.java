@@ -0,0 +1,116 @@
+package tourGuide.executor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import tourGuide.metrics.TourGuideMetrics;
+
+/**
+ * Bulkhead running each call to one dependency on its own virtual thread. The
+ * number of calls running at the same time is limited by a semaphore, calls
+ * over the limit wait on their virtual thread without holding a platform
+ * thread.
+ * 
+ */
+public class VirtualThreadBulkhead implements Executor, MeterBinder {
+
+	private static final String MODE = "virtual-threads";
+
+	private final ExternalDependency dependency;
+	private final int maxConcurrentCalls;
+	private final Semaphore permits;
+	private final ExecutorService virtualThreads;
+
+	/**
+	 * Constructor for a bulkhead
+	 * 
+	 * @param dependency - ExternalDependency
+	 * @param settings   - BulkheadSettings
+	 */
+	public VirtualThreadBulkhead(ExternalDependency dependency, BulkheadSettings settings) {
+		if (settings.getMaxConcurrentCalls() <= 0) {
+			throw new IllegalArgumentException("Max concurrent calls of " + dependency.getId() + " must be positive : "
+					+ settings.getMaxConcurrentCalls());
+		}
+		this.dependency = dependency;
+		this.maxConcurrentCalls = settings.getMaxConcurrentCalls();
+		this.permits = new Semaphore(maxConcurrentCalls);
+		this.virtualThreads = Executors
+				.newThreadPerTaskExecutor(Thread.ofVirtual().name(dependency.getId() + "-virtual-", 1).factory());
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		virtualThreads.execute(() -> {
+			permits.acquireUninterruptibly();
+			try {
+				command.run();
+			} finally {
+				permits.release();
+			}
+		});
+	}
+
+	public ExternalDependency getDependency() {
+		return dependency;
+	}
+
+	public int getMaxConcurrentCalls() {
+		return maxConcurrentCalls;
+	}
+
+	public int getActiveCount() {
+		return maxConcurrentCalls - permits.availablePermits();
+	}
+
+	public int getWaitingCount() {
+		return permits.getQueueLength();
+	}
+
+	/**
+	 * Register gauges of the maximum, running and waiting calls
+	 * 
+	 * @param registry - MeterRegistry
+	 */
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		String id = dependency.getId();
+		Gauge.builder(TourGuideMetrics.EXECUTOR_POOL_SIZE, this, VirtualThreadBulkhead::getMaxConcurrentCalls)
+				.tag(TourGuideMetrics.DEPENDENCY_TAG, id).tag(TourGuideMetrics.MODE_TAG, MODE).register(registry);
+		Gauge.builder(TourGuideMetrics.EXECUTOR_ACTIVE, this, VirtualThreadBulkhead::getActiveCount)
+				.tag(TourGuideMetrics.DEPENDENCY_TAG, id).tag(TourGuideMetrics.MODE_TAG, MODE).register(registry);
+		Gauge.builder(TourGuideMetrics.EXECUTOR_QUEUED, this, VirtualThreadBulkhead::getWaitingCount)
+				.tag(TourGuideMetrics.DEPENDENCY_TAG, id).tag(TourGuideMetrics.MODE_TAG, MODE).register(registry);
+	}
+
+	/**
+	 * Stop accepting calls, running ones are finished
+	 */
+	public void shutdown() {
+		virtualThreads.shutdown();
+	}
+
+	/**
+	 * Wait for calls to finish after a shutdown, then interrupt them
+	 * 
+	 * @param timeout - time to wait
+	 * @param unit    - TimeUnit of the timeout
+	 */
+	public void awaitTermination(long timeout, TimeUnit unit) {
+		try {
+			if (!virtualThreads.awaitTermination(timeout, unit)) {
+				virtualThreads.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			virtualThreads.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
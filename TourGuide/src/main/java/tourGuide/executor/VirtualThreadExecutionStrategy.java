@@ -0,0 +1,60 @@
+package tourGuide.executor;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Execution strategy running every call on a virtual thread, the concurrency of
+ * each dependency being limited by a semaphore instead of a pool size
+ * 
+ */
+public class VirtualThreadExecutionStrategy implements ExecutionStrategy {
+
+	private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+	private final Map<ExternalDependency, VirtualThreadBulkhead> bulkheads = new EnumMap<>(ExternalDependency.class);
+
+	/**
+	 * Constructor for a strategy
+	 * 
+	 * @param executorProperties - settings of each bulkhead
+	 */
+	public VirtualThreadExecutionStrategy(ExecutorProperties executorProperties) {
+		for (ExternalDependency dependency : ExternalDependency.values()) {
+			bulkheads.put(dependency,
+					new VirtualThreadBulkhead(dependency, executorProperties.getSettings(dependency)));
+		}
+	}
+
+	@Override
+	public Executor getExecutor(ExternalDependency dependency) {
+		return bulkheads.get(dependency);
+	}
+
+	/**
+	 * Get all bulkheads
+	 * 
+	 * @return Collection of VirtualThreadBulkhead
+	 */
+	public Collection<VirtualThreadBulkhead> getBulkheads() {
+		return Collections.unmodifiableCollection(bulkheads.values());
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		bulkheads.values().forEach(bulkhead -> bulkhead.bindTo(registry));
+	}
+
+	@Override
+	public void shutdown() {
+		bulkheads.values().forEach(VirtualThreadBulkhead::shutdown);
+		bulkheads.values().forEach(bulkhead -> bulkhead.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+	}
+
+}
@@ -0,0 +1,141 @@
+package tourGuide.helper;
+
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import tourGuide.persistence.UserSnapshot;
+import tourGuide.user.LocationHistoryRetention;
+import tourGuide.user.MappedLocationStore;
+import tourGuide.user.User;
+
+/**
+ * Generator of internal users for testing.
+ *
+ * Each user is drawn from its own random generator, seeded from the seed of
+ * the generator and the index of the user : users are generated in parallel,
+ * and the same seed always gives the same users whatever the order they are
+ * generated in.
+ *
+ */
+public class InternalUserGenerator {
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+	private static final int GENERATED_LOCATIONS = 3;
+	private static final int MAX_DAYS_AGO = 30;
+	private static final double MAX_LATITUDE = 85.05112878;
+	private static final double MAX_LONGITUDE = 180;
+
+	private final long seed;
+	// time the visit times are drawn before
+	private final long referenceTime;
+	private final LocationHistoryRetention retention;
+	private final MappedLocationStore locationStore;
+
+	/**
+	 * Constructor for a generator of users visiting locations during the last
+	 * days
+	 *
+	 * @param seed          - long
+	 * @param retention     - LocationHistoryRetention of the users
+	 * @param locationStore - MappedLocationStore of the users, null to keep only
+	 *                      retained locations
+	 */
+	public InternalUserGenerator(long seed, LocationHistoryRetention retention, MappedLocationStore locationStore) {
+		this(seed, LocalDateTime.now().toInstant(ZoneOffset.UTC).toEpochMilli(), retention, locationStore);
+	}
+
+	/**
+	 * Constructor for a generator
+	 *
+	 * @param seed          - long
+	 * @param referenceTime - time in milliseconds visit times are drawn before
+	 * @param retention     - LocationHistoryRetention of the users
+	 * @param locationStore - MappedLocationStore of the users, null to keep only
+	 *                      retained locations
+	 */
+	public InternalUserGenerator(long seed, long referenceTime, LocationHistoryRetention retention,
+			MappedLocationStore locationStore) {
+		this.seed = seed;
+		this.referenceTime = referenceTime;
+		this.retention = retention;
+		this.locationStore = locationStore;
+	}
+
+	/**
+	 * Generate a user with a few visited locations
+	 *
+	 * @param index - index of the user, part of its name
+	 * @return user - User
+	 */
+	public User generate(int index) {
+		SplittableRandom random = new SplittableRandom(mix64(seed + GOLDEN_GAMMA * (index + 1L)));
+		String userName = "internalUser" + index;
+		User user = new User(randomUuid(random), userName, "000", userName + "@tourGuide.com", retention,
+				locationStore);
+		for (int i = 0; i < GENERATED_LOCATIONS; i++) {
+			Location location = new Location(random.nextDouble(-MAX_LATITUDE, MAX_LATITUDE),
+					random.nextDouble(-MAX_LONGITUDE, MAX_LONGITUDE));
+			Date timeVisited = new Date(referenceTime - TimeUnit.DAYS.toMillis(random.nextInt(MAX_DAYS_AGO)));
+			user.addToVisitedLocations(new VisitedLocation(user.getUserId(), location, timeVisited));
+		}
+		return user;
+	}
+
+	/**
+	 * Generate users in parallel
+	 *
+	 * @param from - index of the first user
+	 * @param to   - index after the last user
+	 * @return List of User, in order of index
+	 */
+	public List<User> generate(int from, int to) {
+		User[] users = new User[to - from];
+		IntStream.range(from, to).parallel().forEach(index -> users[index - from] = generate(index));
+		return Arrays.asList(users);
+	}
+
+	/**
+	 * Write a file of generated users, to be loaded as internal users with
+	 * tourguide.internal-users.fixture
+	 *
+	 * @param args - path of the file, number of users, and seed
+	 */
+	public static void main(String[] args) {
+		if (args.length != 3) {
+			System.err.println("Usage: InternalUserGenerator <file> <number of users> <seed>");
+			System.exit(1);
+		}
+		InternalUserGenerator generator = new InternalUserGenerator(Long.parseLong(args[2]),
+				LocationHistoryRetention.DEFAULT, null);
+		UserSnapshot.write(Paths.get(args[0]), generator.generate(0, Integer.parseInt(args[1])));
+	}
+
+	/**
+	 * Random UUID of version 4 drawn from a generator
+	 */
+	private static UUID randomUuid(SplittableRandom random) {
+		long mostSignificantBits = (random.nextLong() & ~0xF000L) | 0x4000L;
+		long leastSignificantBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+		return new UUID(mostSignificantBits, leastSignificantBits);
+	}
+
+	/**
+	 * Mix the bits of a seed so that close seeds give unrelated generators
+	 */
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+}
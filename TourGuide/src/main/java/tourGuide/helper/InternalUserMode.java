@@ -0,0 +1,19 @@
+package tourGuide.helper;
+
+/**
+ * When internal users are added to TourGuideService
+ * 
+ */
+public enum InternalUserMode {
+
+	/**
+	 * All users are added before the service is created
+	 */
+	EAGER,
+
+	/**
+	 * Users are added in background by chunks, the service being used meanwhile
+	 */
+	BACKGROUND
+
+}
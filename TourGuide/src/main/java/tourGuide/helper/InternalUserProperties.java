@@ -0,0 +1,44 @@
+package tourGuide.helper;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the internal users created for testing, bound from
+ * tourguide.internal-users.* properties. Their number is the one of
+ * {@link InternalTestHelper}.
+ * 
+ */
+@ConfigurationProperties(prefix = "tourguide.internal-users")
+public class InternalUserProperties {
+
+	private InternalUserMode mode = InternalUserMode.EAGER;
+	// seed of the generated users, a new one is drawn when null
+	private Long seed;
+	// user file written by InternalUserGenerator, users are generated when empty
+	private String fixture = "";
+
+	public InternalUserMode getMode() {
+		return mode;
+	}
+
+	public void setMode(InternalUserMode mode) {
+		this.mode = mode;
+	}
+
+	public Long getSeed() {
+		return seed;
+	}
+
+	public void setSeed(Long seed) {
+		this.seed = seed;
+	}
+
+	public String getFixture() {
+		return fixture;
+	}
+
+	public void setFixture(String fixture) {
+		this.fixture = fixture;
+	}
+
+}
@@ -0,0 +1,108 @@
+package tourGuide.location;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import gpsUtil.location.Attraction;
+
+/**
+ * Immutable snapshot of the attractions known by GpsUtil.
+ *
+ * Each snapshot has a version, incremented every time the attractions change,
+ * so that callers can keep structures derived from a catalog as long as its
+ * version is the current one. The spatial index of the attractions is built
+ * once with the snapshot.
+ *
+ */
+public final class AttractionCatalog {
+
+	private final long version;
+	private final Attraction[] attractions;
+	private final List<Attraction> attractionList;
+	private final AttractionIndex index;
+
+	private AttractionCatalog(long version, Attraction[] attractions) {
+		this.version = version;
+		this.attractions = attractions;
+		this.attractionList = Collections.unmodifiableList(Arrays.asList(attractions));
+		this.index = new AttractionIndex(attractionList);
+	}
+
+	/**
+	 * Create the first catalog
+	 *
+	 * @param attractions - List of Attraction
+	 * @return catalog - AttractionCatalog
+	 */
+	public static AttractionCatalog of(List<Attraction> attractions) {
+		return new AttractionCatalog(1, attractions.toArray(new Attraction[0]));
+	}
+
+	/**
+	 * Get the catalog following this one for a new list of attractions. This
+	 * catalog is returned when nothing changed, and attractions that did not
+	 * change are kept with their id.
+	 *
+	 * @param attractions - List of Attraction
+	 * @return catalog - AttractionCatalog
+	 */
+	public AttractionCatalog update(List<Attraction> attractions) {
+		Map<String, Attraction> current = new HashMap<>();
+		for (Attraction attraction : this.attractions) {
+			current.put(attraction.attractionName, attraction);
+		}
+		Attraction[] updated = new Attraction[attractions.size()];
+		boolean changed = updated.length != this.attractions.length;
+		for (int i = 0; i < updated.length; i++) {
+			Attraction attraction = attractions.get(i);
+			Attraction previous = current.get(attraction.attractionName);
+			updated[i] = previous != null && sameAttraction(previous, attraction) ? previous : attraction;
+			// catalogs of different sizes are already changed, and may not have an attraction at i
+			if (!changed && updated[i] != this.attractions[i]) {
+				changed = true;
+			}
+		}
+		return changed ? new AttractionCatalog(version + 1, updated) : this;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public int size() {
+		return attractions.length;
+	}
+
+	/**
+	 * Get an attraction by its position in the catalog
+	 *
+	 * @param index - int
+	 * @return attraction - Attraction
+	 */
+	public Attraction get(int index) {
+		return attractions[index];
+	}
+
+	/**
+	 * Get an unmodifiable view of the attractions
+	 *
+	 * @return List of Attraction
+	 */
+	public List<Attraction> getAttractions() {
+		return attractionList;
+	}
+
+	public AttractionIndex getIndex() {
+		return index;
+	}
+
+	private static boolean sameAttraction(Attraction a, Attraction b) {
+		return a.latitude == b.latitude && a.longitude == b.longitude && Objects.equals(a.city, b.city)
+				&& Objects.equals(a.state, b.state);
+	}
+
+}
@@ -0,0 +1,390 @@
+package tourGuide.location;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+
+/**
+ * Immutable spatial index of attractions based on a latitude/longitude grid.
+ *
+ * Coordinates are kept in primitive arrays with the trigonometry of each
+ * attraction precomputed. Radius queries only visit the grid cells overlapping
+ * the bounding box of the search circle and reject candidates outside of that
+ * box before any great-circle math, nearest queries grow that circle until
+ * enough attractions are found. Both return exactly what a full scan with
+ * {@link GeoDistance#getDistance(Location, Location)} would return.
+ *
+ */
+public class AttractionIndex {
+
+	public static final double DEFAULT_CELL_SIZE_IN_DEGREES = 2.0;
+
+	private final List<Attraction> attractions;
+	private final double[] latitudes;
+	private final double[] longitudes;
+	private final double[] sinLatitudes;
+	private final double[] cosLatitudes;
+	private final double[] radLongitudes;
+
+	private final double cellSize;
+	private final int latitudeCells;
+	private final int longitudeCells;
+	private final Map<Integer, int[]> cells = new HashMap<>();
+
+	/**
+	 * Constructor for an index with the default cell size
+	 *
+	 * @param attractions - List of Attraction
+	 */
+	public AttractionIndex(List<Attraction> attractions) {
+		this(attractions, DEFAULT_CELL_SIZE_IN_DEGREES);
+	}
+
+	/**
+	 * Constructor for an index
+	 *
+	 * @param attractions - List of Attraction
+	 * @param cellSize    - size of a grid cell in degrees
+	 */
+	public AttractionIndex(List<Attraction> attractions, double cellSize) {
+		if (!(cellSize > 0) || cellSize > 90) {
+			throw new IllegalArgumentException("Cell size must be in ]0, 90] degrees : " + cellSize);
+		}
+		this.attractions = Collections.unmodifiableList(new ArrayList<>(attractions));
+		this.cellSize = cellSize;
+		this.latitudeCells = (int) Math.ceil(180 / cellSize);
+		this.longitudeCells = (int) Math.ceil(360 / cellSize);
+
+		int size = this.attractions.size();
+		latitudes = new double[size];
+		longitudes = new double[size];
+		sinLatitudes = new double[size];
+		cosLatitudes = new double[size];
+		radLongitudes = new double[size];
+
+		Map<Integer, List<Integer>> buckets = new HashMap<>();
+		for (int i = 0; i < size; i++) {
+			Attraction attraction = this.attractions.get(i);
+			double latitude = Math.toRadians(attraction.latitude);
+			latitudes[i] = attraction.latitude;
+			longitudes[i] = attraction.longitude;
+			sinLatitudes[i] = Math.sin(latitude);
+			cosLatitudes[i] = Math.cos(latitude);
+			radLongitudes[i] = Math.toRadians(attraction.longitude);
+
+			int cell = cellOf(latitudeCell(attraction.latitude), longitudeCell(attraction.longitude));
+			buckets.computeIfAbsent(cell, c -> new ArrayList<>()).add(i);
+		}
+		buckets.forEach((cell, indexes) -> cells.put(cell, indexes.stream().mapToInt(Integer::intValue).toArray()));
+	}
+
+	/**
+	 * Get indexed attractions
+	 *
+	 * @return List of Attraction
+	 */
+	public List<Attraction> getAttractions() {
+		return attractions;
+	}
+
+	/**
+	 * Get attractions within a distance of a location, in index order
+	 *
+	 * @param location      - Location
+	 * @param radiusInMiles - double
+	 * @return List of Attraction
+	 */
+	public List<Attraction> getAttractionsWithin(Location location, double radiusInMiles) {
+		return getAttractionsWithin(location.latitude, location.longitude, radiusInMiles);
+	}
+
+	/**
+	 * Get attractions within a distance of a point, in index order
+	 *
+	 * @param latitude      - double
+	 * @param longitude     - double
+	 * @param radiusInMiles - double
+	 * @return List of Attraction
+	 */
+	public List<Attraction> getAttractionsWithin(double latitude, double longitude, double radiusInMiles) {
+		Query query = new Query(latitude, longitude, radiusInMiles);
+		List<Attraction> result = new ArrayList<>();
+		for (int index : candidatesWithin(query)) {
+			// same comparison as RewardsService used to do (a NaN distance is near)
+			if (query.mayContain(index) && !(query.distanceFromAttraction(index) > radiusInMiles)) {
+				result.add(attractions.get(index));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Get the k nearest attractions from a location, nearest first. Ties keep
+	 * index order.
+	 *
+	 * @param location - Location
+	 * @param k        - int
+	 * @return List of Attraction
+	 */
+	public List<Attraction> getNearestAttractions(Location location, int k) {
+		List<NearbyAttraction> nearest = getNearest(location, k);
+		List<Attraction> result = new ArrayList<>(nearest.size());
+		for (NearbyAttraction nearbyAttraction : nearest) {
+			result.add(nearbyAttraction.getAttraction());
+		}
+		return result;
+	}
+
+	/**
+	 * Get the k nearest attractions from a location with their distance, nearest
+	 * first. Ties keep index order.
+	 *
+	 * @param location - Location
+	 * @param k        - int
+	 * @return List of NearbyAttraction
+	 */
+	public List<NearbyAttraction> getNearest(Location location, int k) {
+		if (k <= 0 || attractions.isEmpty()) {
+			return new ArrayList<>();
+		}
+		double radius = cellSize * GeoDistance.STATUTE_MILES_PER_DEGREE;
+		while (k < attractions.size() && radius < GeoDistance.MAX_DISTANCE_IN_MILES) {
+			Query query = new Query(location, radius);
+			int[] candidates = candidatesWithin(query);
+			if (candidates.length >= k) {
+				List<NearbyAttraction> nearest = nearestAmong(query, candidates, k);
+				if (nearest != null) {
+					return nearest;
+				}
+			}
+			radius *= 2;
+		}
+		Query query = new Query(location, Double.NaN);
+		return nearestAmong(query, candidatesWithin(query), k);
+	}
+
+	/**
+	 * Select the k nearest candidates with a bounded heap, each distance being
+	 * computed once. When the query has a radius, return null if less than k
+	 * candidates lie within it : attractions outside the searched area could then
+	 * be nearer.
+	 */
+	private List<NearbyAttraction> nearestAmong(Query query, int[] candidates, int k) {
+		// max-heap on (distance, index) holding the k best candidates seen so far
+		int capacity = Math.min(k, candidates.length);
+		double[] heapDistances = new double[capacity];
+		int[] heapIndexes = new int[capacity];
+		int heapSize = 0;
+		int found = 0;
+		for (int candidate : candidates) {
+			// out of the bounding box means out of range, which cannot be in the result
+			double distance = query.mayContain(candidate) ? query.distanceToAttraction(candidate)
+					: Double.POSITIVE_INFINITY;
+			if (distance <= query.radiusInMiles) {
+				found++;
+			}
+			if (heapSize < capacity) {
+				heapDistances[heapSize] = distance;
+				heapIndexes[heapSize] = candidate;
+				siftUp(heapDistances, heapIndexes, heapSize++);
+			} else if (isBefore(distance, candidate, heapDistances[0], heapIndexes[0])) {
+				heapDistances[0] = distance;
+				heapIndexes[0] = candidate;
+				siftDown(heapDistances, heapIndexes, heapSize);
+			}
+		}
+		if (!Double.isNaN(query.radiusInMiles) && found < k) {
+			return null;
+		}
+		// candidates are in index order, ties are broken on index like a stable sort
+		NearbyAttraction[] result = new NearbyAttraction[heapSize];
+		while (heapSize > 0) {
+			result[--heapSize] = new NearbyAttraction(attractions.get(heapIndexes[0]), heapDistances[0]);
+			heapDistances[0] = heapDistances[heapSize];
+			heapIndexes[0] = heapIndexes[heapSize];
+			siftDown(heapDistances, heapIndexes, heapSize);
+		}
+		return new ArrayList<>(Arrays.asList(result));
+	}
+
+	private static boolean isBefore(double distance, int index, double otherDistance, int otherIndex) {
+		int comparison = Double.compare(distance, otherDistance);
+		return comparison < 0 || (comparison == 0 && index < otherIndex);
+	}
+
+	private static void siftUp(double[] distances, int[] indexes, int position) {
+		while (position > 0) {
+			int parent = (position - 1) / 2;
+			if (!isBefore(distances[parent], indexes[parent], distances[position], indexes[position])) {
+				return;
+			}
+			swap(distances, indexes, parent, position);
+			position = parent;
+		}
+	}
+
+	private static void siftDown(double[] distances, int[] indexes, int size) {
+		int position = 0;
+		while (true) {
+			int largest = position;
+			for (int child = 2 * position + 1; child <= 2 * position + 2 && child < size; child++) {
+				if (isBefore(distances[largest], indexes[largest], distances[child], indexes[child])) {
+					largest = child;
+				}
+			}
+			if (largest == position) {
+				return;
+			}
+			swap(distances, indexes, position, largest);
+			position = largest;
+		}
+	}
+
+	private static void swap(double[] distances, int[] indexes, int i, int j) {
+		double distance = distances[i];
+		distances[i] = distances[j];
+		distances[j] = distance;
+		int index = indexes[i];
+		indexes[i] = indexes[j];
+		indexes[j] = index;
+	}
+
+	/**
+	 * Get indexes of attractions lying in grid cells that intersect the bounding
+	 * box of the query, in ascending order
+	 */
+	private int[] candidatesWithin(Query query) {
+		if (query.coversEverything()) {
+			int[] indexes = new int[attractions.size()];
+			for (int i = 0; i < indexes.length; i++) {
+				indexes[i] = i;
+			}
+			return indexes;
+		}
+
+		int firstLongitudeCell = 0;
+		int longitudeCellCount = longitudeCells;
+		if (!Double.isNaN(query.longitudeSpan)) {
+			firstLongitudeCell = longitudeCell(query.longitude - query.longitudeSpan);
+			int lastLongitudeCell = longitudeCell(query.longitude + query.longitudeSpan);
+			longitudeCellCount = Math.floorMod(lastLongitudeCell - firstLongitudeCell, longitudeCells) + 1;
+			if (2 * query.longitudeSpan >= 360 - cellSize) {
+				longitudeCellCount = longitudeCells;
+			}
+		}
+
+		List<int[]> hits = new ArrayList<>();
+		int total = 0;
+		int lastLatitudeCell = latitudeCell(query.latitude + query.radiusInDegrees);
+		for (int latitudeCell = latitudeCell(query.latitude - query.radiusInDegrees); latitudeCell <= lastLatitudeCell; latitudeCell++) {
+			for (int i = 0; i < longitudeCellCount; i++) {
+				int[] indexes = cells.get(cellOf(latitudeCell, (firstLongitudeCell + i) % longitudeCells));
+				if (indexes != null) {
+					hits.add(indexes);
+					total += indexes.length;
+				}
+			}
+		}
+		int[] candidates = new int[total];
+		int position = 0;
+		for (int[] indexes : hits) {
+			System.arraycopy(indexes, 0, candidates, position, indexes.length);
+			position += indexes.length;
+		}
+		Arrays.sort(candidates);
+		return candidates;
+	}
+
+	private int latitudeCell(double latitude) {
+		int cell = (int) Math.floor((latitude + 90) / cellSize);
+		return Math.min(Math.max(cell, 0), latitudeCells - 1);
+	}
+
+	private int longitudeCell(double longitude) {
+		double shifted = (longitude + 180) % 360;
+		if (shifted < 0) {
+			shifted += 360;
+		}
+		return Math.min((int) Math.floor(shifted / cellSize), longitudeCells - 1);
+	}
+
+	private int cellOf(int latitudeCell, int longitudeCell) {
+		return latitudeCell * longitudeCells + longitudeCell;
+	}
+
+	/**
+	 * Search circle with the trigonometry of its center computed once
+	 */
+	private class Query {
+		final double latitude;
+		final double longitude;
+		final double sinLatitude;
+		final double cosLatitude;
+		final double radLongitude;
+		final double radiusInMiles;
+		final double radiusInDegrees;
+		// half width of the bounding box in degrees, NaN when it spans all longitudes
+		final double longitudeSpan;
+
+		Query(Location location, double radiusInMiles) {
+			this(location.latitude, location.longitude, radiusInMiles);
+		}
+
+		Query(double latitude, double longitude, double radiusInMiles) {
+			double radLatitude = Math.toRadians(latitude);
+			this.latitude = latitude;
+			this.longitude = longitude;
+			this.sinLatitude = Math.sin(radLatitude);
+			this.cosLatitude = Math.cos(radLatitude);
+			this.radLongitude = Math.toRadians(longitude);
+			this.radiusInMiles = radiusInMiles;
+			this.radiusInDegrees = GeoDistance.toDegrees(Math.max(radiusInMiles, 0))
+					+ GeoDistance.PREFILTER_SLACK_IN_DEGREES;
+
+			double span = Double.NaN;
+			if (latitude - radiusInDegrees > -90 && latitude + radiusInDegrees < 90) {
+				// widest longitude span of a spherical cap that does not contain a pole
+				span = Math.toDegrees(Math.asin(Math.sin(Math.toRadians(radiusInDegrees)) / cosLatitude))
+						+ GeoDistance.PREFILTER_SLACK_IN_DEGREES;
+			}
+			this.longitudeSpan = span < 180 ? span : Double.NaN;
+		}
+
+		boolean coversEverything() {
+			return Double.isNaN(radiusInMiles) || radiusInMiles >= GeoDistance.MAX_DISTANCE_IN_MILES;
+		}
+
+		/**
+		 * Bounding box check, false only when the attraction is out of range
+		 */
+		boolean mayContain(int attraction) {
+			if (coversEverything()) {
+				return true;
+			}
+			if (Math.abs(latitudes[attraction] - latitude) > radiusInDegrees) {
+				return false;
+			}
+			return Double.isNaN(longitudeSpan)
+					|| GeoDistance.longitudeDelta(longitudes[attraction], longitude) <= longitudeSpan;
+		}
+
+		// distance with the attraction as first operand
+		double distanceFromAttraction(int attraction) {
+			return GeoDistance.getDistance(sinLatitudes[attraction], cosLatitudes[attraction],
+					radLongitudes[attraction], sinLatitude, cosLatitude, radLongitude);
+		}
+
+		// distance with the location as first operand
+		double distanceToAttraction(int attraction) {
+			return GeoDistance.getDistance(sinLatitude, cosLatitude, radLongitude, sinLatitudes[attraction],
+					cosLatitudes[attraction], radLongitudes[attraction]);
+		}
+	}
+
+}
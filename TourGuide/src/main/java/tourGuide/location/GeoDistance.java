@@ -0,0 +1,105 @@
+package tourGuide.location;
+
+import gpsUtil.location.Location;
+
+/**
+ * Great-circle distance helpers shared by services and attraction indexes.
+ *
+ * The primitive kernel takes the sine and cosine of latitudes and longitudes in
+ * radians so callers holding many points can compute them once per point.
+ * Operands are evaluated in the same order as the original formula, so the
+ * result is identical to {@link #getDistance(Location, Location)}.
+ * 
+ */
+public final class GeoDistance {
+
+	public static final double STATUTE_MILES_PER_NAUTICAL_MILE = 1.15077945;
+
+	// one degree of arc is 60 nautical miles
+	public static final double STATUTE_MILES_PER_DEGREE = 60 * STATUTE_MILES_PER_NAUTICAL_MILE;
+
+	// longest possible distance between two points (half of the circumference)
+	public static final double MAX_DISTANCE_IN_MILES = 180 * STATUTE_MILES_PER_DEGREE;
+
+	// absorbs rounding errors of prefilters working in degrees
+	public static final double PREFILTER_SLACK_IN_DEGREES = 1e-6;
+
+	private GeoDistance() {
+	}
+
+	/**
+	 * Get distance between two location
+	 * 
+	 * @param loc1 - Location
+	 * @param loc2 - Location
+	 * @return distance in statute miles - double
+	 */
+	public static double getDistance(Location loc1, Location loc2) {
+		double lat1 = Math.toRadians(loc1.latitude);
+		double lat2 = Math.toRadians(loc2.latitude);
+
+		return getDistance(Math.sin(lat1), Math.cos(lat1), Math.toRadians(loc1.longitude), Math.sin(lat2),
+				Math.cos(lat2), Math.toRadians(loc2.longitude));
+	}
+
+	/**
+	 * Get distance between two points from precomputed trigonometry
+	 * 
+	 * @param sinLat1 - sine of the first latitude
+	 * @param cosLat1 - cosine of the first latitude
+	 * @param lon1    - first longitude in radians
+	 * @param sinLat2 - sine of the second latitude
+	 * @param cosLat2 - cosine of the second latitude
+	 * @param lon2    - second longitude in radians
+	 * @return distance in statute miles - double
+	 */
+	public static double getDistance(double sinLat1, double cosLat1, double lon1, double sinLat2, double cosLat2,
+			double lon2) {
+		double angle = Math.acos(sinLat1 * sinLat2 + cosLat1 * cosLat2 * Math.cos(lon1 - lon2));
+
+		double nauticalMiles = 60 * Math.toDegrees(angle);
+		double statuteMiles = STATUTE_MILES_PER_NAUTICAL_MILE * nauticalMiles;
+		return statuteMiles;
+	}
+
+	/**
+	 * Verify if two locations are at most at a given distance by returning true.
+	 * Locations further apart in latitude than the distance are rejected without
+	 * any trigonometry.
+	 * 
+	 * @param loc1          - Location
+	 * @param loc2          - Location
+	 * @param radiusInMiles - double
+	 * @return Boolean
+	 */
+	public static boolean isWithin(Location loc1, Location loc2, double radiusInMiles) {
+		if (Math.abs(loc1.latitude - loc2.latitude) > toDegrees(radiusInMiles) + PREFILTER_SLACK_IN_DEGREES) {
+			return false;
+		}
+		// a NaN distance (same point) is considered within range
+		return !(getDistance(loc1, loc2) > radiusInMiles);
+	}
+
+	/**
+	 * Convert a distance along a great circle to degrees of arc
+	 * 
+	 * @param miles - double
+	 * @return degrees - double
+	 */
+	public static double toDegrees(double miles) {
+		return miles / STATUTE_MILES_PER_DEGREE;
+	}
+
+	/**
+	 * Get the absolute difference between two longitudes in degrees, in [0, 180]
+	 * 
+	 * @param lon1 - double
+	 * @param lon2 - double
+	 * @return difference in degrees - double
+	 */
+	public static double longitudeDelta(double lon1, double lon2) {
+		double delta = Math.abs(lon1 - lon2) % 360;
+		return delta > 180 ? 360 - delta : delta;
+	}
+
+}
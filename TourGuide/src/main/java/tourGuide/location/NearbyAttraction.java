@@ -0,0 +1,27 @@
+package tourGuide.location;
+
+import gpsUtil.location.Attraction;
+
+/**
+ * An attraction with its distance from a location
+ *
+ */
+public final class NearbyAttraction {
+
+	private final Attraction attraction;
+	private final double distanceInMiles;
+
+	public NearbyAttraction(Attraction attraction, double distanceInMiles) {
+		this.attraction = attraction;
+		this.distanceInMiles = distanceInMiles;
+	}
+
+	public Attraction getAttraction() {
+		return attraction;
+	}
+
+	public double getDistanceInMiles() {
+		return distanceInMiles;
+	}
+
+}
@@ -0,0 +1,52 @@
+package tourGuide.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import tourGuide.executor.ExternalDependency;
+
+/**
+ * Names of the meters of TourGuide.
+ *
+ * Services and executors are meter binders : Spring binds them to the registry
+ * of the application, exposed by the metrics and prometheus actuator
+ * endpoints. Until then their meters are registered in a registry without
+ * children, which records nothing.
+ *
+ */
+public final class TourGuideMetrics {
+
+	public static final String EXTERNAL_CALLS = "tourguide.external.calls";
+	public static final String REWARDS_CALCULATION = "tourguide.rewards.calculation";
+	public static final String LOCATION_BATCHER_PENDING = "tourguide.location.batcher.pending";
+	public static final String EXECUTOR_POOL_SIZE = "tourguide.executor.pool.size";
+	public static final String EXECUTOR_ACTIVE = "tourguide.executor.active";
+	public static final String EXECUTOR_QUEUED = "tourguide.executor.queued";
+	public static final String EXECUTOR_COMPLETED = "tourguide.executor.completed";
+
+	public static final String DEPENDENCY_TAG = "dependency";
+	public static final String METHOD_TAG = "method";
+	public static final String MODE_TAG = "mode";
+
+	/**
+	 * Registry of meters not bound yet
+	 */
+	public static final MeterRegistry UNBOUND_REGISTRY = new CompositeMeterRegistry();
+
+	private TourGuideMetrics() {
+	}
+
+	/**
+	 * Get the timer of the calls to a method of a dependency
+	 *
+	 * @param registry   - MeterRegistry
+	 * @param dependency - ExternalDependency
+	 * @param method     - name of the method called
+	 * @return timer - Timer
+	 */
+	public static Timer externalCallTimer(MeterRegistry registry, ExternalDependency dependency, String method) {
+		return Timer.builder(EXTERNAL_CALLS).description("Calls to external dependencies")
+				.tag(DEPENDENCY_TAG, dependency.getId()).tag(METHOD_TAG, method).register(registry);
+	}
+
+}
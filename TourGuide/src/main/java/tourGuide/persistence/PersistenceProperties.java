@@ -0,0 +1,75 @@
+package tourGuide.persistence;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the persistence of users, bound from
+ * tourguide.persistence.* properties
+ *
+ */
+@ConfigurationProperties(prefix = "tourguide.persistence")
+public class PersistenceProperties {
+
+	// directory of the log and snapshots, users are not persisted when empty
+	private String directory = "";
+	private int maxGroupSize = WriteAheadLog.DEFAULT_MAX_GROUP_SIZE;
+	private int queueCapacity = WriteAheadLog.DEFAULT_QUEUE_CAPACITY;
+	private boolean syncOnCommit = true;
+	private Duration snapshotInterval = UserJournal.DEFAULT_SNAPSHOT_INTERVAL;
+
+	public String getDirectory() {
+		return directory;
+	}
+
+	public void setDirectory(String directory) {
+		this.directory = directory;
+	}
+
+	public int getMaxGroupSize() {
+		return maxGroupSize;
+	}
+
+	public void setMaxGroupSize(int maxGroupSize) {
+		this.maxGroupSize = maxGroupSize;
+	}
+
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	public void setQueueCapacity(int queueCapacity) {
+		this.queueCapacity = queueCapacity;
+	}
+
+	public boolean isSyncOnCommit() {
+		return syncOnCommit;
+	}
+
+	public void setSyncOnCommit(boolean syncOnCommit) {
+		this.syncOnCommit = syncOnCommit;
+	}
+
+	public Duration getSnapshotInterval() {
+		return snapshotInterval;
+	}
+
+	public void setSnapshotInterval(Duration snapshotInterval) {
+		this.snapshotInterval = snapshotInterval;
+	}
+
+	/**
+	 * Open the journal described by these properties
+	 *
+	 * @return userJournal or null when no directory is set - UserJournal
+	 */
+	public UserJournal openJournal() {
+		if (directory == null || directory.isEmpty()) {
+			return null;
+		}
+		return new UserJournal(Paths.get(directory), maxGroupSize, queueCapacity, syncOnCommit);
+	}
+
+}
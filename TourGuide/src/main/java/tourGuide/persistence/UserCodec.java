@@ -0,0 +1,210 @@
+package tourGuide.persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import tourGuide.location.AttractionCatalog;
+import tourGuide.user.LocationHistoryRetention;
+import tourGuide.user.MappedLocationStore;
+import tourGuide.user.User;
+import tourGuide.user.UserReward;
+
+/**
+ * Binary encoding of users, visited locations and rewards, shared by the
+ * records of the log and the snapshots.
+ *
+ * Attraction ids are drawn again every time GpsUtil is started, rewards are
+ * read back with the attraction of the same name from the current catalog.
+ *
+ */
+final class UserCodec {
+
+	static final byte USER_RECORD = 1;
+	static final byte LOCATION_RECORD = 2;
+	static final byte REWARD_RECORD = 3;
+	private static final int LOCATION_RECORD_BYTES = 1 + 6 * Long.BYTES;
+
+	private final LocationHistoryRetention retention;
+	private final MappedLocationStore locationStore;
+	private final Map<String, Attraction> attractionsByName = new HashMap<>();
+
+	/**
+	 * Constructor for a codec reading users with the given history settings
+	 *
+	 * @param retention         - LocationHistoryRetention
+	 * @param locationStore     - MappedLocationStore, null to keep only retained
+	 *                          locations
+	 * @param attractionCatalog - AttractionCatalog rewards are read against
+	 */
+	UserCodec(LocationHistoryRetention retention, MappedLocationStore locationStore,
+			AttractionCatalog attractionCatalog) {
+		this.retention = retention;
+		this.locationStore = locationStore;
+		for (Attraction attraction : attractionCatalog.getAttractions()) {
+			attractionsByName.put(attraction.attractionName, attraction);
+		}
+	}
+
+	/**
+	 * Encode a user with its kept locations and its rewards
+	 */
+	static byte[] encodeUser(User user) {
+		return encode(out -> {
+			out.writeByte(USER_RECORD);
+			writeUser(out, user);
+		});
+	}
+
+	static byte[] encodeLocation(UUID userId, long position, VisitedLocation visitedLocation) {
+		ByteBuffer buffer = ByteBuffer.allocate(LOCATION_RECORD_BYTES);
+		buffer.put(LOCATION_RECORD);
+		buffer.putLong(userId.getMostSignificantBits());
+		buffer.putLong(userId.getLeastSignificantBits());
+		buffer.putLong(position);
+		buffer.putDouble(visitedLocation.location.latitude);
+		buffer.putDouble(visitedLocation.location.longitude);
+		buffer.putLong(visitedLocation.timeVisited.getTime());
+		return buffer.array();
+	}
+
+	static byte[] encodeReward(UUID userId, UserReward userReward) {
+		return encode(out -> {
+			out.writeByte(REWARD_RECORD);
+			writeUuid(out, userId);
+			writeReward(out, userReward);
+		});
+	}
+
+	/**
+	 * Read a user written by {@link #writeUser(DataOutput, User)}, once its id
+	 * has been read
+	 */
+	User readUser(DataInput in, UUID userId) throws IOException {
+		User user = new User(userId, in.readUTF(), readNullableString(in), readNullableString(in), retention,
+				locationStore);
+		long visitedLocationCount = in.readLong();
+		int locationCount = in.readInt();
+		List<VisitedLocation> locations = new ArrayList<>(locationCount);
+		for (int i = 0; i < locationCount; i++) {
+			locations.add(readLocation(in, userId));
+		}
+		user.restoreVisitedLocations(locations, visitedLocationCount);
+		int rewardCount = in.readInt();
+		for (int i = 0; i < rewardCount; i++) {
+			user.addUserReward(readReward(in, userId));
+		}
+		return user;
+	}
+
+	static void writeUser(DataOutput out, User user) throws IOException {
+		List<VisitedLocation> locations = new ArrayList<>();
+		long visitedLocationCount = user.copyVisitedLocationsTo(locations);
+		List<UserReward> userRewards = user.getUserRewards();
+
+		writeUuid(out, user.getUserId());
+		out.writeUTF(user.getUserName());
+		writeNullableString(out, user.getPhoneNumber());
+		writeNullableString(out, user.getEmailAddress());
+		out.writeLong(visitedLocationCount);
+		out.writeInt(locations.size());
+		for (VisitedLocation visitedLocation : locations) {
+			writeLocation(out, visitedLocation);
+		}
+		out.writeInt(userRewards.size());
+		for (UserReward userReward : userRewards) {
+			writeReward(out, userReward);
+		}
+	}
+
+	/**
+	 * Read a reward, with the attraction of the current catalog of the same name
+	 * if any
+	 */
+	UserReward readReward(DataInput in, UUID userId) throws IOException {
+		String attractionName = in.readUTF();
+		String city = readNullableString(in);
+		String state = readNullableString(in);
+		double latitude = in.readDouble();
+		double longitude = in.readDouble();
+		VisitedLocation visitedLocation = readLocation(in, userId);
+		int rewardPoints = in.readInt();
+		Attraction attraction = attractionsByName.get(attractionName);
+		if (attraction == null) {
+			attraction = new Attraction(attractionName, city, state, latitude, longitude);
+		}
+		return new UserReward(visitedLocation, attraction, rewardPoints);
+	}
+
+	private static void writeReward(DataOutput out, UserReward userReward) throws IOException {
+		Attraction attraction = userReward.attraction;
+		out.writeUTF(attraction.attractionName);
+		writeNullableString(out, attraction.city);
+		writeNullableString(out, attraction.state);
+		out.writeDouble(attraction.latitude);
+		out.writeDouble(attraction.longitude);
+		writeLocation(out, userReward.visitedLocation);
+		out.writeInt(userReward.getRewardPoints());
+	}
+
+	static VisitedLocation readLocation(DataInput in, UUID userId) throws IOException {
+		double latitude = in.readDouble();
+		double longitude = in.readDouble();
+		return new VisitedLocation(userId, new Location(latitude, longitude), new Date(in.readLong()));
+	}
+
+	private static void writeLocation(DataOutput out, VisitedLocation visitedLocation) throws IOException {
+		out.writeDouble(visitedLocation.location.latitude);
+		out.writeDouble(visitedLocation.location.longitude);
+		out.writeLong(visitedLocation.timeVisited.getTime());
+	}
+
+	static UUID readUuid(DataInput in) throws IOException {
+		return new UUID(in.readLong(), in.readLong());
+	}
+
+	private static void writeUuid(DataOutput out, UUID uuid) throws IOException {
+		out.writeLong(uuid.getMostSignificantBits());
+		out.writeLong(uuid.getLeastSignificantBits());
+	}
+
+	private static String readNullableString(DataInput in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private static void writeNullableString(DataOutput out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	private static byte[] encode(Encoder encoder) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			encoder.encode(out);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	@FunctionalInterface
+	private interface Encoder {
+		void encode(DataOutput out) throws IOException;
+	}
+
+}
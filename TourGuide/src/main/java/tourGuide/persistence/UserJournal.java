@@ -0,0 +1,327 @@
+package tourGuide.persistence;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gpsUtil.location.VisitedLocation;
+import tourGuide.location.AttractionCatalog;
+import tourGuide.user.LocationHistoryRetention;
+import tourGuide.user.MappedLocationStore;
+import tourGuide.user.User;
+import tourGuide.user.UserReward;
+
+/**
+ * Local persistence of users, their visited locations and their rewards.
+ *
+ * Every change is appended to a {@link WriteAheadLog}. Snapshots of all users
+ * are written from time to time as {@link UserSnapshot} files, after which
+ * older log files are deleted. Users are recovered from the last snapshot,
+ * then the log written since is replayed on top of it.
+ *
+ * A snapshot is written while users keep changing, so it can already hold
+ * changes also found in the log replayed after it : users and rewards are
+ * only added once, and locations carry their position among the visited
+ * locations of their user so that those already restored are skipped.
+ *
+ * A directory is locked by the journal using it until the journal is closed,
+ * so that no other journal deletes the files it writes.
+ *
+ */
+public class UserJournal implements Closeable {
+
+	public static final Duration DEFAULT_SNAPSHOT_INTERVAL = Duration.ofMinutes(10);
+	private static final String SNAPSHOT_PREFIX = "snapshot-";
+	private static final String SNAPSHOT_SUFFIX = ".dat";
+	private static final String LOCK_FILE = "journal.lock";
+
+	private Logger logger = LoggerFactory.getLogger(UserJournal.class);
+	private final Path directory;
+	// generation of the last snapshot, 0 when there is none
+	private final long snapshotGeneration;
+	private final FileChannel lockChannel;
+	private final FileLock lock;
+	private final WriteAheadLog writeAheadLog;
+	private ScheduledExecutorService snapshotScheduler;
+
+	/**
+	 * Constructor for a journal syncing every group of records
+	 *
+	 * @param directory - Path of the directory of the log and snapshots
+	 */
+	public UserJournal(Path directory) {
+		this(directory, WriteAheadLog.DEFAULT_MAX_GROUP_SIZE, WriteAheadLog.DEFAULT_QUEUE_CAPACITY, true);
+	}
+
+	/**
+	 * Constructor for a journal, locking its directory
+	 *
+	 * @param directory     - Path of the directory of the log and snapshots
+	 * @param maxGroupSize  - maximum number of records written together
+	 * @param queueCapacity - maximum number of records waiting to be written
+	 * @param syncOnCommit  - true to sync the log before records are committed
+	 * @throws IllegalStateException when the directory is used by another journal
+	 */
+	public UserJournal(Path directory, int maxGroupSize, int queueCapacity, boolean syncOnCommit) {
+		this.directory = directory;
+		try {
+			Files.createDirectories(directory);
+			lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		try {
+			lock = tryLock(lockChannel);
+			if (lock == null) {
+				throw new IllegalStateException("Journal directory already in use : " + directory);
+			}
+			List<Long> snapshots = WriteAheadLog.generations(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+			this.snapshotGeneration = snapshots.isEmpty() ? 0 : snapshots.get(snapshots.size() - 1);
+			this.writeAheadLog = new WriteAheadLog(directory, maxGroupSize, queueCapacity, syncOnCommit,
+					snapshotGeneration);
+		} catch (IOException e) {
+			closeQuietly(lockChannel);
+			throw new UncheckedIOException(e);
+		} catch (RuntimeException e) {
+			closeQuietly(lockChannel);
+			throw e;
+		}
+	}
+
+	private static FileLock tryLock(FileChannel channel) {
+		try {
+			return channel.tryLock();
+		} catch (OverlappingFileLockException e) {
+			// locked by a journal of this process
+			return null;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void closeQuietly(FileChannel channel) {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			// nothing left to release
+		}
+	}
+
+	/**
+	 * Read users back from the last snapshot and the log written after it
+	 *
+	 * @param retention         - LocationHistoryRetention of the users
+	 * @param locationStore     - MappedLocationStore of the users, null to keep
+	 *                          only retained locations
+	 * @param attractionCatalog - AttractionCatalog rewards are read against
+	 * @return List of User, in order of addition
+	 */
+	public List<User> recover(LocationHistoryRetention retention, MappedLocationStore locationStore,
+			AttractionCatalog attractionCatalog) {
+		long start = System.nanoTime();
+		UserCodec codec = new UserCodec(retention, locationStore, attractionCatalog);
+		Map<UUID, User> users = new LinkedHashMap<>();
+		// users whose history has a missing location, their next records are not replayed
+		Set<UUID> gaps = new HashSet<>();
+		if (snapshotGeneration > 0) {
+			UserSnapshot.read(snapshotPath(snapshotGeneration), record -> replay(record, codec, users, gaps));
+		}
+		int snapshotUsers = users.size();
+		long records = writeAheadLog.replay(snapshotGeneration, record -> replay(record, codec, users, gaps));
+		logger.info("Recovered " + users.size() + " users (" + snapshotUsers + " from snapshot, " + records
+				+ " log records) in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+		return new ArrayList<>(users.values());
+	}
+
+	/**
+	 * Log the addition of a user, with the locations and rewards it already has
+	 *
+	 * @param user - User
+	 * @return CompletableFuture completed once the record is committed
+	 */
+	public CompletableFuture<Void> logUserAdded(User user) {
+		return writeAheadLog.append(UserCodec.encodeUser(user));
+	}
+
+	/**
+	 * Log a location visited by a user
+	 *
+	 * @param user            - User
+	 * @param position        - position of the location among the visited
+	 *                        locations of the user
+	 * @param visitedLocation - VisitedLocation
+	 * @return CompletableFuture completed once the record is committed
+	 */
+	public CompletableFuture<Void> logVisitedLocation(User user, long position, VisitedLocation visitedLocation) {
+		return writeAheadLog.append(UserCodec.encodeLocation(user.getUserId(), position, visitedLocation));
+	}
+
+	/**
+	 * Log a reward added to a user
+	 *
+	 * @param user       - User
+	 * @param userReward - UserReward
+	 * @return CompletableFuture completed once the record is committed
+	 */
+	public CompletableFuture<Void> logUserReward(User user, UserReward userReward) {
+		return writeAheadLog.append(UserCodec.encodeReward(user.getUserId(), userReward));
+	}
+
+	/**
+	 * Write a snapshot of users, then delete the snapshots and log files it
+	 * replaces
+	 *
+	 * @param users - List of User
+	 * @return generation of the snapshot - long
+	 */
+	public synchronized long snapshot(List<User> users) {
+		long start = System.nanoTime();
+		// changes logged from now on are replayed over the snapshot
+		long generation = writeAheadLog.rotate().join();
+		List<User> snapshotUsers = new ArrayList<>(users);
+		UserSnapshot.write(snapshotPath(generation), snapshotUsers);
+		try {
+			for (long older : WriteAheadLog.generations(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+				if (older < generation) {
+					Files.deleteIfExists(snapshotPath(older));
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		writeAheadLog.deleteBefore(generation);
+		logger.debug("Snapshot " + generation + " of " + snapshotUsers.size() + " users written in "
+				+ TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+		return generation;
+	}
+
+	/**
+	 * Write snapshots in background
+	 *
+	 * @param snapshotInterval - Duration between two snapshots
+	 * @param users            - Supplier of the users to write
+	 */
+	public synchronized void startSnapshots(Duration snapshotInterval, Supplier<List<User>> users) {
+		if (snapshotScheduler != null) {
+			return;
+		}
+		snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "user-journal-snapshot");
+			thread.setDaemon(true);
+			return thread;
+		});
+		snapshotScheduler.scheduleWithFixedDelay(() -> {
+			try {
+				snapshot(users.get());
+			} catch (RuntimeException e) {
+				logger.error("Snapshot failed", e);
+			}
+		}, snapshotInterval.toMillis(), snapshotInterval.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stop writing snapshots, then commit the records logged, close the log and
+	 * release the lock of the directory
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			if (snapshotScheduler != null) {
+				snapshotScheduler.shutdownNow();
+				snapshotScheduler = null;
+			}
+		}
+		writeAheadLog.close();
+		try {
+			if (lock.isValid()) {
+				lock.release();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			closeQuietly(lockChannel);
+		}
+	}
+
+	public WriteAheadLog getWriteAheadLog() {
+		return writeAheadLog;
+	}
+
+	private Path snapshotPath(long generation) {
+		return directory.resolve(SNAPSHOT_PREFIX + generation + SNAPSHOT_SUFFIX);
+	}
+
+	/**
+	 * Apply a record to the users read so far. A location is appended only at
+	 * the position following the history of its user : locations already in
+	 * the history are skipped, and a missing location ends the replay of the
+	 * user so that later locations do not get another position.
+	 */
+	private void replay(DataInputStream record, UserCodec codec, Map<UUID, User> users, Set<UUID> gaps)
+			throws IOException {
+		byte type = record.readByte();
+		switch (type) {
+		case UserCodec.USER_RECORD: {
+			UUID userId = UserCodec.readUuid(record);
+			if (!users.containsKey(userId)) {
+				users.put(userId, codec.readUser(record, userId));
+			}
+			break;
+		}
+		case UserCodec.LOCATION_RECORD: {
+			UUID userId = UserCodec.readUuid(record);
+			long position = record.readLong();
+			User user = users.get(userId);
+			VisitedLocation visitedLocation = UserCodec.readLocation(record, userId);
+			if (user == null || gaps.contains(userId)) {
+				break;
+			}
+			long count = user.getVisitedLocationCount();
+			if (position == count) {
+				user.addToVisitedLocations(visitedLocation);
+			} else if (position > count) {
+				gaps.add(userId);
+				logger.warn("Locations " + count + " to " + (position - 1) + " of user " + user.getUserName()
+						+ " missing from the log, later records of the user are not replayed");
+			}
+			break;
+		}
+		case UserCodec.REWARD_RECORD: {
+			UUID userId = UserCodec.readUuid(record);
+			User user = users.get(userId);
+			UserReward userReward = codec.readReward(record, userId);
+			if (user != null && !gaps.contains(userId)) {
+				user.addUserReward(userReward);
+			}
+			break;
+		}
+		default:
+			throw new IOException("Unknown record type " + type);
+		}
+	}
+
+}
@@ -0,0 +1,123 @@
+package tourGuide.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import tourGuide.location.AttractionCatalog;
+import tourGuide.user.LocationHistoryRetention;
+import tourGuide.user.MappedLocationStore;
+import tourGuide.user.User;
+
+/**
+ * Compact binary file of users, with their kept locations and their rewards.
+ *
+ * Users are written as the user records of the log, after a header and before
+ * a checksum of the whole file. Files are written next to their path then
+ * moved in place, so that a file is either complete or missing.
+ *
+ */
+public final class UserSnapshot {
+
+	private static final int MAGIC = 0x54475331;
+	private static final int BUFFER_BYTES = 1 << 16;
+
+	private UserSnapshot() {
+	}
+
+	/**
+	 * Write users to a file
+	 *
+	 * @param path  - Path of the file
+	 * @param users - List of User
+	 */
+	public static void write(Path path, List<User> users) {
+		Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				CRC32 crc = new CRC32();
+				DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+						new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_BYTES), crc));
+				out.writeInt(MAGIC);
+				out.writeInt(users.size());
+				for (User user : users) {
+					byte[] record = UserCodec.encodeUser(user);
+					out.writeInt(record.length);
+					out.write(record);
+				}
+				out.writeLong(crc.getValue());
+				out.flush();
+				channel.force(true);
+			}
+			Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Read users from a file
+	 *
+	 * @param path              - Path of the file
+	 * @param retention         - LocationHistoryRetention of the users
+	 * @param locationStore     - MappedLocationStore of the users, null to keep
+	 *                          only retained locations
+	 * @param attractionCatalog - AttractionCatalog rewards are read against
+	 * @return List of User, in order of the file
+	 */
+	public static List<User> read(Path path, LocationHistoryRetention retention, MappedLocationStore locationStore,
+			AttractionCatalog attractionCatalog) {
+		UserCodec codec = new UserCodec(retention, locationStore, attractionCatalog);
+		List<User> users = new ArrayList<>();
+		read(path, record -> {
+			// the record type is always the one of users
+			record.readByte();
+			users.add(codec.readUser(record, UserCodec.readUuid(record)));
+		});
+		return users;
+	}
+
+	/**
+	 * Read the user records of a file
+	 */
+	static void read(Path path, WriteAheadLog.RecordHandler handler) {
+		CRC32 crc = new CRC32();
+		try (InputStream file = Files.newInputStream(path);
+				DataInputStream in = new DataInputStream(
+						new CheckedInputStream(new BufferedInputStream(file, BUFFER_BYTES), crc))) {
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Invalid snapshot " + path);
+			}
+			int userCount = in.readInt();
+			for (int i = 0; i < userCount; i++) {
+				byte[] record = new byte[in.readInt()];
+				in.readFully(record);
+				handler.handle(new DataInputStream(new ByteArrayInputStream(record)));
+			}
+			long checksum = crc.getValue();
+			if (in.readLong() != checksum) {
+				throw new IOException("Invalid snapshot checksum " + path);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
@@ -0,0 +1,519 @@
+package tourGuide.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only log of binary records, split into files by generation.
+ *
+ * Records are queued by callers and written by a single writer thread : all
+ * records queued while the previous group was written are written and synced
+ * together, so that the cost of a sync is shared by every record of a group.
+ * Each caller gets a future completed once its record is committed. The queue
+ * is bounded, callers wait for room while the writer is behind.
+ *
+ * Each record is written with its length and checksum, a torn record at the
+ * end of a file is detected and left out when the log is replayed. The bytes
+ * of a group that failed to be written are truncated, so that no committed
+ * record follows a torn one. A new
+ * generation is started every time the log is opened or rotated, so that files
+ * of generations covered by a snapshot can be deleted.
+ *
+ */
+public class WriteAheadLog {
+
+	public static final int DEFAULT_MAX_GROUP_SIZE = 1024;
+	public static final int DEFAULT_QUEUE_CAPACITY = 16 * DEFAULT_MAX_GROUP_SIZE;
+	private static final String LOG_PREFIX = "journal-";
+	private static final String LOG_SUFFIX = ".log";
+	private static final int RECORD_HEADER_BYTES = 2 * Integer.BYTES;
+	private static final int MAX_RECORD_BYTES = 1 << 24;
+	private static final int INITIAL_BUFFER_BYTES = 1 << 16;
+
+	private Logger logger = LoggerFactory.getLogger(WriteAheadLog.class);
+	private final Path directory;
+	private final int maxGroupSize;
+	private final boolean syncOnCommit;
+	// first generation written by this log, older ones are only replayed
+	private final long firstGeneration;
+	private final BlockingQueue<Entry> entries;
+	private final Thread writer;
+	private volatile boolean closed = false;
+	// set by the writer before it fails the entries left in the queue
+	private volatile boolean stopped = false;
+	private volatile long generation;
+	private volatile long commitCount;
+	private volatile long recordCount;
+
+	// used by the writer thread only
+	private FileChannel channel;
+	private ByteBuffer buffer = ByteBuffer.allocateDirect(INITIAL_BUFFER_BYTES);
+
+	/**
+	 * Constructor for a log writing a new generation after the ones of the
+	 * directory
+	 *
+	 * @param directory     - Path of the directory of the files
+	 * @param maxGroupSize  - maximum number of records written together
+	 * @param queueCapacity - maximum number of records waiting to be written
+	 * @param syncOnCommit  - true to sync files before records are committed
+	 * @param minGeneration - lowest generation the log can start at, so that
+	 *                      generations of snapshots are not reused
+	 */
+	public WriteAheadLog(Path directory, int maxGroupSize, int queueCapacity, boolean syncOnCommit,
+			long minGeneration) {
+		if (maxGroupSize <= 0) {
+			throw new IllegalArgumentException("Max group size must be positive");
+		}
+		if (queueCapacity <= 0) {
+			throw new IllegalArgumentException("Queue capacity must be positive");
+		}
+		this.directory = directory;
+		this.maxGroupSize = maxGroupSize;
+		this.entries = new LinkedBlockingQueue<>(queueCapacity);
+		this.syncOnCommit = syncOnCommit;
+		try {
+			Files.createDirectories(directory);
+			List<Long> generations = generations(directory, LOG_PREFIX, LOG_SUFFIX);
+			long last = generations.isEmpty() ? 0 : generations.get(generations.size() - 1);
+			firstGeneration = Math.max(last + 1, minGeneration);
+			generation = firstGeneration;
+			channel = open(firstGeneration);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		writer = new Thread(this::writeLoop, "write-ahead-log");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Queue a record, waiting for room in the queue when it is full
+	 *
+	 * @param record - bytes of the record
+	 * @return CompletableFuture completed once the record is committed
+	 */
+	public CompletableFuture<Void> append(byte[] record) {
+		if (record.length > MAX_RECORD_BYTES) {
+			throw new IllegalArgumentException("Record of " + record.length + " bytes is too large");
+		}
+		CRC32 crc = new CRC32();
+		crc.update(record, 0, record.length);
+		Entry entry = new Entry(record, (int) crc.getValue());
+		if (closed) {
+			entry.committed.completeExceptionally(new IllegalStateException("Write-ahead log is closed"));
+			return entry.committed;
+		}
+		enqueue(entry);
+		return entry.committed;
+	}
+
+	/**
+	 * Start a new generation once the records queued before are committed
+	 *
+	 * @return CompletableFuture of the new generation, no record queued after the
+	 *         call is written in older ones
+	 */
+	public CompletableFuture<Long> rotate() {
+		Entry entry = new Entry(Entry.ROTATE);
+		if (closed) {
+			entry.rotated.completeExceptionally(new IllegalStateException("Write-ahead log is closed"));
+			return entry.rotated;
+		}
+		enqueue(entry);
+		return entry.rotated;
+	}
+
+	/**
+	 * Queue an entry. An entry queued once the writer has stopped is failed,
+	 * either by the writer or by the caller seeing it stopped.
+	 */
+	private void enqueue(Entry entry) {
+		try {
+			entries.put(entry);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			entry.fail(e);
+			return;
+		}
+		if (stopped) {
+			failQueuedEntries();
+		}
+	}
+
+	private void failQueuedEntries() {
+		Entry entry;
+		while ((entry = entries.poll()) != null) {
+			entry.fail(new IllegalStateException("Write-ahead log is closed"));
+		}
+	}
+
+	/**
+	 * Commit the records queued, then close the current file
+	 */
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		boolean interrupted = false;
+		while (true) {
+			try {
+				entries.put(new Entry(Entry.CLOSE));
+				break;
+			} catch (InterruptedException e) {
+				// the writer only stops once the close is queued
+				interrupted = true;
+			}
+		}
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			interrupted = true;
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Read the records of the generations written before this log was opened
+	 *
+	 * @param fromGeneration - first generation to read
+	 * @param handler        - RecordHandler reading each record
+	 * @return number of records read - long
+	 */
+	public long replay(long fromGeneration, RecordHandler handler) {
+		long count = 0;
+		try {
+			for (long fileGeneration : generations(directory, LOG_PREFIX, LOG_SUFFIX)) {
+				if (fileGeneration >= fromGeneration && fileGeneration < firstGeneration) {
+					count += replayFile(path(fileGeneration), handler);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return count;
+	}
+
+	/**
+	 * Delete the files of generations before a given one
+	 *
+	 * @param beforeGeneration - first generation kept
+	 */
+	public void deleteBefore(long beforeGeneration) {
+		try {
+			for (long fileGeneration : generations(directory, LOG_PREFIX, LOG_SUFFIX)) {
+				if (fileGeneration < beforeGeneration) {
+					Files.deleteIfExists(path(fileGeneration));
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Get the number of groups written, which is the number of syncs when records
+	 * are synced on commit
+	 *
+	 * @return count of commits - long
+	 */
+	public long getCommitCount() {
+		return commitCount;
+	}
+
+	public long getRecordCount() {
+		return recordCount;
+	}
+
+	/**
+	 * Get the generations of the files of a directory, in ascending order
+	 *
+	 * @param directory - Path
+	 * @param prefix    - String before the generation in file names
+	 * @param suffix    - String after the generation in file names
+	 * @return List of generations
+	 * @throws IOException when the directory cannot be read
+	 */
+	static List<Long> generations(Path directory, String prefix, String suffix) throws IOException {
+		List<Long> generations = new ArrayList<>();
+		if (!Files.isDirectory(directory)) {
+			return generations;
+		}
+		try (Stream<Path> paths = Files.list(directory)) {
+			paths.map(path -> path.getFileName().toString())
+					.filter(name -> name.startsWith(prefix) && name.endsWith(suffix)).forEach(name -> {
+						try {
+							generations.add(
+									Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())));
+						} catch (NumberFormatException e) {
+							// not a file of the log
+						}
+					});
+		}
+		generations.sort(null);
+		return generations;
+	}
+
+	private Path path(long fileGeneration) {
+		return directory.resolve(LOG_PREFIX + fileGeneration + LOG_SUFFIX);
+	}
+
+	private FileChannel open(long fileGeneration) throws IOException {
+		return FileChannel.open(path(fileGeneration), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+	}
+
+	/**
+	 * Read the records of a file up to its end or to its first torn record
+	 */
+	private long replayFile(Path path, RecordHandler handler) throws IOException {
+		long count = 0;
+		long position = 0;
+		try (InputStream file = Files.newInputStream(path);
+				DataInputStream in = new DataInputStream(new BufferedInputStream(file, INITIAL_BUFFER_BYTES))) {
+			CRC32 crc = new CRC32();
+			while (true) {
+				byte[] record;
+				try {
+					int length = in.readInt();
+					int checksum = in.readInt();
+					if (length < 0 || length > MAX_RECORD_BYTES) {
+						logger.warn("Invalid record length in " + path + " at " + position + ", rest of file ignored");
+						return count;
+					}
+					record = new byte[length];
+					in.readFully(record);
+					crc.reset();
+					crc.update(record, 0, length);
+					if ((int) crc.getValue() != checksum) {
+						logger.warn("Invalid record checksum in " + path + " at " + position
+								+ ", rest of file ignored");
+						return count;
+					}
+				} catch (EOFException e) {
+					if (position != Files.size(path)) {
+						logger.warn("Torn record in " + path + " at " + position + ", rest of file ignored");
+					}
+					return count;
+				}
+				handler.handle(new DataInputStream(new ByteArrayInputStream(record)));
+				position += RECORD_HEADER_BYTES + record.length;
+				count++;
+			}
+		}
+	}
+
+	/**
+	 * Write queued records by groups until the log is closed
+	 */
+	private void writeLoop() {
+		List<Entry> group = new ArrayList<>(maxGroupSize);
+		while (true) {
+			try {
+				group.add(entries.take());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			entries.drainTo(group, maxGroupSize - 1);
+			boolean stop = commit(group);
+			group.clear();
+			if (stop) {
+				stopped = true;
+				failQueuedEntries();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Commit a group of entries, records before a rotation being committed in the
+	 * generation being closed
+	 *
+	 * @return true when the log has been closed
+	 */
+	private boolean commit(List<Entry> group) {
+		int start = 0;
+		for (int i = 0; i < group.size(); i++) {
+			Entry entry = group.get(i);
+			if (entry.kind == Entry.RECORD) {
+				continue;
+			}
+			write(group.subList(start, i));
+			start = i + 1;
+			if (entry.kind == Entry.ROTATE) {
+				rotateFile(entry);
+			} else {
+				closeFile();
+				return true;
+			}
+		}
+		write(group.subList(start, group.size()));
+		return false;
+	}
+
+	private void write(List<Entry> records) {
+		if (records.isEmpty()) {
+			return;
+		}
+		long start = -1;
+		try {
+			start = channel.position();
+			int bytes = 0;
+			for (Entry entry : records) {
+				bytes += RECORD_HEADER_BYTES + entry.record.length;
+			}
+			if (bytes > buffer.capacity()) {
+				buffer = ByteBuffer.allocateDirect(Math.max(bytes, buffer.capacity() * 2));
+			}
+			buffer.clear();
+			for (Entry entry : records) {
+				buffer.putInt(entry.record.length);
+				buffer.putInt(entry.checksum);
+				buffer.put(entry.record);
+			}
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			if (syncOnCommit) {
+				channel.force(false);
+			}
+			commitCount++;
+			recordCount += records.size();
+			records.forEach(entry -> entry.committed.complete(null));
+		} catch (IOException | RuntimeException e) {
+			logger.error("Write-ahead log commit failed", e);
+			discardFrom(start);
+			records.forEach(entry -> entry.fail(e));
+		}
+	}
+
+	/**
+	 * Truncate the bytes of a failed group, which would otherwise hide the
+	 * records written after them at replay. A new generation is started when
+	 * the file cannot be truncated.
+	 */
+	private void discardFrom(long start) {
+		try {
+			if (start < 0) {
+				throw new IOException("Position of the failed group is unknown");
+			}
+			channel.truncate(start);
+			channel.position(start);
+		} catch (IOException | RuntimeException e) {
+			logger.error("Write-ahead log truncation failed, starting generation " + (generation + 1), e);
+			try {
+				channel.close();
+			} catch (IOException closeException) {
+				// the file is no longer written
+			}
+			try {
+				channel = open(generation + 1);
+				generation++;
+			} catch (IOException openException) {
+				// next groups fail until a generation can be started
+				logger.error("Write-ahead log generation " + (generation + 1) + " could not be started",
+						openException);
+			}
+		}
+	}
+
+	private void rotateFile(Entry entry) {
+		try {
+			channel.force(false);
+			channel.close();
+			channel = open(generation + 1);
+			generation++;
+			entry.rotated.complete(generation);
+		} catch (IOException e) {
+			logger.error("Write-ahead log rotation failed", e);
+			entry.fail(e);
+		}
+	}
+
+	private void closeFile() {
+		try {
+			channel.force(false);
+			channel.close();
+		} catch (IOException e) {
+			logger.error("Write-ahead log close failed", e);
+		}
+	}
+
+	/**
+	 * Reader of one record
+	 */
+	@FunctionalInterface
+	public interface RecordHandler {
+		void handle(DataInputStream record) throws IOException;
+	}
+
+	/**
+	 * Record, or command run by the writer thread in order with records
+	 */
+	private static final class Entry {
+		static final int RECORD = 0;
+		static final int ROTATE = 1;
+		static final int CLOSE = 2;
+
+		final int kind;
+		final byte[] record;
+		final int checksum;
+		// future of a record, or of a rotation
+		final CompletableFuture<Void> committed;
+		final CompletableFuture<Long> rotated;
+
+		Entry(byte[] record, int checksum) {
+			this.kind = RECORD;
+			this.record = record;
+			this.checksum = checksum;
+			this.committed = new CompletableFuture<>();
+			this.rotated = null;
+		}
+
+		Entry(int kind) {
+			this.kind = kind;
+			this.record = null;
+			this.checksum = 0;
+			this.committed = null;
+			this.rotated = kind == ROTATE ? new CompletableFuture<>() : null;
+		}
+
+		void fail(Throwable throwable) {
+			if (committed != null) {
+				committed.completeExceptionally(throwable);
+			}
+			if (rotated != null) {
+				rotated.completeExceptionally(throwable);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,24 @@
+package tourGuide.service;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Receiver of the current locations of users, one user at a time, so that
+ * they can be written out without building a collection first.
+ *
+ */
+@FunctionalInterface
+public interface CurrentLocationVisitor {
+
+	/**
+	 * Receive the current location of a user
+	 *
+	 * @param userId    - UUID
+	 * @param latitude  - double
+	 * @param longitude - double
+	 * @throws IOException when the location cannot be written
+	 */
+	void visit(UUID userId, double latitude, double longitude) throws IOException;
+
+}
@@ -1,34 +1,199 @@
 package tourGuide.service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
-import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import gpsUtil.GpsUtil;
 import gpsUtil.location.Attraction;
 import gpsUtil.location.VisitedLocation;
 
-@Service
-public class GpsUtilService {
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
 
-	private GpsUtil gpsUtil;
+import tourGuide.client.GpsUtilClient;
+import tourGuide.client.LocationClient;
+import tourGuide.executor.BulkheadExecutionStrategy;
+import tourGuide.executor.ExecutionStrategy;
+import tourGuide.executor.ExternalDependency;
+import tourGuide.executor.MicroBatcher;
+import tourGuide.location.AttractionCatalog;
+import tourGuide.location.AttractionIndex;
+import tourGuide.metrics.TourGuideMetrics;
 
+/**
+ * Service class for locations and attractions from GpsUtil
+ * 
+ */
+public class GpsUtilService implements MeterBinder {
+
+	private static final Duration LOCATION_BATCH_DELAY = Duration.ofMillis(5);
+	private static final int LOCATION_BATCH_SIZE = 100;
+	private static final int LOCATION_CONCURRENT_BATCHES = 100;
+
+	private Logger logger = LoggerFactory.getLogger(GpsUtilService.class);
+
+	private final LocationClient locationClient;
+
+	private final ExecutionStrategy executionStrategy;
+
+	private final MicroBatcher<UUID, VisitedLocation> locationBatcher;
+
+	private volatile Timer userLocationTimer = TourGuideMetrics
+			.externalCallTimer(TourGuideMetrics.UNBOUND_REGISTRY, ExternalDependency.GPS_UTIL, "getUserLocation");
+	private volatile Timer attractionsTimer = TourGuideMetrics
+			.externalCallTimer(TourGuideMetrics.UNBOUND_REGISTRY, ExternalDependency.GPS_UTIL, "getAttractions");
+
+	/**
+	 * Constructor for a service using the default execution strategy
+	 */
 	public GpsUtilService() {
-		this.gpsUtil = new GpsUtil();
+		this(BulkheadExecutionStrategy.getDefault());
 	}
 
-	private final ExecutorService executorService = Executors.newFixedThreadPool(1200);
+	/**
+	 * Constructor for a service
+	 * 
+	 * @param executionStrategy - ExecutionStrategy running GpsUtil calls
+	 */
+	public GpsUtilService(ExecutionStrategy executionStrategy) {
+		this(new GpsUtilClient(), executionStrategy);
+	}
 
 	/**
-	 * Get all attractions from GpsUtil
+	 * Constructor for a service calling a specific location client
+	 * 
+	 * @param locationClient    - LocationClient, GpsUtil or a simulation of it
+	 * @param executionStrategy - ExecutionStrategy running GpsUtil calls
+	 */
+	public GpsUtilService(LocationClient locationClient, ExecutionStrategy executionStrategy) {
+		this.locationClient = locationClient;
+		this.executionStrategy = executionStrategy;
+		this.locationBatcher = new MicroBatcher<>("gps-util-location-batcher", LOCATION_BATCH_DELAY,
+				LOCATION_BATCH_SIZE, LOCATION_CONCURRENT_BATCHES, this::getUserLocationsAsync);
+	}
+
+	private volatile AttractionCatalog attractionCatalog;
+
+	private ScheduledExecutorService catalogRefreshScheduler;
+
+	/**
+	 * Get all attractions from the current attraction catalog
 	 * 
 	 * @return List of Attractions
 	 */
 	public List<Attraction> getListOfAttractions() {
-		return gpsUtil.getAttractions();
+		return getAttractionCatalog().getAttractions();
+	}
+
+	/**
+	 * Get a spatial index of the current attraction catalog
+	 * 
+	 * @return index of attractions - AttractionIndex
+	 */
+	public AttractionIndex getAttractionIndex() {
+		return getAttractionCatalog().getIndex();
+	}
+
+	/**
+	 * Get the current attraction catalog, loaded from GpsUtil on first use
+	 * 
+	 * @return catalog of attractions - AttractionCatalog
+	 */
+	public AttractionCatalog getAttractionCatalog() {
+		AttractionCatalog catalog = attractionCatalog;
+		if (catalog == null) {
+			synchronized (this) {
+				catalog = attractionCatalog;
+				if (catalog == null) {
+					catalog = AttractionCatalog.of(attractionsTimer.record(locationClient::getAttractions));
+					attractionCatalog = catalog;
+				}
+			}
+		}
+		return catalog;
+	}
+
+	/**
+	 * Load attractions from GpsUtil again, the catalog version only changes if
+	 * attractions changed
+	 * 
+	 * @return catalog of attractions - AttractionCatalog
+	 */
+	public AttractionCatalog refreshAttractionCatalog() {
+		List<Attraction> attractions = attractionsTimer.record(locationClient::getAttractions);
+		synchronized (this) {
+			AttractionCatalog catalog = attractionCatalog == null ? AttractionCatalog.of(attractions)
+					: attractionCatalog.update(attractions);
+			if (catalog != attractionCatalog) {
+				logger.debug("Attraction catalog version " + catalog.getVersion() + " : " + catalog.size()
+						+ " attractions");
+			}
+			attractionCatalog = catalog;
+			return catalog;
+		}
+	}
+
+	/**
+	 * Refresh the attraction catalog in background
+	 * 
+	 * @param refreshInterval - Duration between two refreshes
+	 */
+	public synchronized void startAttractionCatalogRefresh(Duration refreshInterval) {
+		if (catalogRefreshScheduler != null) {
+			return;
+		}
+		catalogRefreshScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "attraction-catalog-refresh");
+			thread.setDaemon(true);
+			return thread;
+		});
+		catalogRefreshScheduler.scheduleWithFixedDelay(() -> {
+			try {
+				refreshAttractionCatalog();
+			} catch (RuntimeException e) {
+				logger.error("Attraction catalog refresh failed", e);
+			}
+		}, refreshInterval.toMillis(), refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Register the timers of GpsUtil calls and the gauge of locations waiting for
+	 * their batch
+	 * 
+	 * @param registry - MeterRegistry
+	 */
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		userLocationTimer = TourGuideMetrics.externalCallTimer(registry, ExternalDependency.GPS_UTIL,
+				"getUserLocation");
+		attractionsTimer = TourGuideMetrics.externalCallTimer(registry, ExternalDependency.GPS_UTIL, "getAttractions");
+		Gauge.builder(TourGuideMetrics.LOCATION_BATCHER_PENDING, locationBatcher,
+				batcher -> batcher.getPendingRequestCount()).description("Locations waiting for their batch")
+				.register(registry);
+	}
+
+	/**
+	 * Stop background tasks of the service
+	 */
+	public synchronized void shutdown() {
+		locationBatcher.shutdown();
+		if (catalogRefreshScheduler != null) {
+			catalogRefreshScheduler.shutdownNow();
+			catalogRefreshScheduler = null;
+		}
 	}
 
 	/**
@@ -39,11 +204,59 @@ public class GpsUtilService {
 	 */
 	public VisitedLocation getUserLocation(UUID userId) {
 		try {
-			return gpsUtil.getUserLocation(userId);
+			return userLocationTimer.record(() -> locationClient.getUserLocation(userId));
 		} catch (NumberFormatException numberFormatException) {
 			numberFormatException.printStackTrace();
 		}
 		return null;
 	}
 
+	/**
+	 * Get location of an user by his id. Concurrent requests are batched together
+	 * and GpsUtil is called by the GpsUtil bulkhead.
+	 * 
+	 * @param userId - UUID
+	 * @return CompletableFuture of the location of an user
+	 */
+	public CompletableFuture<VisitedLocation> getUserLocationAsync(UUID userId) {
+		return locationBatcher.submit(userId);
+	}
+
+	/**
+	 * Get locations of users by their id
+	 * 
+	 * @param userIds - Collection of UUID
+	 * @return locations by user id, without users GpsUtil could not locate -
+	 *         Map<UUID, VisitedLocation>
+	 */
+	public Map<UUID, VisitedLocation> getUserLocations(Collection<UUID> userIds) {
+		return getUserLocationsAsync(userIds).join();
+	}
+
+	/**
+	 * Get locations of users by their id, each user being located by its own task
+	 * of the GpsUtil bulkhead. Batches of the location batcher bound the number of
+	 * tasks submitted at once.
+	 * 
+	 * @param userIds - Collection of UUID
+	 * @return CompletableFuture of locations by user id
+	 */
+	public CompletableFuture<Map<UUID, VisitedLocation>> getUserLocationsAsync(Collection<UUID> userIds) {
+		List<UUID> ids = new ArrayList<>(userIds);
+		List<CompletableFuture<VisitedLocation>> calls = new ArrayList<>(ids.size());
+		for (UUID userId : ids) {
+			calls.add(executionStrategy.supplyAsync(ExternalDependency.GPS_UTIL, () -> getUserLocation(userId)));
+		}
+		return CompletableFuture.allOf(calls.toArray(new CompletableFuture[calls.size()])).thenApply(v -> {
+			Map<UUID, VisitedLocation> locations = new HashMap<>(ids.size() * 4 / 3 + 1);
+			for (int i = 0; i < ids.size(); i++) {
+				VisitedLocation visitedLocation = calls.get(i).join();
+				if (visitedLocation != null) {
+					locations.put(ids.get(i), visitedLocation);
+				}
+			}
+			return locations;
+		});
+	}
+
 }
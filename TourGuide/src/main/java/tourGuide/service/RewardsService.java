@@ -1,21 +1,36 @@
 package tourGuide.service;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Executor;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
-import org.springframework.stereotype.Service;
 
 import gpsUtil.location.Attraction;
 import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import rewardCentral.RewardCentral;
+import tourGuide.cache.BoundedCache;
+import tourGuide.client.RewardCentralClient;
+import tourGuide.client.RewardClient;
+import tourGuide.executor.BulkheadExecutionStrategy;
+import tourGuide.executor.ExecutionStrategy;
+import tourGuide.executor.ExternalDependency;
+import tourGuide.location.AttractionIndex;
+import tourGuide.location.GeoDistance;
+import tourGuide.metrics.TourGuideMetrics;
+import tourGuide.user.LocationCursor;
+import tourGuide.user.RewardWatermark;
 import tourGuide.user.User;
 import tourGuide.user.UserReward;
 
@@ -23,22 +38,26 @@ import tourGuide.user.UserReward;
  * Service class for rewards in TourGuide application
  * 
  */
-@Service
-public class RewardsService {
-	private static final double STATUTE_MILES_PER_NAUTICAL_MILE = 1.15077945;
+public class RewardsService implements MeterBinder {
+	public static final int DEFAULT_REWARD_POINTS_CACHE_SIZE = 500000;
 
 	// proximity in miles
 	private int defaultProximityBuffer = 10;
 	private int proximityBuffer = defaultProximityBuffer;
+	// changed with the proximity buffer so that already evaluated locations are evaluated again
+	private int proximityVersion = 0;
 	private int attractionProximityRange = 200;
 	private final GpsUtilService gpsUtilService;
-	private final RewardCentral rewardsCentral;
+	private final RewardClient rewardClient;
+	private final BoundedCache<RewardPointsKey, Integer> rewardPointsCache;
 
-	private ExecutorService executorService = Executors.newFixedThreadPool(1200);
-
-	public Executor getExecutor() {
-		return this.executorService;
-	}
+	private final ExecutionStrategy executionStrategy;
+	private volatile Timer rewardPointsTimer = TourGuideMetrics.externalCallTimer(TourGuideMetrics.UNBOUND_REGISTRY,
+			ExternalDependency.REWARD_CENTRAL, "getAttractionRewardPoints");
+	private volatile Timer rewardsCalculationTimer = rewardsCalculationTimer(TourGuideMetrics.UNBOUND_REGISTRY);
+	// told about every reward added by an evaluation, which waits for its future
+	private volatile BiFunction<User, UserReward, CompletableFuture<Void>> rewardListener =
+			(user, userReward) -> CompletableFuture.completedFuture(null);
 
 	/**
 	 * Constructor for instancing a reward service
@@ -47,12 +66,91 @@ public class RewardsService {
 	 * @param rewardCentral  - RewardCentral
 	 */
 	public RewardsService(GpsUtilService gpsUtilService, RewardCentral rewardCentral) {
+		this(gpsUtilService, new RewardCentralClient(rewardCentral));
+	}
+
+	/**
+	 * Constructor for instancing a reward service calling a specific reward
+	 * client
+	 * 
+	 * @param gpsUtilService - GpsUtil
+	 * @param rewardClient   - RewardClient, RewardCentral or a simulation of it
+	 */
+	public RewardsService(GpsUtilService gpsUtilService, RewardClient rewardClient) {
+		this(gpsUtilService, rewardClient, BulkheadExecutionStrategy.getDefault(), DEFAULT_REWARD_POINTS_CACHE_SIZE,
+				Duration.ZERO);
+	}
+
+	/**
+	 * Constructor for instancing a reward service with a specific execution
+	 * strategy and reward points cache
+	 * 
+	 * @param gpsUtilService         - GpsUtil
+	 * @param rewardCentral          - RewardCentral
+	 * @param executionStrategy      - ExecutionStrategy running RewardCentral calls
+	 * @param rewardPointsCacheSize  - maximum number of cached reward points
+	 * @param rewardPointsTimeToLive - Duration before reward points are asked again
+	 *                               to RewardCentral, zero to keep them
+	 */
+	public RewardsService(GpsUtilService gpsUtilService, RewardCentral rewardCentral,
+			ExecutionStrategy executionStrategy, int rewardPointsCacheSize, Duration rewardPointsTimeToLive) {
+		this(gpsUtilService, new RewardCentralClient(rewardCentral), executionStrategy, rewardPointsCacheSize,
+				rewardPointsTimeToLive);
+	}
+
+	/**
+	 * Constructor for instancing a reward service calling a specific reward
+	 * client, with a specific execution strategy and reward points cache
+	 * 
+	 * @param gpsUtilService         - GpsUtil
+	 * @param rewardClient           - RewardClient, RewardCentral or a simulation
+	 *                               of it
+	 * @param executionStrategy      - ExecutionStrategy running RewardCentral calls
+	 * @param rewardPointsCacheSize  - maximum number of cached reward points
+	 * @param rewardPointsTimeToLive - Duration before reward points are asked again
+	 *                               to RewardCentral, zero to keep them
+	 */
+	public RewardsService(GpsUtilService gpsUtilService, RewardClient rewardClient,
+			ExecutionStrategy executionStrategy, int rewardPointsCacheSize, Duration rewardPointsTimeToLive) {
 		this.gpsUtilService = gpsUtilService;
-		this.rewardsCentral = rewardCentral;
+		this.rewardClient = rewardClient;
+		this.executionStrategy = executionStrategy;
+		this.rewardPointsCache = new BoundedCache<>(rewardPointsCacheSize, rewardPointsTimeToLive);
+	}
+
+	public RewardClient getRewardClient() {
+		return rewardClient;
+	}
+
+	public BoundedCache<?, Integer> getRewardPointsCache() {
+		return rewardPointsCache;
 	}
 
-	public RewardCentral getRewardsCentral() {
-		return rewardsCentral;
+	/**
+	 * Set the listener told about every reward added to a user. Rewards are
+	 * calculated once the futures returned by the listener are completed.
+	 * 
+	 * @param rewardListener - BiFunction of the user and its new reward
+	 */
+	public void setRewardListener(BiFunction<User, UserReward, CompletableFuture<Void>> rewardListener) {
+		this.rewardListener = rewardListener;
+	}
+
+	/**
+	 * Register the timers of RewardCentral calls and of reward calculations
+	 * 
+	 * @param registry - MeterRegistry
+	 */
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		rewardPointsTimer = TourGuideMetrics.externalCallTimer(registry, ExternalDependency.REWARD_CENTRAL,
+				"getAttractionRewardPoints");
+		rewardsCalculationTimer = rewardsCalculationTimer(registry);
+	}
+
+	private static Timer rewardsCalculationTimer(MeterRegistry registry) {
+		return Timer.builder(TourGuideMetrics.REWARDS_CALCULATION)
+				.description("Reward calculations of a user, until every reward is granted").register(registry);
 	}
 
 	/**
@@ -60,52 +158,92 @@ public class RewardsService {
 	 * 
 	 * @param proximityBuffer - int
 	 */
-	public void setProximityBuffer(int proximityBuffer) {
+	public synchronized void setProximityBuffer(int proximityBuffer) {
 		this.proximityBuffer = proximityBuffer;
+		proximityVersion++;
 	}
 
 	/**
 	 * Set a default proximityBuffer
 	 */
 	public void setDefaultProximityBuffer() {
-		proximityBuffer = defaultProximityBuffer;
+		setProximityBuffer(defaultProximityBuffer);
 	}
 
 	/**
-	 * Calculate rewards for a specific user from attractions he has visited
+	 * Calculate rewards for a specific user from attractions he has visited.
+	 * Only visited locations added since the last evaluation are matched against
+	 * attractions the user has not been rewarded for yet.
 	 * 
 	 * @param user - User
 	 * @return CompletableFuture<Void>
 	 */
 	public CompletableFuture<Void> calculateRewards(User user) {
+		Timer.Sample sample = Timer.start();
+		return evaluateRewards(user).whenComplete((v, throwable) -> sample.stop(rewardsCalculationTimer));
+	}
+
+	private CompletableFuture<Void> evaluateRewards(User user) {
+
+		int version;
+		int buffer;
+		synchronized (this) {
+			version = proximityVersion;
+			buffer = proximityBuffer;
+		}
+		RewardWatermark watermark = user.getRewardWatermark();
+		long evaluatedLocations = user.getVisitedLocationCount();
+		long firstNewLocation = watermark.getProximityVersion() == version ? watermark.getEvaluatedLocations() : 0;
+		RewardWatermark newWatermark = new RewardWatermark(version, evaluatedLocations);
 
-		CopyOnWriteArrayList<VisitedLocation> userLocations = new CopyOnWriteArrayList<>(user.getVisitedLocations());
+		AttractionIndex attractionIndex = gpsUtilService.getAttractionIndex();
 
-		List<Attraction> attractions = gpsUtilService.getListOfAttractions();
+		// attractions already rewarded are skipped
+		if (user.getUserRewardCount() >= attractionIndex.getAttractions().size()) {
+			user.advanceRewardWatermark(newWatermark);
+			return CompletableFuture.completedFuture(null);
+		}
 
 		List<CompletableFuture<Void>> futures = new ArrayList<>();
+		// attractions rewarded by this evaluation
+		Set<UUID> rewardedAttractions = new HashSet<>();
 
-		for (Attraction attraction : attractions) {
+		// locations are read from the location store of the user if any, otherwise
+		// locations no longer recent have been aggregated and are not evaluated again
+		LocationCursor userLocations = user.getVisitedLocationCursor(firstNewLocation, evaluatedLocations);
 
-			for (VisitedLocation visitedLocation : userLocations) {
+		// each attraction is rewarded with the first visited location near it
+		while (userLocations.next()) {
+			double latitude = userLocations.getLatitude();
+			double longitude = userLocations.getLongitude();
 
-				if (nearAttraction(visitedLocation, attraction)) {
+			for (Attraction attraction : attractionIndex.getAttractionsWithin(latitude, longitude, buffer)) {
+
+				if (!user.hasUserReward(attraction.attractionId) && rewardedAttractions.add(attraction.attractionId)) {
+					// objects are only created for the locations rewarded
+					VisitedLocation visitedLocation = new VisitedLocation(user.getUserId(),
+							new Location(latitude, longitude), new Date(userLocations.getTime()));
 					// future captures the result of asynchronous task
-					CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
-						user.addUserReward(
-								new UserReward(visitedLocation, attraction, getRewardPoints(attraction, user)));
-					}, executorService);
-					// The task execution will be handled by the executorService, which is an
-					// ExecutorService instance passed as an argument.
+					CompletableFuture<Void> future = getRewardPointsAsync(attraction, user.getUserId())
+							.thenCompose(rewardPoints -> addUserReward(user,
+									new UserReward(visitedLocation, attraction, rewardPoints)));
 					futures.add(future);
-					break;
 				}
 			}
 		}
-		return CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()]));
+		// locations are evaluated once every reward has been granted
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()]))
+				.thenRun(() -> user.advanceRewardWatermark(newWatermark));
 
 	}
 
+	private CompletableFuture<Void> addUserReward(User user, UserReward userReward) {
+		if (user.addUserReward(userReward)) {
+			return rewardListener.apply(user, userReward);
+		}
+		return CompletableFuture.completedFuture(null);
+	}
+
 	/**
 	 * Calculate rewards for a list of user from attractions they have visited
 	 * 
@@ -127,30 +265,38 @@ public class RewardsService {
 	 * @return Boolean
 	 */
 	public boolean isWithinAttractionProximity(Attraction attraction, Location location) {
-		return getDistance(attraction, location) > attractionProximityRange ? false : true;
+		return GeoDistance.isWithin(attraction, location, attractionProximityRange);
 	}
 
 	/**
-	 * Verify if an attraction is in the range of proximityBuffer by returning true
+	 * Get rewardPoints from a user and an attraction, RewardCentral is only called
+	 * when they are not cached
 	 * 
-	 * @param visitedLocation - VisitedLocation
-	 * @param attraction      - Attraction
-	 * @return Boolean
+	 * @param attraction - Attraction
+	 * @param userId     - UUID
+	 * @return rewardPoints - int
 	 */
-	private boolean nearAttraction(VisitedLocation visitedLocation, Attraction attraction) {
-		return getDistance(attraction, visitedLocation.location) > proximityBuffer ? false : true;
+	public int getRewardPoints(Attraction attraction, UUID userId) {
+		return rewardPointsCache.get(new RewardPointsKey(attraction.attractionId, userId),
+				this::callRewardClient);
 	}
 
 	/**
-	 * Get rewardPoints from a user and an attraction
+	 * Get rewardPoints from a user and an attraction, RewardCentral is called by
+	 * the RewardCentral bulkhead when they are not cached
 	 * 
 	 * @param attraction - Attraction
-	 * @param user       - User
-	 * @return rewardPoints - int
+	 * @param userId     - UUID
+	 * @return CompletableFuture of rewardPoints
 	 */
-	private int getRewardPoints(Attraction attraction, User user) {
+	public CompletableFuture<Integer> getRewardPointsAsync(Attraction attraction, UUID userId) {
+		return rewardPointsCache.getAsync(new RewardPointsKey(attraction.attractionId, userId),
+				key -> executionStrategy.supplyAsync(ExternalDependency.REWARD_CENTRAL,
+						() -> callRewardClient(key)));
+	}
 
-		return rewardsCentral.getAttractionRewardPoints(attraction.attractionId, user.getUserId());
+	private int callRewardClient(RewardPointsKey key) {
+		return rewardPointsTimer.record(() -> rewardClient.getAttractionRewardPoints(key.attractionId, key.userId));
 	}
 
 	/**
@@ -161,17 +307,34 @@ public class RewardsService {
 	 * @return distance - double
 	 */
 	public double getDistance(Location loc1, Location loc2) {
-		double lat1 = Math.toRadians(loc1.latitude);
-		double lon1 = Math.toRadians(loc1.longitude);
-		double lat2 = Math.toRadians(loc2.latitude);
-		double lon2 = Math.toRadians(loc2.longitude);
+		return GeoDistance.getDistance(loc1, loc2);
+	}
 
-		double angle = Math
-				.acos(Math.sin(lat1) * Math.sin(lat2) + Math.cos(lat1) * Math.cos(lat2) * Math.cos(lon1 - lon2));
+	/**
+	 * Key of the reward points cache
+	 */
+	private static final class RewardPointsKey {
+		final UUID attractionId;
+		final UUID userId;
 
-		double nauticalMiles = 60 * Math.toDegrees(angle);
-		double statuteMiles = STATUTE_MILES_PER_NAUTICAL_MILE * nauticalMiles;
-		return statuteMiles;
+		RewardPointsKey(UUID attractionId, UUID userId) {
+			this.attractionId = attractionId;
+			this.userId = userId;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof RewardPointsKey)) {
+				return false;
+			}
+			RewardPointsKey other = (RewardPointsKey) o;
+			return attractionId.equals(other.attractionId) && userId.equals(other.userId);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * attractionId.hashCode() + userId.hashCode();
+		}
 	}
 
 }
@@ -0,0 +1,76 @@
+package tourGuide.service;
+
+import java.time.Duration;
+
+import tourGuide.helper.InternalUserProperties;
+import tourGuide.persistence.UserJournal;
+import tourGuide.tracker.TrackerProperties;
+import tourGuide.user.LocationHistoryProperties;
+import tourGuide.user.MappedLocationStore;
+
+/**
+ * Optional settings of a TourGuideService, each one left to its default
+ * unless set
+ *
+ */
+public class TourGuideOptions {
+
+	private TrackerProperties trackerProperties = new TrackerProperties();
+	private LocationHistoryProperties locationHistoryProperties = new LocationHistoryProperties();
+	private InternalUserProperties internalUserProperties = new InternalUserProperties();
+	// full histories, owned and closed by the caller, null to keep only retained
+	// locations
+	private MappedLocationStore locationStore;
+	// owned and closed by the caller, null when users are not persisted
+	private UserJournal userJournal;
+	private Duration snapshotInterval = UserJournal.DEFAULT_SNAPSHOT_INTERVAL;
+
+	public TrackerProperties getTrackerProperties() {
+		return trackerProperties;
+	}
+
+	public void setTrackerProperties(TrackerProperties trackerProperties) {
+		this.trackerProperties = trackerProperties;
+	}
+
+	public LocationHistoryProperties getLocationHistoryProperties() {
+		return locationHistoryProperties;
+	}
+
+	public void setLocationHistoryProperties(LocationHistoryProperties locationHistoryProperties) {
+		this.locationHistoryProperties = locationHistoryProperties;
+	}
+
+	public InternalUserProperties getInternalUserProperties() {
+		return internalUserProperties;
+	}
+
+	public void setInternalUserProperties(InternalUserProperties internalUserProperties) {
+		this.internalUserProperties = internalUserProperties;
+	}
+
+	public MappedLocationStore getLocationStore() {
+		return locationStore;
+	}
+
+	public void setLocationStore(MappedLocationStore locationStore) {
+		this.locationStore = locationStore;
+	}
+
+	public UserJournal getUserJournal() {
+		return userJournal;
+	}
+
+	public void setUserJournal(UserJournal userJournal) {
+		this.userJournal = userJournal;
+	}
+
+	public Duration getSnapshotInterval() {
+		return snapshotInterval;
+	}
+
+	public void setSnapshotInterval(Duration snapshotInterval) {
+		this.snapshotInterval = snapshotInterval;
+	}
+
+}
@@ -1,32 +1,45 @@
 package tourGuide.service;
 
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.Date;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import gpsUtil.location.Attraction;
 import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
+import tourGuide.cache.BoundedCache;
 import tourGuide.helper.InternalTestHelper;
+import tourGuide.helper.InternalUserGenerator;
+import tourGuide.helper.InternalUserMode;
+import tourGuide.helper.InternalUserProperties;
+import tourGuide.location.AttractionCatalog;
+import tourGuide.location.NearbyAttraction;
 import tourGuide.model.NearbyAttractionsDTO;
+import tourGuide.persistence.UserJournal;
+import tourGuide.persistence.UserSnapshot;
 import tourGuide.tracker.Tracker;
+import tourGuide.user.LastLocationTable;
+import tourGuide.user.LocationCursor;
+import tourGuide.user.LocationHistoryRetention;
+import tourGuide.user.MappedLocationStore;
 import tourGuide.user.User;
+import tourGuide.user.UserRepository;
 import tourGuide.user.UserReward;
 import tripPricer.Provider;
 import tripPricer.TripPricer;
@@ -37,32 +50,84 @@ import tripPricer.TripPricer;
  */
 @Service
 public class TourGuideService {
+	private static final int TRACKING_BATCH_SIZE = 100;
+	private static final int NEARBY_ATTRACTIONS_COUNT = 5;
+	private static final long NEARBY_REWARD_POINTS_DEADLINE_MILLIS = 1500;
+	private static final int NEARBY_ATTRACTIONS_CACHE_SIZE = 10000;
+	private static final int CURRENT_LOCATIONS_CHUNK_SIZE = 1024;
+	private static final int INTERNAL_USERS_CHUNK_SIZE = 10000;
 	private Logger logger = LoggerFactory.getLogger(TourGuideService.class);
 	private final GpsUtilService gpsUtilService;
 	private final RewardsService rewardsService;
-	private final TripPricer tripPricer = new TripPricer();
+	private final TripDealsService tripDealsService;
 	public final Tracker tracker;
+	// nearby attractions by user location
+	private final BoundedCache<NearbyAttractionsKey, List<NearbyAttractionsDTO>> nearbyAttractionsCache =
+			new BoundedCache<>(NEARBY_ATTRACTIONS_CACHE_SIZE);
+	// trackings in flight by user id, shared by concurrent callers
+	private final ConcurrentHashMap<UUID, CompletableFuture<VisitedLocation>> trackingsInFlight =
+			new ConcurrentHashMap<>();
 	boolean testMode = true;
 
-	private ExecutorService executorService = Executors.newFixedThreadPool(1200);
-
 	/**
-	 * Constructor for instancing a TourGuideService
+	 * Constructor for instancing a TourGuideService with default options
 	 * 
 	 * @param gpsUtilService - GpsUtilService
 	 * @param rewardsService - RewardsService
 	 */
 	public TourGuideService(GpsUtilService gpsUtilService, RewardsService rewardsService) {
+		this(gpsUtilService, rewardsService, new TripDealsService(new TripPricer()), new TourGuideOptions());
+	}
+
+	/**
+	 * Constructor for instancing a TourGuideService with a trip deals service and
+	 * options. Persisted users are recovered before internal users are created,
+	 * which only happens when no user was recovered. A store of full histories
+	 * and a journal given in options stay owned by the caller, which closes them
+	 * once the service is no longer used.
+	 * 
+	 * @param gpsUtilService   - GpsUtilService
+	 * @param rewardsService   - RewardsService
+	 * @param tripDealsService - TripDealsService
+	 * @param options          - TourGuideOptions
+	 */
+	@Autowired
+	public TourGuideService(GpsUtilService gpsUtilService, RewardsService rewardsService,
+			TripDealsService tripDealsService, TourGuideOptions options) {
 		this.gpsUtilService = gpsUtilService;
 		this.rewardsService = rewardsService;
-
-		if (testMode) {
+		this.tripDealsService = tripDealsService;
+		this.locationHistoryRetention = options.getLocationHistoryProperties().toRetention();
+		this.locationStore = options.getLocationStore();
+		this.userJournal = options.getUserJournal();
+		InternalUserProperties internalUserProperties = options.getInternalUserProperties();
+
+		if (userJournal != null) {
+			userJournal.recover(locationHistoryRetention, locationStore, gpsUtilService.getAttractionCatalog())
+					.forEach(this::registerUser);
+			rewardsService.setRewardListener(userJournal::logUserReward);
+		}
+		if (testMode && userRepository.size() == 0) {
 			logger.info("TestMode enabled");
-			logger.debug("Initializing users");
-			initializeInternalUsers();
-			logger.debug("Finished initializing users");
+			if (internalUserProperties.getMode() == InternalUserMode.BACKGROUND) {
+				internalUsersInitialized = CompletableFuture
+						.runAsync(() -> initializeInternalUsers(internalUserProperties), runnable -> {
+							Thread thread = new Thread(runnable, "internal-users");
+							thread.setDaemon(true);
+							thread.start();
+						}).whenComplete((v, throwable) -> {
+							if (throwable != null) {
+								logger.error("Internal users initialization failed", throwable);
+							}
+						});
+			} else {
+				initializeInternalUsers(internalUserProperties);
+			}
+		}
+		if (userJournal != null) {
+			userJournal.startSnapshots(options.getSnapshotInterval(), userRepository::getAllUsers);
 		}
-		tracker = new Tracker(this);
+		tracker = new Tracker(this, options.getTrackerProperties());
 		addShutDownHook();
 	}
 
@@ -83,9 +148,31 @@ public class TourGuideService {
 	 * @return last visited location with informations - VisitedLocation
 	 */
 	public VisitedLocation getUserLocation(User user) {
-		VisitedLocation visitedLocation = (user.getVisitedLocations().size() > 0) ? user.getLastVisitedLocation()
-				: trackUserLocation(user).join();
-		return visitedLocation;
+		return getUserLocationAsync(user).join();
+	}
+
+	/**
+	 * Get last visited location of a user, tracking the user first when no
+	 * location is known
+	 * 
+	 * @param user - User
+	 * @return CompletableFuture VisitedLocation
+	 */
+	public CompletableFuture<VisitedLocation> getUserLocationAsync(User user) {
+		VisitedLocation visitedLocation = user.getLastVisitedLocation();
+		return visitedLocation != null ? CompletableFuture.completedFuture(visitedLocation)
+				: trackUserLocation(user);
+	}
+
+	/**
+	 * Get a cursor over the location history of a user, read from the location
+	 * store when the full histories are kept off heap
+	 * 
+	 * @param user - User
+	 * @return cursor - LocationCursor
+	 */
+	public LocationCursor getLocationHistory(User user) {
+		return user.getVisitedLocationCursor();
 	}
 
 	/**
@@ -95,92 +182,289 @@ public class TourGuideService {
 	 * @return user - User
 	 */
 	public User getUser(String userName) {
-		return internalUserMap.get(userName);
+		return userRepository.getUser(userName);
+	}
+
+	/**
+	 * Get a user by his id
+	 * 
+	 * @param userId - UUID
+	 * @return user - User
+	 */
+	public User getUser(UUID userId) {
+		return userRepository.getUser(userId);
 	}
 
 	/**
-	 * Get all users
+	 * Get all users, as an unmodifiable view of the repository (users are not
+	 * copied)
 	 * 
 	 * @return List of User
 	 */
 	public List<User> getAllUsers() {
-		return internalUserMap.values().stream().collect(Collectors.toList());
+		return userRepository.getAllUsers();
+	}
+
+	public UserRepository getUserRepository() {
+		return userRepository;
+	}
+
+	/**
+	 * Get the initialization of internal users, completed once they have all
+	 * been added
+	 * 
+	 * @return CompletableFuture void
+	 */
+	public CompletableFuture<Void> getInternalUsersInitialized() {
+		return internalUsersInitialized;
+	}
+
+	/**
+	 * Get the journal persisting users
+	 * 
+	 * @return userJournal or null when users are not persisted - UserJournal
+	 */
+	public UserJournal getUserJournal() {
+		return userJournal;
 	}
 
 	/**
 	 * Adding a user
 	 * 
 	 * @param user - User
+	 * @return CompletableFuture completed once the user is persisted
 	 */
-	public void addUser(User user) {
-		if (!internalUserMap.containsKey(user.getUserName())) {
-			internalUserMap.put(user.getUserName(), user);
+	public CompletableFuture<Void> addUser(User user) {
+		if (registerUser(user) && userJournal != null) {
+			return userJournal.logUserAdded(user);
 		}
+		return CompletableFuture.completedFuture(null);
 	}
 
 	/**
-	 * 
-	 * Get tripDeals for a user
+	 * Add a user to the repository and its last location to the last locations
+	 * of all users
+	 */
+	private boolean registerUser(User user) {
+		if (!userRepository.add(user)) {
+			return false;
+		}
+		VisitedLocation visitedLocation = user.getLastVisitedLocation();
+		if (visitedLocation != null) {
+			lastLocations.update(userRepository.indexOf(user.getUserId()), visitedLocation);
+		}
+		return true;
+	}
+
+	/**
+	 * Get tripDeals for a user, at most 5 deals within the price points of the
+	 * user. Deals are quoted once for users with the same trip and close rewards.
 	 * 
 	 * @param user - User
 	 * @return tripDeals - List of Provider
 	 */
 	public List<Provider> getTripDeals(User user) {
-		int cumulatativeRewardPoints = user.getUserRewards().stream().mapToInt(i -> i.getRewardPoints()).sum();
-		List<Provider> providers = tripPricer.getPrice(tripPricerApiKey, user.getUserId(),
-				user.getUserPreferences().getNumberOfAdults(), user.getUserPreferences().getNumberOfChildren(),
-				user.getUserPreferences().getTripDuration(), cumulatativeRewardPoints);
-		user.setTripDeals(providers);
-		return providers;
+		return tripDealsService.getTripDeals(user);
+	}
+
+	/**
+	 * Get tripDeals for a user, without waiting for TripPricer in the calling
+	 * thread
+	 * 
+	 * @param user - User
+	 * @return CompletableFuture of tripDeals
+	 */
+	public CompletableFuture<List<Provider>> getTripDealsAsync(User user) {
+		return tripDealsService.getTripDealsAsync(user);
 	}
 
 	/**
-	 * Track current user location
+	 * Track current user location. Concurrent callers tracking the same user share
+	 * a single tracking.
 	 * 
 	 * @param user - User
 	 * @return CompletableFuture VisitedLocation
 	 */
 	public CompletableFuture<VisitedLocation> trackUserLocation(User user) {
-		CompletableFuture<VisitedLocation> visitedLocationCompletableFuture = CompletableFuture.supplyAsync(() -> {
-			VisitedLocation visitedLocation = gpsUtilService.getUserLocation(user.getUserId());
-			return visitedLocation;
-		}, executorService).thenApplyAsync((visitedLocation) -> {// async : new thread forked
-			user.addToVisitedLocations(visitedLocation);
-			rewardsService.calculateRewards(user).join();
-			// wait calculateReward is over before returning loc.
-			return visitedLocation;
-		}, rewardsService.getExecutor());
-		return visitedLocationCompletableFuture;
+		CompletableFuture<VisitedLocation> tracking = new CompletableFuture<>();
+		CompletableFuture<VisitedLocation> trackingInFlight = trackingsInFlight.putIfAbsent(user.getUserId(),
+				tracking);
+		if (trackingInFlight != null) {
+			return trackingInFlight.copy();
+		}
+		// GpsUtil is called by its bulkhead, rewards are calculated without blocking
+		// any thread while RewardCentral answers
+		gpsUtilService.getUserLocationAsync(user.getUserId()).thenCompose(visitedLocation -> {
+			if (visitedLocation == null) {
+				return CompletableFuture.<VisitedLocation>failedFuture(noLocation(user));
+			}
+			CompletableFuture<Void> persisted = addToVisitedLocations(user, visitedLocation);
+			// location is returned once it is persisted and calculateRewards is over
+			return CompletableFuture.allOf(persisted, calculateRewards(user)).thenApply(v -> visitedLocation);
+		}).whenComplete((visitedLocation, throwable) -> completeTracking(user, tracking, visitedLocation, throwable));
+		return tracking.copy();
 	}
 
 	/**
-	 * Track current location of users from a list
+	 * Track current location of users from a list, their locations are asked to
+	 * GpsUtil in batches
 	 * 
 	 * @param users - List of User
 	 * @return CompletableFuture void
 	 */
 	public CompletableFuture<Void> trackAllUserLocation(List<User> users) {
-		List<CompletableFuture<VisitedLocation>> completableFutures = users.stream()
-				.map(user -> this.trackUserLocation(user)).collect(Collectors.toList());
+		List<CompletableFuture<Void>> completableFutures = new ArrayList<>();
+		for (int from = 0; from < users.size(); from += TRACKING_BATCH_SIZE) {
+			int to = Math.min(from + TRACKING_BATCH_SIZE, users.size());
+			completableFutures.add(trackUserLocations(users.subList(from, to)));
+		}
+		return CompletableFuture.allOf(completableFutures.toArray(new CompletableFuture[completableFutures.size()]));
+
+	}
+
+	/**
+	 * Track a batch of users, users already being tracked are not tracked again
+	 */
+	private CompletableFuture<Void> trackUserLocations(List<User> users) {
+		List<CompletableFuture<?>> completableFutures = new ArrayList<>();
+		List<User> usersToTrack = new ArrayList<>(users.size());
+		List<CompletableFuture<VisitedLocation>> trackings = new ArrayList<>(users.size());
+		for (User user : users) {
+			CompletableFuture<VisitedLocation> tracking = new CompletableFuture<>();
+			CompletableFuture<VisitedLocation> trackingInFlight = trackingsInFlight.putIfAbsent(user.getUserId(),
+					tracking);
+			if (trackingInFlight != null) {
+				completableFutures.add(trackingInFlight);
+			} else {
+				usersToTrack.add(user);
+				trackings.add(tracking);
+			}
+		}
+		if (!usersToTrack.isEmpty()) {
+			List<UUID> userIds = usersToTrack.stream().map(User::getUserId).collect(Collectors.toList());
+			completableFutures.add(gpsUtilService.getUserLocationsAsync(userIds).thenCompose(visitedLocations -> {
+				List<CompletableFuture<Void>> rewards = new ArrayList<>(usersToTrack.size());
+				for (int i = 0; i < usersToTrack.size(); i++) {
+					User user = usersToTrack.get(i);
+					CompletableFuture<VisitedLocation> tracking = trackings.get(i);
+					VisitedLocation visitedLocation = visitedLocations.get(user.getUserId());
+					if (visitedLocation != null) {
+						CompletableFuture<Void> persisted = addToVisitedLocations(user, visitedLocation);
+						rewards.add(CompletableFuture.allOf(persisted, calculateRewards(user)).whenComplete(
+								(v, throwable) -> completeTracking(user, tracking, visitedLocation, throwable)));
+					} else {
+						completeTracking(user, tracking, null, noLocation(user));
+					}
+				}
+				return CompletableFuture.allOf(rewards.toArray(new CompletableFuture[rewards.size()]));
+			}).whenComplete((v, throwable) -> {
+				if (throwable != null) {
+					for (int i = 0; i < usersToTrack.size(); i++) {
+						completeTracking(usersToTrack.get(i), trackings.get(i), null, throwable);
+					}
+				}
+			}));
+		}
 		return CompletableFuture.allOf(completableFutures.toArray(new CompletableFuture[completableFutures.size()]));
+	}
+
+	/**
+	 * Calculate rewards of a user, then refresh in background the trip deals
+	 * already given to the user if new rewards changed them
+	 */
+	private CompletableFuture<Void> calculateRewards(User user) {
+		return rewardsService.calculateRewards(user).thenRun(() -> tripDealsService.refreshTripDeals(user));
+	}
+
+	/**
+	 * Add a tracked location to the history of a user and to the last locations
+	 * of all users, returning a future completed once the location is persisted
+	 */
+	private CompletableFuture<Void> addToVisitedLocations(User user, VisitedLocation visitedLocation) {
+		long position = user.addToVisitedLocations(visitedLocation);
+		user.setLatestLocationTimestamp(visitedLocation.timeVisited);
+		CompletableFuture<Void> persisted = userJournal != null
+				? userJournal.logVisitedLocation(user, position, visitedLocation)
+				: CompletableFuture.completedFuture(null);
+		int index = userRepository.indexOf(user.getUserId());
+		if (index >= 0) {
+			lastLocations.update(index, visitedLocation);
+		}
+		return persisted;
+	}
+
+	/**
+	 * Failure of a tracking when GpsUtil gave no location for the user
+	 */
+	private static IllegalStateException noLocation(User user) {
+		return new IllegalStateException("no location for " + user.getUserId());
+	}
 
+	/**
+	 * End the tracking in flight of a user, before completing it so that callers
+	 * coming after its result start a new one
+	 */
+	private void completeTracking(User user, CompletableFuture<VisitedLocation> tracking,
+			VisitedLocation visitedLocation, Throwable throwable) {
+		trackingsInFlight.remove(user.getUserId(), tracking);
+		if (throwable != null) {
+			tracking.completeExceptionally(throwable);
+		} else {
+			tracking.complete(visitedLocation);
+		}
 	}
 
 	/**
-	 * Get 5 nearest attractions from a VisitedLocation
+	 * Get 5 nearest attractions from a VisitedLocation. Results are kept for the
+	 * user as long as he does not move.
 	 * 
 	 * @param visitedLocation - VisitedLocation
 	 * @return nearbyAttractionsDTOList - List<NearbyAttractionsDTO>
 	 */
 	public List<NearbyAttractionsDTO> getNearByAttractions(VisitedLocation visitedLocation) {
-		List<NearbyAttractionsDTO> nearbyAttractionsDTOList = new ArrayList<>();
+		return getNearByAttractionsAsync(visitedLocation).join();
+	}
+
+	/**
+	 * Get 5 nearest attractions from a VisitedLocation, completed once their
+	 * reward points are known or their deadline is over
+	 * 
+	 * @param visitedLocation - VisitedLocation
+	 * @return CompletableFuture of nearbyAttractionsDTOList
+	 */
+	public CompletableFuture<List<NearbyAttractionsDTO>> getNearByAttractionsAsync(VisitedLocation visitedLocation) {
+		AttractionCatalog attractionCatalog = gpsUtilService.getAttractionCatalog();
+		NearbyAttractionsKey key = new NearbyAttractionsKey(visitedLocation, attractionCatalog.getVersion());
+		List<NearbyAttractionsDTO> nearbyAttractions = nearbyAttractionsCache.getIfPresent(key);
+		if (nearbyAttractions != null) {
+			return CompletableFuture.completedFuture(nearbyAttractions);
+		}
 
-		// Retrieve list of Attractions sorted by distance from user
-		List<Attraction> attractions = gpsUtilService.getListOfAttractions().stream()
-				.sorted(Comparator.comparingDouble(a -> rewardsService.getDistance(visitedLocation.location, a)))
-				.limit(5).collect(Collectors.toList());
+		// Retrieve the 5 attractions nearest from user, each distance is computed once
+		List<NearbyAttraction> nearest = attractionCatalog.getIndex().getNearest(visitedLocation.location,
+				NEARBY_ATTRACTIONS_COUNT);
+
+		// Reward points are asked in parallel, points not known by the deadline are 0
+		List<CompletableFuture<Integer>> rewardPoints = new ArrayList<>(nearest.size());
+		for (NearbyAttraction nearbyAttraction : nearest) {
+			rewardPoints.add(rewardsService.getRewardPointsAsync(nearbyAttraction.getAttraction(), visitedLocation.userId)
+					.copy().completeOnTimeout(null, NEARBY_REWARD_POINTS_DEADLINE_MILLIS, TimeUnit.MILLISECONDS));
+		}
+
+		return CompletableFuture.allOf(rewardPoints.toArray(new CompletableFuture[rewardPoints.size()]))
+				.thenApply(v -> toNearbyAttractionsDTOList(visitedLocation, key, nearest, rewardPoints));
+	}
 
-		for (Attraction attraction : attractions) {
+	/**
+	 * Build the DTOs of nearby attractions once their reward points are known,
+	 * they are kept only when every reward points came in time
+	 */
+	private List<NearbyAttractionsDTO> toNearbyAttractionsDTOList(VisitedLocation visitedLocation,
+			NearbyAttractionsKey key, List<NearbyAttraction> nearest, List<CompletableFuture<Integer>> rewardPoints) {
+		List<NearbyAttractionsDTO> nearbyAttractionsDTOList = new ArrayList<>();
+		boolean complete = true;
+		for (int i = 0; i < nearest.size(); i++) {
+			Attraction attraction = nearest.get(i).getAttraction();
 
 			// Create new attraction DTO
 			NearbyAttractionsDTO nearbyAttractionDTO = new NearbyAttractionsDTO();
@@ -190,34 +474,83 @@ public class TourGuideService {
 			Location attractionLocation = new Location(attraction.latitude, attraction.longitude);
 			nearbyAttractionDTO.setAttractionLocation(attractionLocation);
 			nearbyAttractionDTO.setUserLocation(visitedLocation.location);
-			nearbyAttractionDTO.setDistanceBetweenUserLocationAndAttractionInMiles(
-					rewardsService.getDistance(visitedLocation.location, attraction));
+			nearbyAttractionDTO.setDistanceBetweenUserLocationAndAttractionInMiles(nearest.get(i).getDistanceInMiles());
 
-			nearbyAttractionDTO.setRewardPoints(rewardsService.getRewardsCentral()
-					.getAttractionRewardPoints(attraction.attractionId, visitedLocation.userId));
+			Integer points = rewardPoints.get(i).join();
+			if (points == null) {
+				logger.debug("Reward points of " + attraction.attractionName + " not known in time");
+				complete = false;
+			}
+			nearbyAttractionDTO.setRewardPoints(points == null ? 0 : points);
 
 			// Add DTO to list
 			nearbyAttractionsDTOList.add(nearbyAttractionDTO);
 		}
 
-		return nearbyAttractionsDTOList;
+		List<NearbyAttractionsDTO> result = Collections.unmodifiableList(nearbyAttractionsDTOList);
+		if (complete) {
+			nearbyAttractionsCache.get(key, k -> result);
+		}
+		return result;
 	}
 
 	/**
-	 * Get current locations of all users
+	 * Get current locations of all users, from the last locations known when
+	 * called. Users without any location are left out.
 	 * 
 	 * @return lastVisitedLocations - Map<String, Location>
 	 */
 	public Map<String, Location> getAllCurrentLocations() {
 
-		Map<String, Location> lastVisitedLocations = new HashMap<String, Location>();
-		List<User> userList = getAllUsers();
-		for (User user : userList) {
-			lastVisitedLocations.put(user.getUserId().toString(), getUserLocation(user).location);
+		LastLocationTable.Snapshot snapshot = lastLocations.snapshot();
+		Map<String, Location> lastVisitedLocations = new HashMap<String, Location>(snapshot.size() * 4 / 3 + 1);
+		for (int i = 0; i < snapshot.size(); i++) {
+			if (snapshot.isKnown(i)) {
+				lastVisitedLocations.put(userRepository.get(i).getUserId().toString(),
+						new Location(snapshot.getLatitude(i), snapshot.getLongitude(i)));
+			}
 		}
 		return lastVisitedLocations;
 	}
 
+	/**
+	 * Visit current locations of users in repository order, starting at a cursor.
+	 * The last locations table is read a chunk of users at a time, so that memory
+	 * does not grow with the number of users. Users without any location are
+	 * left out.
+	 * 
+	 * @param cursor  - index of the first user to visit, 0 for the first page
+	 * @param limit   - maximum number of locations to visit, 0 for no limit
+	 * @param visitor - CurrentLocationVisitor
+	 * @return cursor of the next page, -1 when all users have been visited - int
+	 * @throws IOException when the visitor fails
+	 */
+	public int visitCurrentLocations(int cursor, int limit, CurrentLocationVisitor visitor) throws IOException {
+		if (cursor < 0 || limit < 0) {
+			throw new IllegalArgumentException("Cursor and limit must not be negative");
+		}
+		int visited = 0;
+		int index = cursor;
+		while (index < userRepository.size()) {
+			LastLocationTable.Snapshot snapshot = lastLocations.snapshot(index, index + CURRENT_LOCATIONS_CHUNK_SIZE);
+			if (snapshot.size() <= index) {
+				// no location is known for the remaining users
+				return -1;
+			}
+			for (; index < snapshot.size(); index++) {
+				if (limit > 0 && visited == limit) {
+					return index;
+				}
+				if (snapshot.isKnown(index)) {
+					visitor.visit(userRepository.get(index).getUserId(), snapshot.getLatitude(index),
+							snapshot.getLongitude(index));
+					visited++;
+				}
+			}
+		}
+		return -1;
+	}
+
 	private void addShutDownHook() {
 		Runtime.getRuntime().addShutdownHook(new Thread() {
 			public void run() {
@@ -231,46 +564,73 @@ public class TourGuideService {
 	 * Methods Below: For Internal Testing
 	 * 
 	 **********************************************************************************/
-	private static final String tripPricerApiKey = "test-server-api-key";
 	// Database connection will be used for external users, but for testing purposes
 	// internal users are provided and stored in memory
-	private final Map<String, User> internalUserMap = new HashMap<>();
-
-	private void initializeInternalUsers() {
-		IntStream.range(0, InternalTestHelper.getInternalUserNumber()).forEach(i -> {
-			String userName = "internalUser" + i;
-			String phone = "000";
-			String email = userName + "@tourGuide.com";
-			User user = new User(UUID.randomUUID(), userName, phone, email);
-			generateUserLocationHistory(user);
+	private final UserRepository userRepository = new UserRepository();
+	private final LastLocationTable lastLocations = new LastLocationTable();
+	private final LocationHistoryRetention locationHistoryRetention;
+	// full histories of internal users, null when they are kept on heap only
+	private final MappedLocationStore locationStore;
+	// null when users are not persisted
+	private final UserJournal userJournal;
+	private CompletableFuture<Void> internalUsersInitialized = CompletableFuture.completedFuture(null);
 
-			internalUserMap.put(userName, user);
-		});
-		logger.debug("Created " + InternalTestHelper.getInternalUserNumber() + " internal test users.");
-	}
-
-	private void generateUserLocationHistory(User user) {
-		IntStream.range(0, 3).forEach(i -> {
-			user.addToVisitedLocations(new VisitedLocation(user.getUserId(),
-					new Location(generateRandomLatitude(), generateRandomLongitude()), getRandomTime()));
-		});
+	/**
+	 * Add internal users, loaded from the fixture if any, otherwise generated in
+	 * parallel by chunks so that users are added while others are generated
+	 */
+	private void initializeInternalUsers(InternalUserProperties internalUserProperties) {
+		logger.debug("Initializing users");
+		String fixture = internalUserProperties.getFixture();
+		if (fixture != null && !fixture.isEmpty()) {
+			List<User> users = UserSnapshot.read(Paths.get(fixture), locationHistoryRetention, locationStore,
+					gpsUtilService.getAttractionCatalog());
+			users.forEach(this::addUser);
+			logger.debug("Loaded " + users.size() + " internal test users from " + fixture);
+			return;
+		}
+		long seed = internalUserProperties.getSeed() != null ? internalUserProperties.getSeed()
+				: ThreadLocalRandom.current().nextLong();
+		logger.debug("Generating internal test users with seed " + seed);
+		InternalUserGenerator generator = new InternalUserGenerator(seed, locationHistoryRetention, locationStore);
+		int userCount = InternalTestHelper.getInternalUserNumber();
+		for (int from = 0; from < userCount; from += INTERNAL_USERS_CHUNK_SIZE) {
+			generator.generate(from, Math.min(from + INTERNAL_USERS_CHUNK_SIZE, userCount)).forEach(this::addUser);
+		}
+		logger.debug("Created " + userCount + " internal test users.");
 	}
 
-	private double generateRandomLongitude() {
-		double leftLimit = -180;
-		double rightLimit = 180;
-		return leftLimit + new Random().nextDouble() * (rightLimit - leftLimit);
-	}
+	/**
+	 * Key of the nearby attractions cache : a user at a location, with a version
+	 * of the attraction catalog
+	 */
+	private static final class NearbyAttractionsKey {
+		final UUID userId;
+		final double latitude;
+		final double longitude;
+		final long catalogVersion;
+
+		NearbyAttractionsKey(VisitedLocation visitedLocation, long catalogVersion) {
+			this.userId = visitedLocation.userId;
+			this.latitude = visitedLocation.location.latitude;
+			this.longitude = visitedLocation.location.longitude;
+			this.catalogVersion = catalogVersion;
+		}
 
-	private double generateRandomLatitude() {
-		double leftLimit = -85.05112878;
-		double rightLimit = 85.05112878;
-		return leftLimit + new Random().nextDouble() * (rightLimit - leftLimit);
-	}
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof NearbyAttractionsKey)) {
+				return false;
+			}
+			NearbyAttractionsKey other = (NearbyAttractionsKey) o;
+			return userId.equals(other.userId) && Double.compare(latitude, other.latitude) == 0
+					&& Double.compare(longitude, other.longitude) == 0 && catalogVersion == other.catalogVersion;
+		}
 
-	private Date getRandomTime() {
-		LocalDateTime localDateTime = LocalDateTime.now().minusDays(new Random().nextInt(30));
-		return Date.from(localDateTime.toInstant(ZoneOffset.UTC));
+		@Override
+		public int hashCode() {
+			return Objects.hash(userId, latitude, longitude, catalogVersion);
+		}
 	}
 
 }
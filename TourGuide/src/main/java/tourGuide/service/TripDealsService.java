@@ -0,0 +1,323 @@
+package tourGuide.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import tourGuide.cache.BoundedCache;
+import tourGuide.client.PricingClient;
+import tourGuide.client.TripPricerClient;
+import tourGuide.executor.BulkheadExecutionStrategy;
+import tourGuide.executor.ExecutionStrategy;
+import tourGuide.executor.ExternalDependency;
+import tourGuide.metrics.TourGuideMetrics;
+import tourGuide.user.User;
+import tourGuide.user.UserPreferences;
+import tripPricer.Provider;
+import tripPricer.TripPricer;
+
+/**
+ * Service class for trip deals in TourGuide application
+ *
+ * Trip deals are quoted for the party and duration of a trip and for reward
+ * points rounded down to a bucket, so that users with close rewards share the
+ * same quotes. Quotes are cached per trip, each user gets the cheapest ones
+ * within their price points. When the trip of a user changes, because of new
+ * rewards or new preferences, the deals already given are kept while new ones
+ * are quoted in background.
+ *
+ */
+public class TripDealsService implements MeterBinder {
+	public static final int DEFAULT_TRIP_DEALS_CACHE_SIZE = 10000;
+	public static final Duration DEFAULT_TRIP_DEALS_TIME_TO_LIVE = Duration.ofHours(1);
+	public static final int DEFAULT_REWARD_POINTS_BUCKET_SIZE = 100;
+	public static final Duration DEFAULT_QUOTE_DEADLINE = Duration.ofSeconds(2);
+	// TripPricer gives 5 providers per quote, several quotes give more choice
+	private static final int QUOTES_PER_TRIP = 3;
+	private static final int TRIP_DEALS_COUNT = 5;
+	private static final String tripPricerApiKey = "test-server-api-key";
+
+	private Logger logger = LoggerFactory.getLogger(TripDealsService.class);
+	private final PricingClient pricingClient;
+	private final ExecutionStrategy executionStrategy;
+	private final BoundedCache<TripKey, List<Provider>> quotesCache;
+	private final int rewardPointsBucketSize;
+	private final long quoteDeadlineNanos;
+	private volatile Timer priceTimer = TourGuideMetrics.externalCallTimer(TourGuideMetrics.UNBOUND_REGISTRY,
+			ExternalDependency.TRIP_PRICER, "getPrice");
+	// trip of the deals last given to each user
+	private final ConcurrentHashMap<UUID, TripKey> tripsByUser = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructor for instancing a trip deals service
+	 * 
+	 * @param tripPricer - TripPricer
+	 */
+	public TripDealsService(TripPricer tripPricer) {
+		this(new TripPricerClient(tripPricer));
+	}
+
+	/**
+	 * Constructor for instancing a trip deals service calling a specific pricing
+	 * client
+	 * 
+	 * @param pricingClient - PricingClient, TripPricer or a simulation of it
+	 */
+	public TripDealsService(PricingClient pricingClient) {
+		this(pricingClient, BulkheadExecutionStrategy.getDefault(), DEFAULT_TRIP_DEALS_CACHE_SIZE,
+				DEFAULT_TRIP_DEALS_TIME_TO_LIVE, DEFAULT_REWARD_POINTS_BUCKET_SIZE, DEFAULT_QUOTE_DEADLINE);
+	}
+
+	/**
+	 * Constructor for instancing a trip deals service with a specific execution
+	 * strategy and cache
+	 * 
+	 * @param tripPricer             - TripPricer
+	 * @param executionStrategy      - ExecutionStrategy running TripPricer calls
+	 * @param tripDealsCacheSize     - maximum number of cached trips
+	 * @param tripDealsTimeToLive    - Duration before a trip is quoted again, zero
+	 *                               to keep quotes
+	 * @param rewardPointsBucketSize - reward points of a user are rounded down to
+	 *                               a multiple of it
+	 * @param quoteDeadline          - Duration after which quotes not received yet
+	 *                               are ignored
+	 */
+	public TripDealsService(TripPricer tripPricer, ExecutionStrategy executionStrategy, int tripDealsCacheSize,
+			Duration tripDealsTimeToLive, int rewardPointsBucketSize, Duration quoteDeadline) {
+		this(new TripPricerClient(tripPricer), executionStrategy, tripDealsCacheSize, tripDealsTimeToLive,
+				rewardPointsBucketSize, quoteDeadline);
+	}
+
+	/**
+	 * Constructor for instancing a trip deals service calling a specific pricing
+	 * client, with a specific execution strategy and cache
+	 * 
+	 * @param pricingClient          - PricingClient, TripPricer or a simulation of
+	 *                               it
+	 * @param executionStrategy      - ExecutionStrategy running TripPricer calls
+	 * @param tripDealsCacheSize     - maximum number of cached trips
+	 * @param tripDealsTimeToLive    - Duration before a trip is quoted again, zero
+	 *                               to keep quotes
+	 * @param rewardPointsBucketSize - reward points of a user are rounded down to
+	 *                               a multiple of it
+	 * @param quoteDeadline          - Duration after which quotes not received yet
+	 *                               are ignored
+	 */
+	public TripDealsService(PricingClient pricingClient, ExecutionStrategy executionStrategy,
+			int tripDealsCacheSize, Duration tripDealsTimeToLive, int rewardPointsBucketSize, Duration quoteDeadline) {
+		if (rewardPointsBucketSize <= 0) {
+			throw new IllegalArgumentException(
+					"Reward points bucket size must be positive : " + rewardPointsBucketSize);
+		}
+		this.pricingClient = pricingClient;
+		this.executionStrategy = executionStrategy;
+		this.quotesCache = new BoundedCache<>(tripDealsCacheSize, tripDealsTimeToLive);
+		this.rewardPointsBucketSize = rewardPointsBucketSize;
+		this.quoteDeadlineNanos = quoteDeadline.toNanos();
+	}
+
+	public BoundedCache<?, List<Provider>> getQuotesCache() {
+		return quotesCache;
+	}
+
+	/**
+	 * Register the timer of TripPricer calls
+	 * 
+	 * @param registry - MeterRegistry
+	 */
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		priceTimer = TourGuideMetrics.externalCallTimer(registry, ExternalDependency.TRIP_PRICER, "getPrice");
+	}
+
+	/**
+	 * Get trip deals of a user, at most 5 cheapest deals within the price points
+	 * of the user. Deals already given are returned while the trip of the user is
+	 * quoted, when it has changed.
+	 * 
+	 * @param user - User
+	 * @return tripDeals - List of Provider
+	 */
+	public List<Provider> getTripDeals(User user) {
+		try {
+			return getTripDealsAsync(user).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Get trip deals of a user, completed right away when the trip of the user is
+	 * already quoted or when the user already got deals
+	 * 
+	 * @param user - User
+	 * @return CompletableFuture of tripDeals
+	 */
+	public CompletableFuture<List<Provider>> getTripDealsAsync(User user) {
+		TripKey trip = getTrip(user);
+		List<Provider> quotes = quotesCache.getIfPresent(trip);
+		if (quotes != null) {
+			return CompletableFuture.completedFuture(setTripDeals(user, trip, quotes));
+		}
+		if (tripsByUser.containsKey(user.getUserId())) {
+			refresh(user, trip);
+			return CompletableFuture.completedFuture(user.getTripDeals());
+		}
+		return quotesCache.getAsync(trip, this::quote).thenApply(tripQuotes -> setTripDeals(user, trip, tripQuotes));
+	}
+
+	/**
+	 * Quote in background the trip of a user who already got deals, when it has
+	 * changed since
+	 * 
+	 * @param user - User
+	 * @return CompletableFuture<Void>
+	 */
+	public CompletableFuture<Void> refreshTripDeals(User user) {
+		TripKey lastTrip = tripsByUser.get(user.getUserId());
+		if (lastTrip == null) {
+			return CompletableFuture.completedFuture(null);
+		}
+		TripKey trip = getTrip(user);
+		if (trip.equals(lastTrip)) {
+			return CompletableFuture.completedFuture(null);
+		}
+		return refresh(user, trip);
+	}
+
+	private CompletableFuture<Void> refresh(User user, TripKey trip) {
+		return quotesCache.getAsync(trip, this::quote).handle((quotes, throwable) -> {
+			if (throwable != null) {
+				logger.warn("Trip deals of user " + user.getUserName() + " could not be refreshed", throwable);
+			} else {
+				setTripDeals(user, trip, quotes);
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * Select the deals of a user among the quotes of their trip
+	 */
+	private List<Provider> setTripDeals(User user, TripKey trip, List<Provider> quotes) {
+		UserPreferences userPreferences = user.getUserPreferences();
+		double lowerPricePoint = userPreferences.getLowerPricePoint().getNumber().doubleValue();
+		double highPricePoint = userPreferences.getHighPricePoint().getNumber().doubleValue();
+		// quotes are shared, deals are given with the id of the user
+		List<Provider> tripDeals = quotes.stream()
+				.filter(provider -> provider.price >= lowerPricePoint && provider.price <= highPricePoint)
+				.limit(TRIP_DEALS_COUNT).map(provider -> new Provider(user.getUserId(), provider.name, provider.price))
+				.collect(Collectors.toList());
+		tripsByUser.put(user.getUserId(), trip);
+		user.setTripDeals(tripDeals);
+		return tripDeals;
+	}
+
+	/**
+	 * Ask TripPricer for several quotes in parallel, keeping the ones received
+	 * before the deadline and the cheapest price of each provider
+	 */
+	private CompletableFuture<List<Provider>> quote(TripKey trip) {
+		List<CompletableFuture<List<Provider>>> quotes = new ArrayList<>(QUOTES_PER_TRIP);
+		for (int i = 0; i < QUOTES_PER_TRIP; i++) {
+			CompletableFuture<List<Provider>> quote;
+			try {
+				quote = executionStrategy.supplyAsync(ExternalDependency.TRIP_PRICER,
+						() -> priceTimer.record(() -> pricingClient.getPrice(tripPricerApiKey, UUID.randomUUID(),
+								trip.numberOfAdults, trip.numberOfChildren, trip.tripDuration, trip.rewardPoints)));
+			} catch (RuntimeException e) {
+				// bulkhead full
+				quote = new CompletableFuture<>();
+				quote.completeExceptionally(e);
+			}
+			quotes.add(quote.exceptionally(throwable -> {
+				logger.debug("Trip quote failed", throwable);
+				return null;
+			}).completeOnTimeout(null, quoteDeadlineNanos, TimeUnit.NANOSECONDS));
+		}
+		return CompletableFuture.allOf(quotes.toArray(new CompletableFuture[quotes.size()])).thenApply(v -> {
+			Map<String, Provider> cheapestByName = new LinkedHashMap<>();
+			for (CompletableFuture<List<Provider>> quote : quotes) {
+				List<Provider> providers = quote.join();
+				if (providers != null) {
+					providers.forEach(provider -> cheapestByName.merge(provider.name, provider,
+							(p1, p2) -> p2.price < p1.price ? p2 : p1));
+				}
+			}
+			if (cheapestByName.isEmpty()) {
+				// not cached, the trip is quoted again by the next caller
+				throw new IllegalStateException("No trip quote received for " + trip);
+			}
+			List<Provider> providers = new ArrayList<>(cheapestByName.values());
+			providers.sort(Comparator.comparingDouble(provider -> provider.price));
+			return Collections.unmodifiableList(providers);
+		});
+	}
+
+	private TripKey getTrip(User user) {
+		int cumulatativeRewardPoints = user.getUserRewards().stream().mapToInt(i -> i.getRewardPoints()).sum();
+		UserPreferences userPreferences = user.getUserPreferences();
+		return new TripKey(userPreferences.getNumberOfAdults(), userPreferences.getNumberOfChildren(),
+				userPreferences.getTripDuration(),
+				cumulatativeRewardPoints / rewardPointsBucketSize * rewardPointsBucketSize);
+	}
+
+	/**
+	 * Key of the quotes cache
+	 */
+	private static final class TripKey {
+		final int numberOfAdults;
+		final int numberOfChildren;
+		final int tripDuration;
+		final int rewardPoints;
+
+		TripKey(int numberOfAdults, int numberOfChildren, int tripDuration, int rewardPoints) {
+			this.numberOfAdults = numberOfAdults;
+			this.numberOfChildren = numberOfChildren;
+			this.tripDuration = tripDuration;
+			this.rewardPoints = rewardPoints;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof TripKey)) {
+				return false;
+			}
+			TripKey other = (TripKey) o;
+			return numberOfAdults == other.numberOfAdults && numberOfChildren == other.numberOfChildren
+					&& tripDuration == other.tripDuration && rewardPoints == other.rewardPoints;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(numberOfAdults, numberOfChildren, tripDuration, rewardPoints);
+		}
+
+		@Override
+		public String toString() {
+			return "trip of " + numberOfAdults + " adults, " + numberOfChildren + " children, " + tripDuration
+					+ " nights, " + rewardPoints + " reward points";
+		}
+	}
+
+}
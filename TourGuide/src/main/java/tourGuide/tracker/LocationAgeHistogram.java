@@ -0,0 +1,120 @@
+package tourGuide.tracker;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import tourGuide.user.UserRepository;
+
+/**
+ * Ages of the latest tracked locations of all users, counted in buckets bounded
+ * by multiples of the polling interval. With a tracker keeping up, every user
+ * is in the first two buckets.
+ *
+ */
+public class LocationAgeHistogram {
+
+	// bounds of the buckets, in polling intervals
+	private static final double[] BUCKET_INTERVALS = { 0.5, 1, 2, 4 };
+
+	private final List<Bucket> buckets;
+	private final int neverTracked;
+	private final long oldestAgeMillis;
+
+	private LocationAgeHistogram(List<Bucket> buckets, int neverTracked, long oldestAgeMillis) {
+		this.buckets = Collections.unmodifiableList(buckets);
+		this.neverTracked = neverTracked;
+		this.oldestAgeMillis = oldestAgeMillis;
+	}
+
+	/**
+	 * Count the users of a repository by age of their latest tracked location
+	 *
+	 * @param userRepository  - UserRepository
+	 * @param now             - time in milliseconds ages are counted from
+	 * @param pollingInterval - Duration between two cycles of the tracker
+	 * @return histogram - LocationAgeHistogram
+	 */
+	public static LocationAgeHistogram of(UserRepository userRepository, long now, Duration pollingInterval) {
+		long[] maxAges = new long[BUCKET_INTERVALS.length];
+		for (int i = 0; i < maxAges.length; i++) {
+			maxAges[i] = (long) (pollingInterval.toMillis() * BUCKET_INTERVALS[i]);
+		}
+		// last count is for ages over the last bound
+		int[] counts = new int[maxAges.length + 1];
+		int[] neverTracked = new int[1];
+		long[] oldestAge = { -1 };
+		userRepository.forEach(user -> {
+			Date latestLocationTimestamp = user.getLatestLocationTimestamp();
+			if (latestLocationTimestamp == null) {
+				neverTracked[0]++;
+				return;
+			}
+			long age = Math.max(now - latestLocationTimestamp.getTime(), 0);
+			int bucket = 0;
+			while (bucket < maxAges.length && age > maxAges[bucket]) {
+				bucket++;
+			}
+			counts[bucket]++;
+			oldestAge[0] = Math.max(oldestAge[0], age);
+		});
+
+		List<Bucket> buckets = new ArrayList<>(counts.length);
+		for (int i = 0; i < counts.length; i++) {
+			buckets.add(new Bucket(i < maxAges.length ? maxAges[i] : null, counts[i]));
+		}
+		return new LocationAgeHistogram(buckets, neverTracked[0], oldestAge[0]);
+	}
+
+	/**
+	 * Get the buckets, from the most recent locations to the oldest ones
+	 *
+	 * @return List of Bucket
+	 */
+	public List<Bucket> getBuckets() {
+		return buckets;
+	}
+
+	public int getNeverTracked() {
+		return neverTracked;
+	}
+
+	/**
+	 * Get the age of the oldest tracked location
+	 *
+	 * @return age in milliseconds, -1 when no user was tracked - long
+	 */
+	public long getOldestAgeMillis() {
+		return oldestAgeMillis;
+	}
+
+	/**
+	 * Number of users whose latest tracked location is at most a given age, and
+	 * older than the one of the previous bucket
+	 */
+	public static final class Bucket {
+		private final Long maxAgeMillis;
+		private final int users;
+
+		Bucket(Long maxAgeMillis, int users) {
+			this.maxAgeMillis = maxAgeMillis;
+			this.users = users;
+		}
+
+		/**
+		 * Get the maximum age of the bucket
+		 *
+		 * @return age in milliseconds, null for the last bucket - Long
+		 */
+		public Long getMaxAgeMillis() {
+			return maxAgeMillis;
+		}
+
+		public int getUsers() {
+			return users;
+		}
+	}
+
+}
@@ -0,0 +1,45 @@
+package tourGuide.tracker;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limiter spacing permits evenly, a permit not used does not allow a burst
+ * later
+ * 
+ */
+public class RateLimiter {
+
+	private final long intervalNanos;
+	private long nextPermitNanos = System.nanoTime();
+
+	/**
+	 * Constructor for a rate limiter
+	 * 
+	 * @param permitsPerSecond - int
+	 */
+	public RateLimiter(int permitsPerSecond) {
+		if (permitsPerSecond <= 0) {
+			throw new IllegalArgumentException("Permits per second must be positive : " + permitsPerSecond);
+		}
+		this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+	}
+
+	/**
+	 * Wait for the next permit
+	 * 
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void acquire() throws InterruptedException {
+		long waitNanos;
+		synchronized (this) {
+			long now = System.nanoTime();
+			long permitNanos = Math.max(nextPermitNanos, now);
+			nextPermitNanos = permitNanos + intervalNanos;
+			waitNanos = permitNanos - now;
+		}
+		if (waitNanos > 0) {
+			TimeUnit.NANOSECONDS.sleep(waitNanos);
+		}
+	}
+
+}
@@ -1,11 +1,19 @@
 package tourGuide.tracker;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
-import org.apache.commons.lang3.time.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,52 +23,227 @@ import tourGuide.user.User;
 
 /**
  * Object class for Tracking in TourGuide Application
- * 
+ *
+ * Each cycle splits users into shards started evenly over the polling
+ * interval, so that gpsUtil is not asked for every user at once. Trackings are
+ * started at a limited rate with a limited number in flight. A cycle ends when
+ * all its trackings are over, and the next one starts one polling interval
+ * after its start, or right after it ends when it took longer : cycles never
+ * overlap.
+ *
  */
-public class Tracker extends Thread {
+public class Tracker {
 	private Logger logger = LoggerFactory.getLogger(Tracker.class);
-	private static final long trackingPollingInterval = TimeUnit.MINUTES.toSeconds(5);
-	private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "tracker");
+		thread.setDaemon(true);
+		return thread;
+	});
 	private final TourGuideService tourGuideService;
-	private boolean stop = false;
+	private final Duration pollingInterval;
+	private final long pollingIntervalNanos;
+	private final int shardCount;
+	private final int maxTrackingsInFlight;
+	private final RateLimiter rateLimiter;
+	private final Semaphore trackingsInFlight;
+	private volatile boolean stop = false;
+
+	private volatile boolean cycleRunning = false;
+	private volatile long lastCycleDurationMillis = -1;
+	private volatile int lastCycleUserCount = 0;
+	// progress of the current cycle, or of the last one between two cycles
+	private volatile CycleProgress currentCycle;
+	private volatile Instant lastCycleEnd;
+	private final AtomicLong completedCycles = new AtomicLong();
+	private final LongAdder failedTrackings = new LongAdder();
 
 	public Tracker(TourGuideService tourGuideService) {
+		this(tourGuideService, new TrackerProperties());
+	}
+
+	/**
+	 * Constructor for a tracker, the first cycle starts right away
+	 *
+	 * @param tourGuideService  - TourGuideService
+	 * @param trackerProperties - TrackerProperties
+	 */
+	public Tracker(TourGuideService tourGuideService, TrackerProperties trackerProperties) {
+		if (trackerProperties.getShardCount() <= 0 || trackerProperties.getMaxTrackingsInFlight() <= 0) {
+			throw new IllegalArgumentException("Shard count and max trackings in flight must be positive");
+		}
 		this.tourGuideService = tourGuideService;
-		
-		executorService.submit(this);
+		this.pollingInterval = trackerProperties.getPollingInterval();
+		this.pollingIntervalNanos = pollingInterval.toNanos();
+		this.shardCount = trackerProperties.getShardCount();
+		this.maxTrackingsInFlight = trackerProperties.getMaxTrackingsInFlight();
+		this.rateLimiter = new RateLimiter(trackerProperties.getMaxTrackingsPerSecond());
+		this.trackingsInFlight = new Semaphore(maxTrackingsInFlight);
+
+		scheduler.execute(this::runCycle);
 	}
-	
+
 	/**
 	 * Assures to shut down the Tracker thread
 	 */
 	public void stopTracking() {
 		stop = true;
-		executorService.shutdownNow();
+		scheduler.shutdownNow();
 	}
-	
-	@Override
-	public void run() {
-		StopWatch stopWatch = new StopWatch();
-		while(true) {
-			if(Thread.currentThread().isInterrupted() || stop) {
-				logger.debug("Tracker stopping");
-				break;
+
+	/**
+	 * Track all users once, then schedule the next cycle
+	 */
+	private void runCycle() {
+		if (stop) {
+			return;
+		}
+		long cycleStart = System.nanoTime();
+		Instant cycleStartInstant = Instant.now();
+		cycleRunning = true;
+		try {
+			List<List<User>> shards = tourGuideService.getUserRepository().partition(shardCount);
+			int userCount = shards.stream().mapToInt(List::size).sum();
+			CycleProgress cycle = new CycleProgress(cycleStartInstant, userCount);
+			currentCycle = cycle;
+			logger.debug("Begin Tracker. Tracking " + userCount + " users in " + shards.size() + " shards.");
+
+			long shardIntervalNanos = pollingIntervalNanos / shardCount;
+			List<CompletableFuture<Void>> trackings = new ArrayList<>(userCount);
+			for (int i = 0; i < shards.size(); i++) {
+				sleepUntil(cycleStart + shardIntervalNanos * i);
+				for (User user : shards.get(i)) {
+					rateLimiter.acquire();
+					trackingsInFlight.acquire();
+					trackings.add(track(user, cycle));
+				}
 			}
-			
-			List<User> users = tourGuideService.getAllUsers();
-			logger.debug("Begin Tracker. Tracking " + users.size() + " users.");
-			stopWatch.start();
-			users.forEach(u -> tourGuideService.trackUserLocation(u));
-			stopWatch.stop();
-			logger.debug("Tracker Time Elapsed: " + TimeUnit.MILLISECONDS.toSeconds(stopWatch.getTime()) + " seconds."); 
-			stopWatch.reset();
+			CompletableFuture.allOf(trackings.toArray(new CompletableFuture[trackings.size()])).get();
+
+			lastCycleUserCount = userCount;
+			lastCycleDurationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - cycleStart);
+			lastCycleEnd = Instant.now();
+			completedCycles.incrementAndGet();
+			// shards are started over the polling interval, the duration is not the time taken to track users
+			logger.info("Tracker cycle over: " + cycle.completed.sum() + " users tracked, " + cycle.failed.sum()
+					+ " failed, in " + lastCycleDurationMillis + " ms for a polling interval of "
+					+ pollingInterval.toMillis() + " ms.");
+		} catch (InterruptedException e) {
+			logger.debug("Tracker stopping");
+			Thread.currentThread().interrupt();
+			return;
+		} catch (ExecutionException e) {
+			// trackings handle their own failures
+			logger.error("Tracker cycle failed", e);
+		} finally {
+			cycleRunning = false;
+		}
+
+		if (!stop) {
+			long delayNanos = Math.max(0, cycleStart + pollingIntervalNanos - System.nanoTime());
+			logger.debug("Tracker sleeping");
 			try {
-				logger.debug("Tracker sleeping");
-				TimeUnit.SECONDS.sleep(trackingPollingInterval);
-			} catch (InterruptedException e) {
-				break;
+				scheduler.schedule(this::runCycle, delayNanos, TimeUnit.NANOSECONDS);
+			} catch (RejectedExecutionException e) {
+				// stopped in the meantime
 			}
 		}
-		
+	}
+
+	/**
+	 * Track a user, releasing its in flight permit and counting it in the cycle
+	 * once done
+	 */
+	private CompletableFuture<Void> track(User user, CycleProgress cycle) {
+		CompletableFuture<?> tracking;
+		try {
+			tracking = tourGuideService.trackUserLocation(user);
+		} catch (RuntimeException e) {
+			CompletableFuture<Void> failed = new CompletableFuture<>();
+			failed.completeExceptionally(e);
+			tracking = failed;
+		}
+		return tracking.handle((visitedLocation, throwable) -> {
+			trackingsInFlight.release();
+			if (throwable == null) {
+				cycle.completed.increment();
+			} else {
+				cycle.failed.increment();
+				failedTrackings.increment();
+				logger.warn("Tracking of user " + user.getUserName() + " failed", throwable);
+			}
+			return null;
+		});
+	}
+
+	private static void sleepUntil(long nanoTime) throws InterruptedException {
+		long waitNanos = nanoTime - System.nanoTime();
+		if (waitNanos > 0) {
+			TimeUnit.NANOSECONDS.sleep(waitNanos);
+		}
+	}
+
+	public boolean isStopped() {
+		return stop;
+	}
+
+	public boolean isCycleRunning() {
+		return cycleRunning;
+	}
+
+	/**
+	 * Get the duration of the last completed cycle, from its start to the end of
+	 * its last tracking
+	 *
+	 * @return duration in milliseconds, -1 before the first cycle ends - long
+	 */
+	public long getLastCycleDurationMillis() {
+		return lastCycleDurationMillis;
+	}
+
+	public int getLastCycleUserCount() {
+		return lastCycleUserCount;
+	}
+
+	public long getCompletedCycleCount() {
+		return completedCycles.get();
+	}
+
+	public long getFailedTrackingCount() {
+		return failedTrackings.sum();
+	}
+
+	public int getTrackingsInFlight() {
+		return maxTrackingsInFlight - trackingsInFlight.availablePermits();
+	}
+
+	/**
+	 * Get the progress of the current cycle and the ages of the locations of
+	 * users
+	 *
+	 * @return status - TrackerStatus
+	 */
+	public TrackerStatus getStatus() {
+		CycleProgress cycle = currentCycle;
+		LocationAgeHistogram locationAge = LocationAgeHistogram.of(tourGuideService.getUserRepository(),
+				System.currentTimeMillis(), pollingInterval);
+		return new TrackerStatus(stop, pollingInterval.toMillis(), cycleRunning, cycle == null ? null : cycle.start,
+				lastCycleEnd, cycle == null ? 0 : cycle.userCount, cycle == null ? 0 : cycle.completed.sum(),
+				cycle == null ? 0 : cycle.failed.sum(), getTrackingsInFlight(), completedCycles.get(),
+				lastCycleDurationMillis, locationAge);
+	}
+
+	/**
+	 * Users of a cycle and how many of them are tracked so far
+	 */
+	private static final class CycleProgress {
+		private final Instant start;
+		private final int userCount;
+		private final LongAdder completed = new LongAdder();
+		private final LongAdder failed = new LongAdder();
+
+		private CycleProgress(Instant start, int userCount) {
+			this.start = start;
+			this.userCount = userCount;
+		}
 	}
 }
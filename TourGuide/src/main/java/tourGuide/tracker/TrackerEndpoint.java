@@ -0,0 +1,31 @@
+package tourGuide.tracker;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import tourGuide.service.TourGuideService;
+
+/**
+ * Actuator endpoint of the progress of the tracker, at /actuator/tracker
+ *
+ */
+@Endpoint(id = "tracker")
+public class TrackerEndpoint {
+
+	private final TourGuideService tourGuideService;
+
+	public TrackerEndpoint(TourGuideService tourGuideService) {
+		this.tourGuideService = tourGuideService;
+	}
+
+	/**
+	 * Get the status of the tracker
+	 *
+	 * @return status - TrackerStatus
+	 */
+	@ReadOperation
+	public TrackerStatus status() {
+		return tourGuideService.tracker.getStatus();
+	}
+
+}
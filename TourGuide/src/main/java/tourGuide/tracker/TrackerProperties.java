@@ -0,0 +1,53 @@
+package tourGuide.tracker;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the tracker, bound from tourguide.tracker.* properties
+ * 
+ */
+@ConfigurationProperties(prefix = "tourguide.tracker")
+public class TrackerProperties {
+
+	// time between the start of two cycles
+	private Duration pollingInterval = Duration.ofMinutes(5);
+	// users of a cycle are tracked in shards started evenly over the polling interval
+	private int shardCount = 60;
+	private int maxTrackingsPerSecond = 500;
+	private int maxTrackingsInFlight = 1000;
+
+	public Duration getPollingInterval() {
+		return pollingInterval;
+	}
+
+	public void setPollingInterval(Duration pollingInterval) {
+		this.pollingInterval = pollingInterval;
+	}
+
+	public int getShardCount() {
+		return shardCount;
+	}
+
+	public void setShardCount(int shardCount) {
+		this.shardCount = shardCount;
+	}
+
+	public int getMaxTrackingsPerSecond() {
+		return maxTrackingsPerSecond;
+	}
+
+	public void setMaxTrackingsPerSecond(int maxTrackingsPerSecond) {
+		this.maxTrackingsPerSecond = maxTrackingsPerSecond;
+	}
+
+	public int getMaxTrackingsInFlight() {
+		return maxTrackingsInFlight;
+	}
+
+	public void setMaxTrackingsInFlight(int maxTrackingsInFlight) {
+		this.maxTrackingsInFlight = maxTrackingsInFlight;
+	}
+
+}
@@ -0,0 +1,110 @@
+package tourGuide.tracker;
+
+import java.time.Instant;
+
+/**
+ * Progress of the tracker at one point in time : the current or last cycle, and
+ * the ages of the locations of users
+ *
+ */
+public class TrackerStatus {
+
+	private final boolean stopped;
+	private final long pollingIntervalMillis;
+	private final boolean cycleRunning;
+	private final Instant cycleStart;
+	private final Instant lastCycleEnd;
+	private final int cycleUserCount;
+	private final long cycleCompleted;
+	private final long cycleFailed;
+	private final int trackingsInFlight;
+	private final long completedCycleCount;
+	private final long lastCycleDurationMillis;
+	private final LocationAgeHistogram locationAge;
+
+	TrackerStatus(boolean stopped, long pollingIntervalMillis, boolean cycleRunning, Instant cycleStart,
+			Instant lastCycleEnd, int cycleUserCount, long cycleCompleted, long cycleFailed, int trackingsInFlight,
+			long completedCycleCount, long lastCycleDurationMillis, LocationAgeHistogram locationAge) {
+		this.stopped = stopped;
+		this.pollingIntervalMillis = pollingIntervalMillis;
+		this.cycleRunning = cycleRunning;
+		this.cycleStart = cycleStart;
+		this.lastCycleEnd = lastCycleEnd;
+		this.cycleUserCount = cycleUserCount;
+		this.cycleCompleted = cycleCompleted;
+		this.cycleFailed = cycleFailed;
+		this.trackingsInFlight = trackingsInFlight;
+		this.completedCycleCount = completedCycleCount;
+		this.lastCycleDurationMillis = lastCycleDurationMillis;
+		this.locationAge = locationAge;
+	}
+
+	public boolean isStopped() {
+		return stopped;
+	}
+
+	public long getPollingIntervalMillis() {
+		return pollingIntervalMillis;
+	}
+
+	public boolean isCycleRunning() {
+		return cycleRunning;
+	}
+
+	/**
+	 * Get the start of the current cycle, or of the last one between two cycles
+	 *
+	 * @return start of the cycle, null before the first one - Instant
+	 */
+	public Instant getCycleStart() {
+		return cycleStart;
+	}
+
+	/**
+	 * Get the end of the last completed cycle
+	 *
+	 * @return end of the cycle, null before the first one ends - Instant
+	 */
+	public Instant getLastCycleEnd() {
+		return lastCycleEnd;
+	}
+
+	public int getCycleUserCount() {
+		return cycleUserCount;
+	}
+
+	public long getCycleCompleted() {
+		return cycleCompleted;
+	}
+
+	public long getCycleFailed() {
+		return cycleFailed;
+	}
+
+	/**
+	 * Get the number of users of the cycle not tracked yet, including the ones
+	 * being tracked
+	 *
+	 * @return pending users - long
+	 */
+	public long getCyclePending() {
+		return Math.max(cycleUserCount - cycleCompleted - cycleFailed, 0);
+	}
+
+	public int getTrackingsInFlight() {
+		return trackingsInFlight;
+	}
+
+	public long getCompletedCycleCount() {
+		return completedCycleCount;
+	}
+
+	public long getLastCycleDurationMillis() {
+		return lastCycleDurationMillis;
+	}
+
+	public LocationAgeHistogram getLocationAge() {
+		return locationAge;
+	}
+
+}
@@ -0,0 +1,144 @@
+package tourGuide.user;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Last known location of every user, stored in columns indexed like the users
+ * of the {@link UserRepository}.
+ *
+ * Updates are short writes of one row. Reading takes a copy of the columns,
+ * which is a consistent view of the table at one point in time.
+ *
+ */
+public class LastLocationTable {
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private double[] latitudes = new double[INITIAL_CAPACITY];
+	private double[] longitudes = new double[INITIAL_CAPACITY];
+	private long[] times = new long[INITIAL_CAPACITY];
+	private boolean[] known = new boolean[INITIAL_CAPACITY];
+	// one past the highest index updated
+	private int size;
+
+	/**
+	 * Set the last location of a user
+	 *
+	 * @param index           - index of the user in the repository
+	 * @param visitedLocation - VisitedLocation
+	 */
+	public void update(int index, VisitedLocation visitedLocation) {
+		lock.writeLock().lock();
+		try {
+			if (index >= known.length) {
+				int capacity = Math.max(known.length * 2, index + 1);
+				latitudes = Arrays.copyOf(latitudes, capacity);
+				longitudes = Arrays.copyOf(longitudes, capacity);
+				times = Arrays.copyOf(times, capacity);
+				known = Arrays.copyOf(known, capacity);
+			}
+			latitudes[index] = visitedLocation.location.latitude;
+			longitudes[index] = visitedLocation.location.longitude;
+			times[index] = visitedLocation.timeVisited.getTime();
+			known[index] = true;
+			size = Math.max(size, index + 1);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Get a copy of the table
+	 *
+	 * @return snapshot - Snapshot
+	 */
+	public Snapshot snapshot() {
+		return snapshot(0, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Get a copy of a range of rows, so that large tables can be read a few rows
+	 * at a time
+	 *
+	 * @param from - index of the first row
+	 * @param to   - index after the last row, rows above the table size are not
+	 *             part of the copy
+	 * @return snapshot - Snapshot
+	 */
+	public Snapshot snapshot(int from, int to) {
+		if (from < 0 || to < from) {
+			throw new IllegalArgumentException("Invalid range " + from + " to " + to);
+		}
+		lock.readLock().lock();
+		try {
+			int end = Math.min(to, size);
+			int start = Math.min(from, end);
+			return new Snapshot(start, Arrays.copyOfRange(latitudes, start, end),
+					Arrays.copyOfRange(longitudes, start, end), Arrays.copyOfRange(times, start, end),
+					Arrays.copyOfRange(known, start, end));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Copy of rows of the table at one point in time, read with the indexes of
+	 * the table
+	 */
+	public static final class Snapshot {
+		private final int from;
+		private final double[] latitudes;
+		private final double[] longitudes;
+		private final long[] times;
+		private final boolean[] known;
+
+		Snapshot(int from, double[] latitudes, double[] longitudes, long[] times, boolean[] known) {
+			this.from = from;
+			this.latitudes = latitudes;
+			this.longitudes = longitudes;
+			this.times = times;
+			this.known = known;
+		}
+
+		public int getFrom() {
+			return from;
+		}
+
+		/**
+		 * Get the index after the last row of the snapshot
+		 *
+		 * @return size - int
+		 */
+		public int size() {
+			return from + known.length;
+		}
+
+		public boolean isKnown(int index) {
+			return known[index - from];
+		}
+
+		public double getLatitude(int index) {
+			return latitudes[index - from];
+		}
+
+		public double getLongitude(int index) {
+			return longitudes[index - from];
+		}
+
+		/**
+		 * Get the time of a location in milliseconds since the epoch
+		 *
+		 * @param index - index of the user in the repository
+		 * @return time - long
+		 */
+		public long getTime(int index) {
+			return times[index - from];
+		}
+	}
+
+}
@@ -0,0 +1,66 @@
+package tourGuide.user;
+
+/**
+ * Forward-only cursor over visited locations, read one at a time as
+ * primitives so that no object is created per location.
+ *
+ */
+public interface LocationCursor {
+
+	/**
+	 * Move to the next location
+	 *
+	 * @return true if there is a location to read - boolean
+	 */
+	boolean next();
+
+	double getLatitude();
+
+	double getLongitude();
+
+	/**
+	 * Get the time of the current location in milliseconds since the epoch
+	 *
+	 * @return time - long
+	 */
+	long getTime();
+
+	/**
+	 * Get a cursor over columns of locations of the same length, read in place
+	 *
+	 * @param latitudes  - double[]
+	 * @param longitudes - double[]
+	 * @param times      - long[] in milliseconds since the epoch
+	 * @return cursor - LocationCursor
+	 */
+	static LocationCursor of(double[] latitudes, double[] longitudes, long[] times) {
+		return new LocationCursor() {
+			private int index = -1;
+
+			@Override
+			public boolean next() {
+				if (index + 1 >= latitudes.length) {
+					return false;
+				}
+				index++;
+				return true;
+			}
+
+			@Override
+			public double getLatitude() {
+				return latitudes[index];
+			}
+
+			@Override
+			public double getLongitude() {
+				return longitudes[index];
+			}
+
+			@Override
+			public long getTime() {
+				return times[index];
+			}
+		};
+	}
+
+}
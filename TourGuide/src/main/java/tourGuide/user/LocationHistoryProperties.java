@@ -0,0 +1,76 @@
+package tourGuide.user;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the visited locations kept per user, bound from
+ * tourguide.location-history.* properties
+ * 
+ */
+@ConfigurationProperties(prefix = "tourguide.location-history")
+public class LocationHistoryProperties {
+
+	private int recentCapacity = LocationHistoryRetention.DEFAULT.getRecentCapacity();
+	private int archiveCapacity = LocationHistoryRetention.DEFAULT.getArchiveCapacity();
+	private Duration archiveInterval = LocationHistoryRetention.DEFAULT.getArchiveInterval();
+	// directory of the memory-mapped store of full histories, none when empty
+	private String storeDirectory = "";
+
+	public int getRecentCapacity() {
+		return recentCapacity;
+	}
+
+	public void setRecentCapacity(int recentCapacity) {
+		this.recentCapacity = recentCapacity;
+	}
+
+	public int getArchiveCapacity() {
+		return archiveCapacity;
+	}
+
+	public void setArchiveCapacity(int archiveCapacity) {
+		this.archiveCapacity = archiveCapacity;
+	}
+
+	public Duration getArchiveInterval() {
+		return archiveInterval;
+	}
+
+	public void setArchiveInterval(Duration archiveInterval) {
+		this.archiveInterval = archiveInterval;
+	}
+
+	public String getStoreDirectory() {
+		return storeDirectory;
+	}
+
+	public void setStoreDirectory(String storeDirectory) {
+		this.storeDirectory = storeDirectory;
+	}
+
+	/**
+	 * Open the store of full histories described by these properties
+	 * 
+	 * @return locationStore or null when no store directory is set -
+	 *         MappedLocationStore
+	 */
+	public MappedLocationStore openStore() {
+		if (storeDirectory == null || storeDirectory.isEmpty()) {
+			return null;
+		}
+		return new MappedLocationStore(Paths.get(storeDirectory));
+	}
+
+	/**
+	 * Get the retention described by these properties
+	 * 
+	 * @return retention - LocationHistoryRetention
+	 */
+	public LocationHistoryRetention toRetention() {
+		return new LocationHistoryRetention(recentCapacity, archiveCapacity, archiveInterval);
+	}
+
+}
@@ -0,0 +1,59 @@
+package tourGuide.user;
+
+import java.time.Duration;
+
+/**
+ * Object class for the retention of the visited locations of a user.
+ *
+ * The most recent locations are kept as they were visited. Older ones are
+ * downsampled : locations visited during the same archive interval are
+ * aggregated into a single one, at their average position and at the time of
+ * the last of them. The oldest aggregated locations are dropped.
+ *
+ */
+public final class LocationHistoryRetention {
+
+	// a day of locations tracked every 5 minutes, then a week of hourly locations
+	public static final LocationHistoryRetention DEFAULT = new LocationHistoryRetention(288, 168, Duration.ofHours(1));
+
+	private final int recentCapacity;
+	private final int archiveCapacity;
+	private final long archiveIntervalMillis;
+
+	/**
+	 * Constructor for a retention
+	 *
+	 * @param recentCapacity  - number of recent locations kept as visited
+	 * @param archiveCapacity - number of aggregated locations kept, 0 to drop
+	 *                        locations that are no longer recent
+	 * @param archiveInterval - Duration aggregated into one location
+	 */
+	public LocationHistoryRetention(int recentCapacity, int archiveCapacity, Duration archiveInterval) {
+		if (recentCapacity <= 0 || archiveCapacity < 0) {
+			throw new IllegalArgumentException("Recent capacity must be positive and archive capacity not negative");
+		}
+		if (archiveInterval.isNegative() || archiveInterval.isZero()) {
+			throw new IllegalArgumentException("Archive interval must be positive : " + archiveInterval);
+		}
+		this.recentCapacity = recentCapacity;
+		this.archiveCapacity = archiveCapacity;
+		this.archiveIntervalMillis = archiveInterval.toMillis();
+	}
+
+	public int getRecentCapacity() {
+		return recentCapacity;
+	}
+
+	public int getArchiveCapacity() {
+		return archiveCapacity;
+	}
+
+	public Duration getArchiveInterval() {
+		return Duration.ofMillis(archiveIntervalMillis);
+	}
+
+	long getArchiveIntervalMillis() {
+		return archiveIntervalMillis;
+	}
+
+}
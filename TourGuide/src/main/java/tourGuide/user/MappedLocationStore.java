@@ -0,0 +1,378 @@
+package tourGuide.user;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Off-heap store of the full location history of users, in memory-mapped
+ * files.
+ *
+ * Files are split into fixed-size segments of fixed-width records (latitude,
+ * longitude, time). Each user appends to its own chain of segments, a segment
+ * header holding the index of the next one. Only the first and last segments
+ * and the record count of each user are kept on heap, so history can grow past
+ * the heap without garbage collection cost. Cursors read records straight
+ * from the mapped files.
+ *
+ * Records are never written again once appended, a cursor reads the records
+ * appended before its creation while others are appended. The store is not a
+ * persistence layer : its files are recreated when it is opened. A directory is
+ * locked by the store using it until the store is closed, files mapped by a
+ * store are never truncated by another one.
+ *
+ */
+public class MappedLocationStore implements Closeable {
+
+	public static final int SEGMENT_RECORDS = 64;
+	public static final int DEFAULT_SEGMENTS_PER_FILE = 16384;
+	private static final int RECORD_BYTES = 3 * Long.BYTES;
+	// index of the next segment of the chain, padded to keep records aligned
+	private static final int SEGMENT_HEADER_BYTES = Long.BYTES;
+	private static final int SEGMENT_BYTES = SEGMENT_HEADER_BYTES + SEGMENT_RECORDS * RECORD_BYTES;
+	private static final int NO_SEGMENT = -1;
+	private static final String LOCK_FILE = "store.lock";
+	private static final String FILE_PREFIX = "locations-";
+	private static final String FILE_SUFFIX = ".dat";
+
+	private final Path directory;
+	private final int segmentsPerFile;
+	private final ConcurrentHashMap<UUID, Chain> chains = new ConcurrentHashMap<>();
+	private final AtomicInteger allocatedSegments = new AtomicInteger();
+	private volatile MappedByteBuffer[] files = new MappedByteBuffer[0];
+	private final FileChannel lockChannel;
+	private final FileLock lock;
+	private volatile boolean closed = false;
+
+	/**
+	 * Constructor for a store with default file size
+	 *
+	 * @param directory - Path of the directory of the files
+	 */
+	public MappedLocationStore(Path directory) {
+		this(directory, DEFAULT_SEGMENTS_PER_FILE);
+	}
+
+	/**
+	 * Constructor for a store, locking its directory and removing the files of
+	 * the previous store
+	 *
+	 * @param directory       - Path of the directory of the files
+	 * @param segmentsPerFile - number of segments mapped by each file
+	 * @throws IllegalStateException when the directory is used by another store
+	 */
+	public MappedLocationStore(Path directory, int segmentsPerFile) {
+		if (segmentsPerFile <= 0 || (long) segmentsPerFile * SEGMENT_BYTES > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Invalid number of segments per file : " + segmentsPerFile);
+		}
+		this.directory = directory;
+		this.segmentsPerFile = segmentsPerFile;
+		try {
+			Files.createDirectories(directory);
+			lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		try {
+			lock = tryLock(lockChannel);
+			if (lock == null) {
+				throw new IllegalStateException("Location store directory already in use : " + directory);
+			}
+			deleteFiles();
+		} catch (RuntimeException e) {
+			closeQuietly(lockChannel);
+			throw e;
+		}
+	}
+
+	private static FileLock tryLock(FileChannel channel) {
+		try {
+			return channel.tryLock();
+		} catch (OverlappingFileLockException e) {
+			// locked by a store of this process
+			return null;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Delete the files of the previous store. Its mappings stay valid until they
+	 * are released, unlike truncated files.
+	 */
+	private void deleteFiles() {
+		try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+			for (Path path : paths) {
+				Files.delete(path);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Release the mapped files and the lock of the directory. Histories of the
+	 * store are no longer readable.
+	 */
+	@Override
+	public synchronized void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		chains.clear();
+		// mappings are released once no longer referenced
+		files = new MappedByteBuffer[0];
+		try {
+			lock.release();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			closeQuietly(lockChannel);
+		}
+	}
+
+	private static void closeQuietly(FileChannel channel) {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			// nothing left to release
+		}
+	}
+
+	/**
+	 * Append a visited location to the history of a user
+	 *
+	 * @param userId          - UUID
+	 * @param visitedLocation - VisitedLocation
+	 */
+	public void append(UUID userId, VisitedLocation visitedLocation) {
+		if (closed) {
+			throw new IllegalStateException("Location store is closed : " + directory);
+		}
+		Chain chain = chains.computeIfAbsent(userId, id -> new Chain(0));
+		synchronized (chain) {
+			int position = (int) (chain.count % SEGMENT_RECORDS);
+			if (position == 0) {
+				int segment = allocateSegment();
+				if (chain.last == NO_SEGMENT) {
+					chain.first = segment;
+				} else {
+					buffer(chain.last).putInt(offset(chain.last), segment);
+				}
+				chain.last = segment;
+			}
+			MappedByteBuffer buffer = buffer(chain.last);
+			int recordOffset = offset(chain.last) + SEGMENT_HEADER_BYTES + position * RECORD_BYTES;
+			buffer.putDouble(recordOffset, visitedLocation.location.latitude);
+			buffer.putDouble(recordOffset + Double.BYTES, visitedLocation.location.longitude);
+			buffer.putLong(recordOffset + 2 * Double.BYTES, visitedLocation.timeVisited.getTime());
+			chain.count++;
+		}
+	}
+
+	/**
+	 * Get the position after the last location of a user, which is the number of
+	 * its locations unless its history was reset
+	 *
+	 * @param userId - UUID
+	 * @return count - long
+	 */
+	public long count(UUID userId) {
+		Chain chain = chains.get(userId);
+		if (chain == null) {
+			return 0;
+		}
+		synchronized (chain) {
+			return chain.start + chain.count;
+		}
+	}
+
+	/**
+	 * Get a cursor over locations of a user, in order of addition
+	 *
+	 * @param userId - UUID
+	 * @param from   - position of the first location
+	 * @param to     - position after the last location, locations appended after
+	 *               the cursor is created are left out
+	 * @return cursor - LocationCursor
+	 */
+	public LocationCursor cursor(UUID userId, long from, long to) {
+		Chain chain = chains.get(userId);
+		if (chain == null) {
+			return new MappedCursor(NO_SEGMENT, 0, 0);
+		}
+		int first;
+		long firstPosition;
+		long count;
+		synchronized (chain) {
+			first = chain.first;
+			firstPosition = chain.start;
+			count = chain.count;
+		}
+		long end = Math.min(to, firstPosition + count) - firstPosition;
+		long start = Math.min(Math.max(from - firstPosition, 0), Math.max(end, 0));
+		if (end <= start) {
+			return new MappedCursor(NO_SEGMENT, 0, 0);
+		}
+		int segment = first;
+		// whole segments before the first location are skipped
+		for (long skipped = start / SEGMENT_RECORDS; skipped > 0; skipped--) {
+			segment = buffer(segment).getInt(offset(segment));
+		}
+		return new MappedCursor(segment, (int) (start % SEGMENT_RECORDS), end - start);
+	}
+
+	/**
+	 * Remove the history of a user, its segments are not reused
+	 *
+	 * @param userId - UUID
+	 */
+	public void clear(UUID userId) {
+		chains.remove(userId);
+	}
+
+	/**
+	 * Remove the history of a user, the next location appended getting the given
+	 * position
+	 *
+	 * @param userId        - UUID
+	 * @param firstPosition - position of the next location
+	 */
+	public void reset(UUID userId, long firstPosition) {
+		chains.put(userId, new Chain(firstPosition));
+	}
+
+	public int getAllocatedSegmentCount() {
+		return allocatedSegments.get();
+	}
+
+	public int getFileCount() {
+		return files.length;
+	}
+
+	private int allocateSegment() {
+		int segment = allocatedSegments.getAndIncrement();
+		int file = segment / segmentsPerFile;
+		if (file >= files.length) {
+			mapFiles(file);
+		}
+		buffer(segment).putInt(offset(segment), NO_SEGMENT);
+		return segment;
+	}
+
+	/**
+	 * Map files up to the given one
+	 */
+	private synchronized void mapFiles(int file) {
+		if (closed) {
+			throw new IllegalStateException("Location store is closed : " + directory);
+		}
+		MappedByteBuffer[] current = files;
+		if (file < current.length) {
+			return;
+		}
+		List<MappedByteBuffer> mapped = new ArrayList<>(List.of(current));
+		long fileBytes = (long) segmentsPerFile * SEGMENT_BYTES;
+		for (int i = current.length; i <= file; i++) {
+			Path path = directory.resolve(FILE_PREFIX + i + FILE_SUFFIX);
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+					StandardOpenOption.WRITE)) {
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileBytes);
+				buffer.order(ByteOrder.nativeOrder());
+				mapped.add(buffer);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		files = mapped.toArray(new MappedByteBuffer[mapped.size()]);
+	}
+
+	private MappedByteBuffer buffer(int segment) {
+		return files[segment / segmentsPerFile];
+	}
+
+	private int offset(int segment) {
+		return (segment % segmentsPerFile) * SEGMENT_BYTES;
+	}
+
+	/**
+	 * Segments of a user, changed while holding its lock
+	 */
+	private static final class Chain {
+		// position of the first location
+		final long start;
+		int first = NO_SEGMENT;
+		int last = NO_SEGMENT;
+		long count;
+
+		Chain(long start) {
+			this.start = start;
+		}
+	}
+
+	/**
+	 * Cursor reading records from the mapped files
+	 */
+	private final class MappedCursor implements LocationCursor {
+		private int segment;
+		private int position;
+		private long remaining;
+		private int recordOffset = -1;
+
+		MappedCursor(int segment, int position, long remaining) {
+			this.segment = segment;
+			// position before the first record to read
+			this.position = position - 1;
+			this.remaining = remaining;
+		}
+
+		@Override
+		public boolean next() {
+			if (remaining == 0) {
+				return false;
+			}
+			remaining--;
+			position++;
+			if (position == SEGMENT_RECORDS) {
+				segment = buffer(segment).getInt(offset(segment));
+				position = 0;
+			}
+			recordOffset = offset(segment) + SEGMENT_HEADER_BYTES + position * RECORD_BYTES;
+			return true;
+		}
+
+		@Override
+		public double getLatitude() {
+			return buffer(segment).getDouble(recordOffset);
+		}
+
+		@Override
+		public double getLongitude() {
+			return buffer(segment).getDouble(recordOffset + Double.BYTES);
+		}
+
+		@Override
+		public long getTime() {
+			return buffer(segment).getLong(recordOffset + 2 * Double.BYTES);
+		}
+	}
+
+}
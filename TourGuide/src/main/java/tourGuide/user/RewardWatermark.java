@@ -0,0 +1,43 @@
+package tourGuide.user;
+
+/**
+ * Object class remembering how many visited locations of a user have already
+ * been evaluated for rewards, and with which proximity settings. Locations are
+ * counted from the first one ever visited, so that the count still holds once
+ * older locations are no longer kept.
+ * 
+ */
+public final class RewardWatermark {
+
+	public static final RewardWatermark NONE = new RewardWatermark(-1, 0);
+
+	private final int proximityVersion;
+	private final long evaluatedLocations;
+
+	public RewardWatermark(int proximityVersion, long evaluatedLocations) {
+		this.proximityVersion = proximityVersion;
+		this.evaluatedLocations = evaluatedLocations;
+	}
+
+	public int getProximityVersion() {
+		return proximityVersion;
+	}
+
+	public long getEvaluatedLocations() {
+		return evaluatedLocations;
+	}
+
+	/**
+	 * Verify if this watermark is further than another one by returning true
+	 * 
+	 * @param other - RewardWatermark
+	 * @return Boolean
+	 */
+	public boolean isAfter(RewardWatermark other) {
+		if (proximityVersion != other.proximityVersion) {
+			return proximityVersion > other.proximityVersion;
+		}
+		return evaluatedLocations > other.evaluatedLocations;
+	}
+
+}
@@ -1,9 +1,13 @@
 package tourGuide.user;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
 
 import gpsUtil.location.VisitedLocation;
 import tripPricer.Provider;
@@ -18,12 +22,48 @@ public class User {
 	private final String userName;
 	private String phoneNumber;
 	private String emailAddress;
-	private Date latestLocationTimestamp;
-	private List<VisitedLocation> visitedLocations = new ArrayList<>();
-	private List<UserReward> userRewards = new ArrayList<>();
+	// time of the latest tracked location, null before the user is tracked
+	private volatile Date latestLocationTimestamp;
+	private final VisitedLocationLog visitedLocations;
+	// replaced as a whole when a reward is added, so that every read sees the same rewards
+	private volatile Rewards userRewards = Rewards.NONE;
 	private UserPreferences userPreferences = new UserPreferences();
-	private List<Provider> tripDeals = new ArrayList<>();
+	// replaced in background when deals are quoted again
+	private volatile List<Provider> tripDeals = new ArrayList<>();
+	private final AtomicReference<RewardWatermark> rewardWatermark = new AtomicReference<>(RewardWatermark.NONE);
 	public User(UUID userId, String userName, String phoneNumber, String emailAddress) {
+		this(userId, userName, phoneNumber, emailAddress, LocationHistoryRetention.DEFAULT);
+	}
+
+	/**
+	 * Constructor for a user keeping a specific history of visited locations
+	 * 
+	 * @param userId                   - UUID
+	 * @param userName                 - String
+	 * @param phoneNumber              - String
+	 * @param emailAddress             - String
+	 * @param locationHistoryRetention - LocationHistoryRetention
+	 */
+	public User(UUID userId, String userName, String phoneNumber, String emailAddress,
+			LocationHistoryRetention locationHistoryRetention) {
+		this(userId, userName, phoneNumber, emailAddress, locationHistoryRetention, null);
+	}
+
+	/**
+	 * Constructor for a user keeping a specific history of visited locations, and
+	 * its full history off heap
+	 * 
+	 * @param userId                   - UUID
+	 * @param userName                 - String
+	 * @param phoneNumber              - String
+	 * @param emailAddress             - String
+	 * @param locationHistoryRetention - LocationHistoryRetention
+	 * @param locationStore            - MappedLocationStore, null to keep only
+	 *                                 retained locations
+	 */
+	public User(UUID userId, String userName, String phoneNumber, String emailAddress,
+			LocationHistoryRetention locationHistoryRetention, MappedLocationStore locationStore) {
+		this.visitedLocations = new VisitedLocationLog(userId, locationHistoryRetention, locationStore);
 		this.userId = userId;
 		this.userName = userName;
 		this.phoneNumber = phoneNumber;
@@ -62,26 +102,127 @@ public class User {
 		return latestLocationTimestamp;
 	}
 	
-	public void addToVisitedLocations(VisitedLocation visitedLocation) {
-		visitedLocations.add(visitedLocation);
+	/**
+	 * Add a visited location
+	 * 
+	 * @param visitedLocation - VisitedLocation
+	 * @return position of the location among all visited locations - long
+	 */
+	public long addToVisitedLocations(VisitedLocation visitedLocation) {
+		return visitedLocations.add(visitedLocation);
+	}
+
+	/**
+	 * Copy the locations kept so far into a list
+	 * 
+	 * @param locations - List of VisitedLocation the locations are added to
+	 * @return count of visited locations when copied - long
+	 */
+	public long copyVisitedLocationsTo(List<VisitedLocation> locations) {
+		return visitedLocations.copyTo(locations);
+	}
+
+	/**
+	 * Replace the visited locations by locations copied from a user
+	 * 
+	 * @param locations            - List of VisitedLocation
+	 * @param visitedLocationCount - count of visited locations when copied
+	 */
+	public void restoreVisitedLocations(List<VisitedLocation> locations, long visitedLocationCount) {
+		visitedLocations.restore(locations, visitedLocationCount);
+		rewardWatermark.set(RewardWatermark.NONE);
 	}
 	
+	/**
+	 * Get the locations kept so far, older ones being aggregated, later visits are
+	 * not part of the returned list
+	 * 
+	 * @return List of VisitedLocation
+	 */
 	public List<VisitedLocation> getVisitedLocations() {
-		return visitedLocations;
+		return visitedLocations.snapshot();
+	}
+
+	/**
+	 * Get the number of locations visited, including the ones no longer kept as
+	 * visited
+	 * 
+	 * @return count of visited locations - long
+	 */
+	public long getVisitedLocationCount() {
+		return visitedLocations.getSequence();
+	}
+
+	/**
+	 * Get recent visited locations by position among all visited locations, the
+	 * ones no longer recent are left out
+	 * 
+	 * @param from - position of the first location
+	 * @param to   - position after the last location
+	 * @return List of VisitedLocation
+	 */
+	public List<VisitedLocation> getVisitedLocations(long from, long to) {
+		return visitedLocations.getRecent(from, to);
+	}
+
+	/**
+	 * Get a cursor over visited locations by position among all visited
+	 * locations, read from the location store of the user if any
+	 * 
+	 * @param from - position of the first location
+	 * @param to   - position after the last location
+	 * @return cursor - LocationCursor
+	 */
+	public LocationCursor getVisitedLocationCursor(long from, long to) {
+		return visitedLocations.cursor(from, to);
+	}
+
+	/**
+	 * Get a cursor over the whole location history of the user
+	 * 
+	 * @return cursor - LocationCursor
+	 */
+	public LocationCursor getVisitedLocationCursor() {
+		return visitedLocations.cursor();
 	}
 	
 	public void clearVisitedLocations() {
 		visitedLocations.clear();
+		rewardWatermark.set(RewardWatermark.NONE);
 	}
 	
-	public void addUserReward(UserReward userReward) {
-		if(this.userRewards.stream().noneMatch(r -> r.attraction.attractionName.equals(userReward.attraction.attractionName))) {
-			userRewards.add(userReward);
+	/**
+	 * Add a reward unless the user already has one for the same attraction
+	 * 
+	 * @param userReward - UserReward
+	 * @return true if the reward has been added - boolean
+	 */
+	public boolean addUserReward(UserReward userReward) {
+		synchronized (this) {
+			Rewards current = userRewards;
+			if (current.byAttraction.containsKey(userReward.attraction.attractionId)) {
+				return false;
+			}
+			userRewards = current.with(userReward);
 		}
+		return true;
 	}
 	
+	public boolean hasUserReward(UUID attractionId) {
+		return userRewards.byAttraction.containsKey(attractionId);
+	}
+	
+	public int getUserRewardCount() {
+		return userRewards.inOrder.size();
+	}
+	
+	/**
+	 * Get the rewards of the user when called, in order of addition
+	 * 
+	 * @return List of UserReward
+	 */
 	public List<UserReward> getUserRewards() {
-		return userRewards;
+		return userRewards.inOrder;
 	}
 	
 	public UserPreferences getUserPreferences() {
@@ -92,8 +233,33 @@ public class User {
 		this.userPreferences = userPreferences;
 	}
 
+	/**
+	 * Get the last visited location
+	 * 
+	 * @return visitedLocation or null if the user has no location - VisitedLocation
+	 */
 	public VisitedLocation getLastVisitedLocation() {
-		return visitedLocations.get(visitedLocations.size() - 1);
+		return visitedLocations.getLast();
+	}
+	
+	public RewardWatermark getRewardWatermark() {
+		return rewardWatermark.get();
+	}
+
+	/**
+	 * Move the reward watermark forward, unless another evaluation already went
+	 * further
+	 * 
+	 * @param watermark - RewardWatermark
+	 */
+	public void advanceRewardWatermark(RewardWatermark watermark) {
+		RewardWatermark current;
+		do {
+			current = rewardWatermark.get();
+			if (!watermark.isAfter(current)) {
+				return;
+			}
+		} while (!rewardWatermark.compareAndSet(current, watermark));
 	}
 	
 	public void setTripDeals(List<Provider> tripDeals) {
@@ -104,4 +270,29 @@ public class User {
 		return tripDeals;
 	}
 
+	/**
+	 * Rewards of a user by attractionId and in order of addition, never changed
+	 * once built
+	 */
+	private static final class Rewards {
+		static final Rewards NONE = new Rewards(Collections.emptyMap(), Collections.emptyList());
+
+		final Map<UUID, UserReward> byAttraction;
+		final List<UserReward> inOrder;
+
+		private Rewards(Map<UUID, UserReward> byAttraction, List<UserReward> inOrder) {
+			this.byAttraction = byAttraction;
+			this.inOrder = inOrder;
+		}
+
+		Rewards with(UserReward userReward) {
+			Map<UUID, UserReward> newByAttraction = new HashMap<>(byAttraction);
+			newByAttraction.put(userReward.attraction.attractionId, userReward);
+			List<UserReward> newInOrder = new ArrayList<>(inOrder.size() + 1);
+			newInOrder.addAll(inOrder);
+			newInOrder.add(userReward);
+			return new Rewards(newByAttraction, Collections.unmodifiableList(newInOrder));
+		}
+	}
+
 }
@@ -0,0 +1,187 @@
+package tourGuide.user;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Thread-safe store of the users of TourGuide Application.
+ *
+ * Users are indexed by name and by id. They are also kept in an append-only
+ * array, in order of addition, so that all users can be read, iterated and
+ * split without locks and without copying them into a new list. Only additions
+ * are synchronized.
+ *
+ */
+public class UserRepository {
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final ConcurrentHashMap<String, User> usersByName = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<UUID, User> usersById = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<UUID, Integer> indexesById = new ConcurrentHashMap<>();
+
+	// the array is always published before the size, a reader seeing a size
+	// always sees an array holding that many users
+	private volatile User[] users = new User[INITIAL_CAPACITY];
+	private volatile int size;
+
+	private final List<User> allUsers = new UsersView(0, -1);
+
+	/**
+	 * Add a user if no user has the same userName
+	 *
+	 * @param user - User
+	 * @return true if the user has been added - boolean
+	 */
+	public boolean add(User user) {
+		if (usersByName.containsKey(user.getUserName())) {
+			return false;
+		}
+		synchronized (this) {
+			if (usersByName.putIfAbsent(user.getUserName(), user) != null) {
+				return false;
+			}
+			User[] array = users;
+			int index = size;
+			if (index == array.length) {
+				User[] grown = new User[array.length * 2];
+				System.arraycopy(array, 0, grown, 0, index);
+				grown[index] = user;
+				users = grown;
+			} else {
+				array[index] = user;
+			}
+			size = index + 1;
+			usersById.put(user.getUserId(), user);
+			indexesById.put(user.getUserId(), index);
+			return true;
+		}
+	}
+
+	/**
+	 * Get a user by his userName
+	 *
+	 * @param userName - String
+	 * @return user or null - User
+	 */
+	public User getUser(String userName) {
+		return usersByName.get(userName);
+	}
+
+	/**
+	 * Get a user by his id
+	 *
+	 * @param userId - UUID
+	 * @return user or null - User
+	 */
+	public User getUser(UUID userId) {
+		return usersById.get(userId);
+	}
+
+	/**
+	 * Get the position of a user in order of addition
+	 *
+	 * @param userId - UUID
+	 * @return index, -1 if the user is unknown - int
+	 */
+	public int indexOf(UUID userId) {
+		Integer index = indexesById.get(userId);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * Get a user by his position in order of addition
+	 *
+	 * @param index - int
+	 * @return user - User
+	 */
+	public User get(int index) {
+		int currentSize = size;
+		if (index < 0 || index >= currentSize) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + currentSize);
+		}
+		return users[index];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get an unmodifiable view of all users, growing with the repository. Its
+	 * iterators and spliterators walk the users present when they start.
+	 *
+	 * @return List of User
+	 */
+	public List<User> getAllUsers() {
+		return allUsers;
+	}
+
+	/**
+	 * Split the users present now into consecutive views of about the same size
+	 *
+	 * @param count - maximum number of partitions
+	 * @return List of partitions - List of List of User
+	 */
+	public List<List<User>> partition(int count) {
+		if (count <= 0) {
+			throw new IllegalArgumentException("Partition count must be positive : " + count);
+		}
+		int currentSize = size;
+		int partitionCount = Math.min(count, currentSize);
+		List<List<User>> partitions = new ArrayList<>(partitionCount);
+		for (int i = 0; i < partitionCount; i++) {
+			int from = (int) ((long) currentSize * i / partitionCount);
+			int to = (int) ((long) currentSize * (i + 1) / partitionCount);
+			partitions.add(new UsersView(from, to));
+		}
+		return partitions;
+	}
+
+	/**
+	 * Apply an action to every user present now, without copying them
+	 *
+	 * @param action - Consumer of User
+	 */
+	public void forEach(Consumer<? super User> action) {
+		int currentSize = size;
+		User[] array = users;
+		for (int i = 0; i < currentSize; i++) {
+			action.accept(array[i]);
+		}
+	}
+
+	/**
+	 * Read-only view over a range of the users array, up to the current size when
+	 * its end is negative
+	 */
+	private final class UsersView extends AbstractList<User> implements RandomAccess {
+		private final int from;
+		private final int to;
+
+		UsersView(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public User get(int index) {
+			int currentSize = size();
+			if (index < 0 || index >= currentSize) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + currentSize);
+			}
+			return users[from + index];
+		}
+
+		@Override
+		public int size() {
+			return (to < 0 ? UserRepository.this.size : to) - from;
+		}
+	}
+
+}
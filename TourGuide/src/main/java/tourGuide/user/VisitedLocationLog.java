@@ -0,0 +1,403 @@
+package tourGuide.user;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Bounded log of the locations visited by a user.
+ *
+ * Recent locations are kept in a ring buffer of primitive latitudes, longitudes
+ * and times. A location leaving the ring buffer is aggregated into a second
+ * ring buffer holding one location per archive interval, see
+ * {@link LocationHistoryRetention}. Each added location gets a sequence
+ * number, counting every location ever added, so that new locations can be
+ * found again after older ones have been downsampled.
+ *
+ * When a {@link MappedLocationStore} is given, every location is also appended
+ * to it, so that the full history can be read with a cursor.
+ *
+ * Changes and copies are synchronized, the last location is read without
+ * locks.
+ *
+ */
+public class VisitedLocationLog {
+
+	private final UUID userId;
+	private final LocationHistoryRetention retention;
+	// full history, null when only retained locations are kept
+	private final MappedLocationStore locationStore;
+	private Ring recent;
+	private Ring archive;
+	// number of locations added since the log was created or cleared
+	private long sequence;
+	private volatile VisitedLocation last;
+
+	/**
+	 * Constructor for the log of a user
+	 *
+	 * @param userId    - UUID of the user, given to the locations read from the
+	 *                  log
+	 * @param retention - LocationHistoryRetention
+	 */
+	public VisitedLocationLog(UUID userId, LocationHistoryRetention retention) {
+		this(userId, retention, null);
+	}
+
+	/**
+	 * Constructor for the log of a user keeping its full history off heap
+	 *
+	 * @param userId        - UUID of the user, given to the locations read from
+	 *                      the log
+	 * @param retention     - LocationHistoryRetention
+	 * @param locationStore - MappedLocationStore, null to keep only retained
+	 *                      locations
+	 */
+	public VisitedLocationLog(UUID userId, LocationHistoryRetention retention, MappedLocationStore locationStore) {
+		this.userId = userId;
+		this.retention = retention;
+		this.locationStore = locationStore;
+		this.recent = new Ring(retention.getRecentCapacity(), false);
+		this.archive = new Ring(retention.getArchiveCapacity(), true);
+	}
+
+	/**
+	 * Append a visited location
+	 *
+	 * @param visitedLocation - VisitedLocation
+	 * @return sequence number of the location - long
+	 */
+	public synchronized long add(VisitedLocation visitedLocation) {
+		if (recent.isFull()) {
+			archiveOldestRecent();
+		}
+		recent.add(visitedLocation.location.latitude, visitedLocation.location.longitude,
+				visitedLocation.timeVisited.getTime());
+		if (locationStore != null) {
+			locationStore.append(userId, visitedLocation);
+		}
+		last = visitedLocation;
+		return sequence++;
+	}
+
+	/**
+	 * Replace the log by locations kept by another log, the last one getting the
+	 * sequence number before the given one
+	 *
+	 * @param locations - List of VisitedLocation, aggregated ones first
+	 * @param sequence  - number of locations added to the other log
+	 */
+	public synchronized void restore(List<VisitedLocation> locations, long sequence) {
+		if (sequence < locations.size()) {
+			throw new IllegalArgumentException("Sequence " + sequence + " below " + locations.size() + " locations");
+		}
+		recent = new Ring(retention.getRecentCapacity(), false);
+		archive = new Ring(retention.getArchiveCapacity(), true);
+		last = null;
+		this.sequence = sequence - locations.size();
+		if (locationStore != null) {
+			locationStore.reset(userId, this.sequence);
+		}
+		for (VisitedLocation visitedLocation : locations) {
+			add(visitedLocation);
+		}
+	}
+
+	/**
+	 * Move the oldest recent location to the archive, into the location of its
+	 * interval if the archive already has it
+	 */
+	private void archiveOldestRecent() {
+		double latitude = recent.getLatitude(0);
+		double longitude = recent.getLongitude(0);
+		long time = recent.getTime(0);
+		recent.removeOldest();
+		if (retention.getArchiveCapacity() == 0) {
+			return;
+		}
+		long intervalMillis = retention.getArchiveIntervalMillis();
+		int newest = archive.size() - 1;
+		if (newest >= 0
+				&& Math.floorDiv(archive.getTime(newest), intervalMillis) == Math.floorDiv(time, intervalMillis)) {
+			archive.mergeIntoNewest(latitude, longitude, time);
+			return;
+		}
+		if (archive.isFull()) {
+			archive.removeOldest();
+		}
+		archive.add(latitude, longitude, time);
+	}
+
+	/**
+	 * Remove all visited locations
+	 */
+	public synchronized void clear() {
+		recent = new Ring(retention.getRecentCapacity(), false);
+		archive = new Ring(retention.getArchiveCapacity(), true);
+		sequence = 0;
+		last = null;
+		if (locationStore != null) {
+			locationStore.clear(userId);
+		}
+	}
+
+	/**
+	 * Get the number of locations kept, recent and aggregated
+	 *
+	 * @return size - int
+	 */
+	public synchronized int size() {
+		return archive.size() + recent.size();
+	}
+
+	/**
+	 * Get the number of locations added since the log was created or cleared,
+	 * which is the sequence number of the next location
+	 *
+	 * @return sequence - long
+	 */
+	public synchronized long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Get the last visited location
+	 *
+	 * @return visitedLocation or null when the log is empty - VisitedLocation
+	 */
+	public VisitedLocation getLast() {
+		return last;
+	}
+
+	/**
+	 * Get recent locations by sequence number. Locations no longer recent are
+	 * left out.
+	 *
+	 * @param from - sequence number of the first location
+	 * @param to   - sequence number after the last location
+	 * @return List of VisitedLocation
+	 */
+	public synchronized List<VisitedLocation> getRecent(long from, long to) {
+		long firstRecent = sequence - recent.size();
+		long start = Math.max(from, firstRecent);
+		long end = Math.min(to, sequence);
+		if (start >= end) {
+			return Collections.emptyList();
+		}
+		List<VisitedLocation> locations = new ArrayList<>((int) (end - start));
+		for (long s = start; s < end; s++) {
+			locations.add(recent.toVisitedLocation(userId, (int) (s - firstRecent)));
+		}
+		return locations;
+	}
+
+	/**
+	 * Get a cursor over locations by sequence number. With a location store every
+	 * location is read from it, otherwise locations no longer recent are left
+	 * out.
+	 *
+	 * @param from - sequence number of the first location
+	 * @param to   - sequence number after the last location
+	 * @return cursor - LocationCursor
+	 */
+	public LocationCursor cursor(long from, long to) {
+		if (locationStore != null) {
+			return locationStore.cursor(userId, from, to);
+		}
+		synchronized (this) {
+			long firstRecent = sequence - recent.size();
+			long start = Math.max(from, firstRecent);
+			int count = (int) Math.max(Math.min(to, sequence) - start, 0);
+			double[] latitudes = new double[count];
+			double[] longitudes = new double[count];
+			long[] times = new long[count];
+			recent.copyTo((int) (start - firstRecent), count, latitudes, longitudes, times, 0);
+			return LocationCursor.of(latitudes, longitudes, times);
+		}
+	}
+
+	/**
+	 * Get a cursor over the whole history, from the location store if any,
+	 * otherwise over the locations kept
+	 *
+	 * @return cursor - LocationCursor
+	 */
+	public LocationCursor cursor() {
+		if (locationStore != null) {
+			return locationStore.cursor(userId, 0, Long.MAX_VALUE);
+		}
+		synchronized (this) {
+			int count = archive.size() + recent.size();
+			double[] latitudes = new double[count];
+			double[] longitudes = new double[count];
+			long[] times = new long[count];
+			archive.copyTo(0, archive.size(), latitudes, longitudes, times, 0);
+			recent.copyTo(0, recent.size(), latitudes, longitudes, times, archive.size());
+			return LocationCursor.of(latitudes, longitudes, times);
+		}
+	}
+
+	/**
+	 * Get an unmodifiable copy of the locations kept, aggregated ones first, later
+	 * appends are not part of it
+	 *
+	 * @return List of VisitedLocation
+	 */
+	public synchronized List<VisitedLocation> snapshot() {
+		List<VisitedLocation> locations = new ArrayList<>(archive.size() + recent.size());
+		copyTo(locations);
+		return Collections.unmodifiableList(locations);
+	}
+
+	/**
+	 * Copy the locations kept, aggregated ones first, along with the sequence
+	 * number they were kept at
+	 *
+	 * @param locations - List of VisitedLocation the locations are added to
+	 * @return sequence - long
+	 */
+	public synchronized long copyTo(List<VisitedLocation> locations) {
+		for (int i = 0; i < archive.size(); i++) {
+			locations.add(archive.toVisitedLocation(userId, i));
+		}
+		for (int i = 0; i < recent.size(); i++) {
+			locations.add(recent.toVisitedLocation(userId, i));
+		}
+		return sequence;
+	}
+
+	/**
+	 * Ring buffer of locations in columns, growing up to its capacity. Weighted
+	 * rings count the locations merged into each of theirs.
+	 */
+	private static final class Ring {
+		private static final int INITIAL_CAPACITY = 8;
+
+		private final int capacity;
+		private double[] latitudes;
+		private double[] longitudes;
+		private long[] times;
+		private int[] weights;
+		// index of the oldest location
+		private int head;
+		private int size;
+
+		Ring(int capacity, boolean weighted) {
+			this.capacity = capacity;
+			int initialCapacity = Math.min(capacity, INITIAL_CAPACITY);
+			latitudes = new double[initialCapacity];
+			longitudes = new double[initialCapacity];
+			times = new long[initialCapacity];
+			weights = weighted ? new int[initialCapacity] : null;
+		}
+
+		int size() {
+			return size;
+		}
+
+		boolean isFull() {
+			return size == capacity;
+		}
+
+		void add(double latitude, double longitude, long time) {
+			if (size == latitudes.length) {
+				grow();
+			}
+			int index = slot(size);
+			latitudes[index] = latitude;
+			longitudes[index] = longitude;
+			times[index] = time;
+			if (weights != null) {
+				weights[index] = 1;
+			}
+			size++;
+		}
+
+		/**
+		 * Average a location with the newest one, which takes its time
+		 */
+		void mergeIntoNewest(double latitude, double longitude, long time) {
+			int index = slot(size - 1);
+			int weight = weights[index];
+			latitudes[index] = (latitudes[index] * weight + latitude) / (weight + 1);
+			longitudes[index] = (longitudes[index] * weight + longitude) / (weight + 1);
+			times[index] = Math.max(times[index], time);
+			weights[index] = weight + 1;
+		}
+
+		void removeOldest() {
+			head = (head + 1) % latitudes.length;
+			size--;
+		}
+
+		double getLatitude(int i) {
+			return latitudes[slot(i)];
+		}
+
+		double getLongitude(int i) {
+			return longitudes[slot(i)];
+		}
+
+		long getTime(int i) {
+			return times[slot(i)];
+		}
+
+		/**
+		 * Copy locations into columns of the same types
+		 */
+		void copyTo(int from, int count, double[] toLatitudes, double[] toLongitudes, long[] toTimes, int offset) {
+			if (count == 0) {
+				return;
+			}
+			copyRange(latitudes, from, count, toLatitudes, offset);
+			copyRange(longitudes, from, count, toLongitudes, offset);
+			copyRange(times, from, count, toTimes, offset);
+		}
+
+		VisitedLocation toVisitedLocation(UUID userId, int i) {
+			int index = slot(i);
+			return new VisitedLocation(userId, new Location(latitudes[index], longitudes[index]),
+					new Date(times[index]));
+		}
+
+		private int slot(int i) {
+			return (head + i) % latitudes.length;
+		}
+
+		/**
+		 * Grow the columns, oldest location first
+		 */
+		private void grow() {
+			int newLength = Math.min(capacity, latitudes.length * 2);
+			// columns are replaced once all are copied, copies use the current length
+			double[] grownLatitudes = copyRange(latitudes, 0, size, new double[newLength], 0);
+			double[] grownLongitudes = copyRange(longitudes, 0, size, new double[newLength], 0);
+			long[] grownTimes = copyRange(times, 0, size, new long[newLength], 0);
+			if (weights != null) {
+				weights = copyRange(weights, 0, size, new int[newLength], 0);
+			}
+			latitudes = grownLatitudes;
+			longitudes = grownLongitudes;
+			times = grownTimes;
+			head = 0;
+		}
+
+		/**
+		 * Copy locations of a column into an array of the same type, oldest first,
+		 * wrapping around the end of the column
+		 */
+		private <T> T copyRange(T column, int from, int count, T target, int offset) {
+			int start = slot(from);
+			int firstPart = Math.min(count, latitudes.length - start);
+			System.arraycopy(column, start, target, offset, firstPart);
+			System.arraycopy(column, 0, target, offset + firstPart, count - firstPart);
+			return target;
+		}
+	}
+
+}
@@ -0,0 +1,83 @@
+package tourGuide.web;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.jsoniter.output.JsonStream;
+
+import tourGuide.service.TourGuideService;
+
+/**
+ * Writer of the current locations of users as JSON, straight to an output
+ * stream.
+ *
+ * Locations are written one at a time with the jsoniter streaming writer, its
+ * buffer is flushed to the output stream whenever full. Memory used by a
+ * request does not depend on the number of users.
+ *
+ */
+public class CurrentLocationsJsonWriter {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private final TourGuideService tourGuideService;
+
+	public CurrentLocationsJsonWriter(TourGuideService tourGuideService) {
+		this.tourGuideService = tourGuideService;
+	}
+
+	/**
+	 * Write current locations of all users, as an object of locations by userId
+	 *
+	 * @param out - OutputStream
+	 * @throws IOException when writing fails
+	 */
+	public void writeAll(OutputStream out) throws IOException {
+		JsonStream stream = new JsonStream(out, BUFFER_SIZE);
+		writeLocations(stream, 0, 0);
+		stream.flush();
+	}
+
+	/**
+	 * Write a page of current locations, as an object with the locations by
+	 * userId and the cursor of the next page, -1 on the last page
+	 *
+	 * @param out    - OutputStream
+	 * @param cursor - cursor of the page, 0 for the first page
+	 * @param limit  - maximum number of locations in the page
+	 * @throws IOException when writing fails
+	 */
+	public void writePage(OutputStream out, int cursor, int limit) throws IOException {
+		JsonStream stream = new JsonStream(out, BUFFER_SIZE);
+		stream.writeObjectStart();
+		stream.writeObjectField("locations");
+		int nextCursor = writeLocations(stream, cursor, limit);
+		stream.writeMore();
+		stream.writeObjectField("nextCursor");
+		stream.writeVal(nextCursor);
+		stream.writeObjectEnd();
+		stream.flush();
+	}
+
+	private int writeLocations(JsonStream stream, int cursor, int limit) throws IOException {
+		boolean[] first = { true };
+		stream.writeObjectStart();
+		int nextCursor = tourGuideService.visitCurrentLocations(cursor, limit, (userId, latitude, longitude) -> {
+			if (!first[0]) {
+				stream.writeMore();
+			}
+			first[0] = false;
+			stream.writeObjectField(userId.toString());
+			stream.writeObjectStart();
+			stream.writeObjectField("longitude");
+			stream.writeVal(longitude);
+			stream.writeMore();
+			stream.writeObjectField("latitude");
+			stream.writeVal(latitude);
+			stream.writeObjectEnd();
+		});
+		stream.writeObjectEnd();
+		return nextCursor;
+	}
+
+}
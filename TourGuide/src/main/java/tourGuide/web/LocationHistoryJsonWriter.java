@@ -0,0 +1,51 @@
+package tourGuide.web;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.jsoniter.output.JsonStream;
+
+import tourGuide.user.LocationCursor;
+
+/**
+ * Writer of a location history as JSON, straight from a cursor to an output
+ * stream, so that no object is created per location.
+ *
+ */
+public class LocationHistoryJsonWriter {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	/**
+	 * Write locations as an array of objects with longitude, latitude and
+	 * timeVisited in milliseconds since the epoch
+	 *
+	 * @param out    - OutputStream
+	 * @param cursor - LocationCursor
+	 * @throws IOException when writing fails
+	 */
+	public void write(OutputStream out, LocationCursor cursor) throws IOException {
+		JsonStream stream = new JsonStream(out, BUFFER_SIZE);
+		stream.writeArrayStart();
+		boolean first = true;
+		while (cursor.next()) {
+			if (!first) {
+				stream.writeMore();
+			}
+			first = false;
+			stream.writeObjectStart();
+			stream.writeObjectField("longitude");
+			stream.writeVal(cursor.getLongitude());
+			stream.writeMore();
+			stream.writeObjectField("latitude");
+			stream.writeVal(cursor.getLatitude());
+			stream.writeMore();
+			stream.writeObjectField("timeVisited");
+			stream.writeVal(cursor.getTime());
+			stream.writeObjectEnd();
+		}
+		stream.writeArrayEnd();
+		stream.flush();
+	}
+
+}
@@ -0,0 +1,124 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import tourGuide.service.GpsUtilService;
+import tourGuide.location.AttractionCatalog;
+import tourGuide.location.AttractionIndex;
+import tourGuide.location.GeoDistance;
+
+public class TestAttractionIndex {
+
+	private final Random random = new Random(42);
+
+	@Test
+	public void attractionsWithinMatchFullScan() {
+		List<Attraction> attractions = randomAttractions(500);
+		attractions.addAll(new GpsUtil().getAttractions());
+		AttractionIndex attractionIndex = new AttractionIndex(attractions, 3);
+		double[] radiuses = { 0, 10, 200, 1500, 6000, 12000, Integer.MAX_VALUE };
+
+		for (int i = 0; i < 500; i++) {
+			Location location = randomLocation();
+			for (double radius : radiuses) {
+				List<Attraction> expected = attractions.stream()
+						.filter(a -> !(GeoDistance.getDistance(a, location) > radius)).collect(Collectors.toList());
+				assertEquals(expected, attractionIndex.getAttractionsWithin(location, radius));
+			}
+		}
+	}
+
+	@Test
+	public void attractionsWithinIncludeAttractionLocation() {
+		List<Attraction> attractions = new GpsUtil().getAttractions();
+		AttractionIndex attractionIndex = new AttractionIndex(attractions);
+
+		for (Attraction attraction : attractions) {
+			assertEquals(attraction, attractionIndex.getAttractionsWithin(attraction, 1).get(0));
+		}
+	}
+
+	@Test
+	public void nearestAttractionsMatchFullScan() {
+		List<Attraction> attractions = randomAttractions(300);
+		attractions.addAll(new GpsUtil().getAttractions());
+		AttractionIndex attractionIndex = new AttractionIndex(attractions, 1);
+
+		for (int i = 0; i < 500; i++) {
+			Location location = randomLocation();
+			for (int k : new int[] { 1, 5, 50, attractions.size() + 1 }) {
+				List<Attraction> expected = attractions.stream()
+						.sorted(Comparator.comparingDouble(a -> GeoDistance.getDistance(location, a))).limit(k)
+						.collect(Collectors.toList());
+				assertEquals(expected, attractionIndex.getNearestAttractions(location, k));
+			}
+		}
+	}
+
+	@Test
+	public void catalogIsKeptWhenAttractionsDoNotChange() {
+		GpsUtil gpsUtil = new GpsUtil();
+		AttractionCatalog catalog = AttractionCatalog.of(gpsUtil.getAttractions());
+
+		// GpsUtil gives new ids to attractions on every call
+		AttractionCatalog refreshed = catalog.update(gpsUtil.getAttractions());
+
+		assertSame(catalog, refreshed);
+		assertEquals(1, refreshed.getVersion());
+	}
+
+	@Test
+	public void catalogVersionChangesWithAttractions() {
+		List<Attraction> attractions = new GpsUtil().getAttractions();
+		AttractionCatalog catalog = AttractionCatalog.of(attractions);
+		List<Attraction> updatedAttractions = new ArrayList<>(attractions);
+		updatedAttractions.add(new Attraction("Eiffel Tower", "Paris", "FR", 48.858093, 2.294694));
+
+		AttractionCatalog updated = catalog.update(updatedAttractions);
+
+		assertEquals(2, updated.getVersion());
+		assertEquals(attractions.size() + 1, updated.size());
+		// unchanged attractions keep their id
+		assertSame(catalog.get(0), updated.get(0));
+		assertNotSame(catalog.getIndex(), updated.getIndex());
+	}
+
+	@Test
+	public void gpsUtilServiceServesCatalogSnapshot() {
+		GpsUtilService gpsUtilService = new GpsUtilService();
+
+		List<Attraction> attractions = gpsUtilService.getListOfAttractions();
+		AttractionCatalog refreshed = gpsUtilService.refreshAttractionCatalog();
+
+		assertSame(attractions, gpsUtilService.getListOfAttractions());
+		assertSame(refreshed, gpsUtilService.getAttractionCatalog());
+		assertSame(refreshed.getIndex(), gpsUtilService.getAttractionIndex());
+	}
+
+	private List<Attraction> randomAttractions(int count) {
+		List<Attraction> attractions = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Location location = randomLocation();
+			attractions.add(new Attraction("attraction" + i, "city", "state", location.latitude, location.longitude));
+		}
+		return attractions;
+	}
+
+	private Location randomLocation() {
+		return new Location(-90 + random.nextDouble() * 180, -180 + random.nextDouble() * 360);
+	}
+
+}
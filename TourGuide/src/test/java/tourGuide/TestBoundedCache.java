@@ -0,0 +1,87 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import tourGuide.cache.BoundedCache;
+
+public class TestBoundedCache {
+
+	@Test
+	public void concurrentRequestsShareOneLoad() {
+		BoundedCache<String, Integer> cache = new BoundedCache<>(10);
+		AtomicInteger loads = new AtomicInteger();
+		CompletableFuture<Integer> loading = new CompletableFuture<>();
+
+		CompletableFuture<Integer> first = cache.getAsync("key", k -> {
+			loads.incrementAndGet();
+			return loading;
+		});
+		CompletableFuture<Integer> second = cache.getAsync("key", k -> {
+			loads.incrementAndGet();
+			return CompletableFuture.completedFuture(2);
+		});
+		loading.complete(1);
+
+		assertEquals(1, loads.get());
+		assertEquals(Integer.valueOf(1), first.join());
+		assertEquals(Integer.valueOf(1), second.join());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getHitCount());
+	}
+
+	@Test
+	public void cacheIsBoundedBySize() {
+		BoundedCache<Integer, Integer> cache = new BoundedCache<>(100);
+
+		for (int i = 0; i < 1000; i++) {
+			cache.get(i, k -> k * 2);
+		}
+
+		assertEquals(100, cache.size());
+		assertEquals(900, cache.getEvictionCount());
+		// oldest entries are evicted first
+		assertNull(cache.getIfPresent(0));
+		assertEquals(Integer.valueOf(1998), cache.getIfPresent(999));
+	}
+
+	@Test
+	public void expiredValuesAreLoadedAgain() throws InterruptedException {
+		BoundedCache<String, Integer> cache = new BoundedCache<>(10, Duration.ofMillis(20));
+		AtomicInteger loads = new AtomicInteger();
+
+		cache.get("key", k -> loads.incrementAndGet());
+		cache.get("key", k -> loads.incrementAndGet());
+		Thread.sleep(40);
+		int value = cache.get("key", k -> loads.incrementAndGet());
+
+		assertEquals(2, value);
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	public void failedLoadsAreNotCached() {
+		BoundedCache<String, Integer> cache = new BoundedCache<>(10);
+
+		try {
+			cache.get("key", k -> {
+				throw new IllegalStateException("unavailable");
+			});
+		} catch (IllegalStateException e) {
+			assertEquals("unavailable", e.getMessage());
+		}
+
+		assertEquals(0, cache.size());
+		assertEquals(1, cache.getLoadFailureCount());
+		assertEquals(Integer.valueOf(3), cache.get("key", k -> 3));
+		assertTrue(cache.getHitRate() == 0);
+	}
+
+}
@@ -0,0 +1,148 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import tourGuide.executor.Bulkhead;
+import tourGuide.executor.BulkheadExecutionStrategy;
+import tourGuide.executor.BulkheadSettings;
+import tourGuide.executor.ExecutorProperties;
+import tourGuide.executor.ExternalDependency;
+import tourGuide.executor.RejectionPolicy;
+import tourGuide.executor.VirtualThreadBulkhead;
+
+public class TestBulkhead {
+
+	@Test
+	public void callsRunOnTheirDependencyBulkhead() {
+		BulkheadExecutionStrategy executionStrategy = new BulkheadExecutionStrategy(new ExecutorProperties());
+		try {
+			String gpsThread = executionStrategy
+					.supplyAsync(ExternalDependency.GPS_UTIL, () -> Thread.currentThread().getName()).join();
+			String rewardThread = executionStrategy
+					.supplyAsync(ExternalDependency.REWARD_CENTRAL, () -> Thread.currentThread().getName()).join();
+
+			assertTrue(gpsThread.startsWith("gps-util-"));
+			assertTrue(rewardThread.startsWith("reward-central-"));
+			assertNotSame(executionStrategy.getExecutor(ExternalDependency.GPS_UTIL),
+					executionStrategy.getExecutor(ExternalDependency.REWARD_CENTRAL));
+		} finally {
+			executionStrategy.shutdown();
+		}
+	}
+
+	@Test(expected = RejectedExecutionException.class)
+	public void fullBulkheadAbortsCalls() throws InterruptedException {
+		Bulkhead bulkhead = new Bulkhead(ExternalDependency.TRIP_PRICER,
+				new BulkheadSettings(1, 1, RejectionPolicy.ABORT));
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			bulkhead.execute(() -> awaitQuietly(release));
+			bulkhead.execute(() -> awaitQuietly(release));
+			bulkhead.execute(() -> awaitQuietly(release));
+		} finally {
+			release.countDown();
+			bulkhead.shutdown();
+			bulkhead.awaitTermination(1, TimeUnit.SECONDS);
+		}
+	}
+
+	@Test
+	public void fullBulkheadRunsCallsInCaller() {
+		Bulkhead bulkhead = new Bulkhead(ExternalDependency.GPS_UTIL,
+				new BulkheadSettings(1, 1, RejectionPolicy.CALLER_RUNS));
+		CountDownLatch release = new CountDownLatch(1);
+		Thread[] runner = new Thread[1];
+		try {
+			bulkhead.execute(() -> awaitQuietly(release));
+			bulkhead.execute(() -> awaitQuietly(release));
+			bulkhead.execute(() -> runner[0] = Thread.currentThread());
+
+			assertSame(Thread.currentThread(), runner[0]);
+			assertEquals(1, bulkhead.getPoolSize());
+		} finally {
+			release.countDown();
+			bulkhead.shutdown();
+			bulkhead.awaitTermination(1, TimeUnit.SECONDS);
+		}
+	}
+
+	@Test
+	public void fullBulkheadMakesCallerWaitForRoom() throws InterruptedException {
+		Bulkhead bulkhead = new Bulkhead(ExternalDependency.GPS_UTIL,
+				new BulkheadSettings(1, 1, RejectionPolicy.BLOCK));
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch ran = new CountDownLatch(1);
+		Thread[] runner = new Thread[1];
+		try {
+			bulkhead.execute(() -> awaitQuietly(release));
+			bulkhead.execute(() -> awaitQuietly(release));
+			Thread submitter = new Thread(() -> bulkhead.execute(() -> {
+				runner[0] = Thread.currentThread();
+				ran.countDown();
+			}));
+			submitter.start();
+			submitter.join(200);
+			// the submitter waits while the bulkhead is full
+			assertTrue(submitter.isAlive());
+
+			release.countDown();
+			submitter.join(1000);
+			assertTrue(ran.await(1, TimeUnit.SECONDS));
+			assertTrue(runner[0].getName().startsWith("gps-util-"));
+		} finally {
+			release.countDown();
+			bulkhead.shutdown();
+			bulkhead.awaitTermination(1, TimeUnit.SECONDS);
+		}
+	}
+
+	@Test
+	public void virtualThreadBulkheadLimitsConcurrentCalls() {
+		VirtualThreadBulkhead bulkhead = new VirtualThreadBulkhead(ExternalDependency.REWARD_CENTRAL,
+				new BulkheadSettings(1, 0, RejectionPolicy.ABORT, 4));
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		List<CompletableFuture<Void>> calls = new ArrayList<>();
+		try {
+			for (int i = 0; i < 100; i++) {
+				calls.add(CompletableFuture.runAsync(() -> {
+					maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+					try {
+						Thread.sleep(2);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					running.decrementAndGet();
+				}, bulkhead));
+			}
+			CompletableFuture.allOf(calls.toArray(new CompletableFuture[calls.size()])).join();
+
+			assertTrue(maxRunning.get() <= 4);
+		} finally {
+			bulkhead.shutdown();
+			bulkhead.awaitTermination(1, TimeUnit.SECONDS);
+		}
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,117 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import rewardCentral.RewardCentral;
+import tourGuide.helper.InternalTestHelper;
+import tourGuide.helper.InternalUserGenerator;
+import tourGuide.helper.InternalUserMode;
+import tourGuide.helper.InternalUserProperties;
+import tourGuide.persistence.UserSnapshot;
+import tourGuide.service.GpsUtilService;
+import tourGuide.service.RewardsService;
+import tourGuide.service.TourGuideOptions;
+import tourGuide.service.TourGuideService;
+import tourGuide.service.TripDealsService;
+import tourGuide.user.LocationHistoryRetention;
+import tourGuide.user.User;
+import tripPricer.TripPricer;
+
+public class TestInternalUserGenerator {
+
+	@Before
+	public void setUp() {
+		Locale.setDefault(Locale.ENGLISH); // Setting locale date in English in order to avoid numberFormatException
+											// while using miles
+	}
+
+	@Test
+	public void sameSeedGivesSameUsers() {
+		long referenceTime = System.currentTimeMillis();
+		InternalUserGenerator generator = new InternalUserGenerator(42, referenceTime,
+				LocationHistoryRetention.DEFAULT, null);
+		InternalUserGenerator sameGenerator = new InternalUserGenerator(42, referenceTime,
+				LocationHistoryRetention.DEFAULT, null);
+
+		List<User> users = generator.generate(0, 1000);
+		// users do not depend on the other users generated with them
+		List<User> sameUsers = sameGenerator.generate(500, 600);
+
+		assertEquals(1000, users.size());
+		for (int i = 0; i < sameUsers.size(); i++) {
+			User user = users.get(500 + i);
+			User sameUser = sameUsers.get(i);
+			assertEquals(user.getUserId(), sameUser.getUserId());
+			assertEquals("internalUser" + (500 + i), sameUser.getUserName());
+			assertEquals(3, sameUser.getVisitedLocations().size());
+			for (int j = 0; j < 3; j++) {
+				assertEquals(user.getVisitedLocations().get(j).location.latitude,
+						sameUser.getVisitedLocations().get(j).location.latitude, 0);
+				assertEquals(user.getVisitedLocations().get(j).timeVisited,
+						sameUser.getVisitedLocations().get(j).timeVisited);
+			}
+		}
+		assertNotEquals(users.get(0).getUserId(),
+				new InternalUserGenerator(43, referenceTime, LocationHistoryRetention.DEFAULT, null).generate(0)
+						.getUserId());
+	}
+
+	@Test
+	public void internalUsersAreLoadedFromFixture() throws IOException {
+		Path fixture = Files.createTempFile("users", ".dat");
+		try {
+			List<User> users = new InternalUserGenerator(7, LocationHistoryRetention.DEFAULT, null).generate(0, 50);
+			UserSnapshot.write(fixture, users);
+			InternalUserProperties internalUserProperties = new InternalUserProperties();
+			internalUserProperties.setFixture(fixture.toString());
+
+			TourGuideService tourGuideService = createTourGuideService(internalUserProperties);
+			tourGuideService.tracker.stopTracking();
+
+			assertEquals(50, tourGuideService.getAllUsers().size());
+			for (User user : users) {
+				User loadedUser = tourGuideService.getUser(user.getUserName());
+				assertEquals(user.getUserId(), loadedUser.getUserId());
+				assertEquals(user.getLastVisitedLocation().location.longitude,
+						loadedUser.getLastVisitedLocation().location.longitude, 0);
+			}
+		} finally {
+			Files.deleteIfExists(fixture);
+		}
+	}
+
+	@Test
+	public void internalUsersAreAddedInBackground() {
+		InternalTestHelper.setInternalUserNumber(25000);
+		InternalUserProperties internalUserProperties = new InternalUserProperties();
+		internalUserProperties.setMode(InternalUserMode.BACKGROUND);
+		internalUserProperties.setSeed(42L);
+
+		TourGuideService tourGuideService = createTourGuideService(internalUserProperties);
+		tourGuideService.tracker.stopTracking();
+		tourGuideService.getInternalUsersInitialized().join();
+
+		assertEquals(25000, tourGuideService.getAllUsers().size());
+		User user = new InternalUserGenerator(42, LocationHistoryRetention.DEFAULT, null).generate(24999);
+		assertEquals(user.getUserId(), tourGuideService.getUser("internalUser24999").getUserId());
+	}
+
+	private static TourGuideService createTourGuideService(InternalUserProperties internalUserProperties) {
+		GpsUtilService gpsUtilService = new GpsUtilService();
+		RewardsService rewardsService = new RewardsService(gpsUtilService, new RewardCentral());
+		TourGuideOptions options = new TourGuideOptions();
+		options.setInternalUserProperties(internalUserProperties);
+		return new TourGuideService(gpsUtilService, rewardsService, new TripDealsService(new TripPricer()), options);
+	}
+
+}
@@ -0,0 +1,132 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import rewardCentral.RewardCentral;
+import tourGuide.service.GpsUtilService;
+import tourGuide.service.RewardsService;
+import tourGuide.user.LocationCursor;
+import tourGuide.user.LocationHistoryRetention;
+import tourGuide.user.MappedLocationStore;
+import tourGuide.user.User;
+
+public class TestMappedLocationStore {
+
+	private Path directory;
+
+	@Before
+	public void setUp() throws IOException {
+		Locale.setDefault(Locale.ENGLISH); // Setting locale date in English in order to avoid numberFormatException
+											// while using miles
+		directory = Files.createTempDirectory("locations");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		try (Stream<Path> paths = Files.walk(directory)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	@Test
+	public void locationsAreReadBackInOrderOfAddition() {
+		// small files so that histories span several of them
+		MappedLocationStore locationStore = new MappedLocationStore(directory, 4);
+		UUID userId = UUID.randomUUID();
+		UUID userId2 = UUID.randomUUID();
+		for (int i = 0; i < 1000; i++) {
+			locationStore.append(userId, new VisitedLocation(userId, new Location(i, -i), new Date(i)));
+			locationStore.append(userId2, new VisitedLocation(userId2, new Location(-i, i), new Date(i)));
+		}
+
+		LocationCursor cursor = locationStore.cursor(userId, 0, Long.MAX_VALUE);
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(cursor.next());
+			assertEquals(i, cursor.getLatitude(), 0);
+			assertEquals(-i, cursor.getLongitude(), 0);
+			assertEquals(i, cursor.getTime());
+		}
+		assertFalse(cursor.next());
+
+		LocationCursor range = locationStore.cursor(userId2, 130, 140);
+		for (int i = 130; i < 140; i++) {
+			assertTrue(range.next());
+			assertEquals(-i, range.getLatitude(), 0);
+		}
+		assertFalse(range.next());
+		assertEquals(1000, locationStore.count(userId2));
+		assertTrue(locationStore.getFileCount() > 1);
+	}
+
+	@Test
+	public void directoryIsUsedByOneStoreAtATime() {
+		MappedLocationStore locationStore = new MappedLocationStore(directory, 4);
+		UUID userId = UUID.randomUUID();
+		locationStore.append(userId, new VisitedLocation(userId, new Location(1, 2), new Date(3)));
+
+		try {
+			new MappedLocationStore(directory, 4);
+			fail("Directory opened by a second store");
+		} catch (IllegalStateException e) {
+			// the files of the first store are left as they are
+		}
+		LocationCursor cursor = locationStore.cursor(userId, 0, Long.MAX_VALUE);
+		assertTrue(cursor.next());
+		assertEquals(1, cursor.getLatitude(), 0);
+
+		locationStore.close();
+		try (MappedLocationStore reopened = new MappedLocationStore(directory, 4)) {
+			assertEquals(0, reopened.count(userId));
+			reopened.append(userId, new VisitedLocation(userId, new Location(4, 5), new Date(6)));
+			assertEquals(1, reopened.count(userId));
+		}
+	}
+
+	@Test
+	public void rewardsAreEvaluatedAgainstFullHistory() {
+		GpsUtilService gpsUtilService = new GpsUtilService();
+		RewardsService rewardsService = new RewardsService(gpsUtilService, new RewardCentral());
+		Attraction attraction = gpsUtilService.getListOfAttractions().get(0);
+		MappedLocationStore locationStore = new MappedLocationStore(directory);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com",
+				new LocationHistoryRetention(4, 0, Duration.ofHours(1)), locationStore);
+
+		// about 20 miles from the attraction, then far from any attraction
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(),
+				new Location(attraction.latitude + 0.3, attraction.longitude), new Date()));
+		for (int i = 0; i < 99; i++) {
+			user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(-89, 0), new Date()));
+		}
+		rewardsService.calculateRewards(user).join();
+		assertEquals(0, user.getUserRewards().size());
+
+		// the first location is no longer kept on heap, it is evaluated again from the store
+		rewardsService.setProximityBuffer(50);
+		rewardsService.calculateRewards(user).join();
+
+		assertEquals(4, user.getVisitedLocations().size());
+		assertEquals(1, user.getUserRewards().size());
+		assertEquals(attraction.attractionName, user.getUserRewards().get(0).attraction.attractionName);
+	}
+
+}
@@ -0,0 +1,122 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import tourGuide.client.LatencySettings;
+import tourGuide.client.SimulatedLocationClient;
+import tourGuide.client.SimulatedPricingClient;
+import tourGuide.client.SimulatedRewardClient;
+import tourGuide.executor.BulkheadExecutionStrategy;
+import tourGuide.executor.BulkheadSettings;
+import tourGuide.executor.ExecutorProperties;
+import tourGuide.executor.ExternalDependency;
+import tourGuide.executor.RejectionPolicy;
+import tourGuide.metrics.TourGuideMetrics;
+import tourGuide.service.GpsUtilService;
+import tourGuide.service.RewardsService;
+import tourGuide.service.TripDealsService;
+import tourGuide.user.User;
+
+public class TestMetrics {
+
+	private static final LatencySettings NO_LATENCY = new LatencySettings();
+
+	@Before
+	public void setUp() {
+		Locale.setDefault(Locale.ENGLISH); // Setting locale date in English in order to avoid numberFormatException
+											// while using miles
+	}
+
+	@Test
+	public void externalCallsAndRewardCalculationsAreTimed() {
+		MeterRegistry registry = new SimpleMeterRegistry();
+		BulkheadExecutionStrategy executionStrategy = new BulkheadExecutionStrategy(new ExecutorProperties());
+		SimulatedLocationClient locationClient = new SimulatedLocationClient(42, NO_LATENCY);
+		GpsUtilService gpsUtilService = new GpsUtilService(locationClient, executionStrategy);
+		RewardsService rewardsService = new RewardsService(gpsUtilService,
+				new SimulatedRewardClient(42, NO_LATENCY, locationClient));
+		TripDealsService tripDealsService = new TripDealsService(new SimulatedPricingClient(42, NO_LATENCY));
+		gpsUtilService.bindTo(registry);
+		rewardsService.bindTo(registry);
+		tripDealsService.bindTo(registry);
+
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		user.addToVisitedLocations(gpsUtilService.getUserLocation(user.getUserId()));
+		Attraction attraction = gpsUtilService.getListOfAttractions().get(0);
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attraction, new Date()));
+		rewardsService.calculateRewards(user).join();
+		tripDealsService.getTripDeals(user);
+		gpsUtilService.shutdown();
+		executionStrategy.shutdown();
+
+		assertEquals(1, externalCalls(registry, ExternalDependency.GPS_UTIL, "getUserLocation"));
+		assertEquals(1, externalCalls(registry, ExternalDependency.GPS_UTIL, "getAttractions"));
+		assertTrue(externalCalls(registry, ExternalDependency.REWARD_CENTRAL, "getAttractionRewardPoints") >= 1);
+		assertTrue(externalCalls(registry, ExternalDependency.TRIP_PRICER, "getPrice") >= 1);
+		assertEquals(1, registry.get(TourGuideMetrics.REWARDS_CALCULATION).timer().count());
+		assertEquals(0, registry.get(TourGuideMetrics.LOCATION_BATCHER_PENDING).gauge().value(), 0);
+	}
+
+	@Test
+	public void bulkheadGaugesFollowTheirPool() throws InterruptedException {
+		MeterRegistry registry = new SimpleMeterRegistry();
+		ExecutorProperties executorProperties = new ExecutorProperties();
+		executorProperties.setTripPricer(new BulkheadSettings(2, 10, RejectionPolicy.ABORT));
+		BulkheadExecutionStrategy executionStrategy = new BulkheadExecutionStrategy(executorProperties);
+		executionStrategy.bindTo(registry);
+		Executor executor = executionStrategy.getExecutor(ExternalDependency.TRIP_PRICER);
+
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch completed = new CountDownLatch(5);
+		for (int i = 0; i < 5; i++) {
+			executor.execute(() -> {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				completed.countDown();
+			});
+		}
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (executorGauge(registry, TourGuideMetrics.EXECUTOR_ACTIVE) < 2 && System.nanoTime() < deadline) {
+			TimeUnit.MILLISECONDS.sleep(10);
+		}
+
+		assertEquals(2, executorGauge(registry, TourGuideMetrics.EXECUTOR_POOL_SIZE), 0);
+		assertEquals(2, executorGauge(registry, TourGuideMetrics.EXECUTOR_ACTIVE), 0);
+		assertEquals(3, executorGauge(registry, TourGuideMetrics.EXECUTOR_QUEUED), 0);
+		release.countDown();
+		assertTrue(completed.await(10, TimeUnit.SECONDS));
+		executionStrategy.shutdown();
+		assertEquals(5, registry.get(TourGuideMetrics.EXECUTOR_COMPLETED)
+				.tag(TourGuideMetrics.DEPENDENCY_TAG, ExternalDependency.TRIP_PRICER.getId()).functionCounter().count(),
+				0);
+	}
+
+	private static long externalCalls(MeterRegistry registry, ExternalDependency dependency, String method) {
+		return registry.get(TourGuideMetrics.EXTERNAL_CALLS).tag(TourGuideMetrics.DEPENDENCY_TAG, dependency.getId())
+				.tag(TourGuideMetrics.METHOD_TAG, method).timer().count();
+	}
+
+	private static double executorGauge(MeterRegistry registry, String name) {
+		return registry.get(name).tag(TourGuideMetrics.DEPENDENCY_TAG, ExternalDependency.TRIP_PRICER.getId())
+				.gauge().value();
+	}
+
+}
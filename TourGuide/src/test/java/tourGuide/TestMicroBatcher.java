@@ -0,0 +1,106 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import gpsUtil.location.VisitedLocation;
+import tourGuide.executor.MicroBatcher;
+import tourGuide.service.GpsUtilService;
+
+public class TestMicroBatcher {
+
+	@Before
+	public void setUp() {
+		Locale.setDefault(Locale.ENGLISH); // Setting locale date in English in order to avoid numberFormatException
+											// while using miles
+	}
+
+	@Test
+	public void requestsAreLoadedInBatches() {
+		AtomicInteger batches = new AtomicInteger();
+		AtomicInteger maxBatchSize = new AtomicInteger();
+		MicroBatcher<Integer, String> batcher = new MicroBatcher<>("test-batcher", Duration.ofMillis(20), 50, 2,
+				keys -> {
+					batches.incrementAndGet();
+					maxBatchSize.accumulateAndGet(keys.size(), Math::max);
+					return CompletableFuture.supplyAsync(() -> {
+						Map<Integer, String> values = new HashMap<>();
+						keys.forEach(key -> values.put(key, "value" + key));
+						return values;
+					});
+				});
+		try {
+			List<CompletableFuture<String>> futures = IntStream.range(0, 1000).mapToObj(batcher::submit)
+					.collect(Collectors.toList());
+
+			for (int i = 0; i < futures.size(); i++) {
+				assertEquals("value" + i, futures.get(i).join());
+			}
+			assertTrue(batches.get() >= 20 && batches.get() < 1000);
+			assertTrue(maxBatchSize.get() <= 50);
+		} finally {
+			batcher.shutdown();
+		}
+	}
+
+	@Test(expected = CompletionException.class)
+	public void failedBatchFailsItsRequests() {
+		MicroBatcher<Integer, String> batcher = new MicroBatcher<>("test-batcher", Duration.ofMillis(1), 10, 1,
+				keys -> {
+					throw new IllegalStateException("unavailable");
+				});
+		try {
+			batcher.submit(1).join();
+		} finally {
+			batcher.shutdown();
+		}
+	}
+
+	@Test
+	public void shutdownFailsQueuedAndLaterRequests() {
+		MicroBatcher<Integer, String> batcher = new MicroBatcher<>("test-batcher", Duration.ofHours(1), 100, 1,
+				keys -> CompletableFuture.completedFuture(new HashMap<>()));
+		List<CompletableFuture<String>> futures = IntStream.range(0, 10).mapToObj(batcher::submit)
+				.collect(Collectors.toList());
+
+		batcher.shutdown();
+		futures.add(batcher.submit(10));
+
+		for (CompletableFuture<String> future : futures) {
+			assertTrue(future.isCompletedExceptionally());
+			Throwable throwable = future.handle((value, t) -> t).join();
+			assertTrue(throwable instanceof RejectedExecutionException);
+		}
+		assertEquals(0, batcher.getPendingRequestCount());
+	}
+
+	@Test
+	public void userLocationsAreFoundInBatch() {
+		GpsUtilService gpsUtilService = new GpsUtilService();
+		List<UUID> userIds = IntStream.range(0, 30).mapToObj(i -> UUID.randomUUID()).collect(Collectors.toList());
+
+		Map<UUID, VisitedLocation> visitedLocations = gpsUtilService.getUserLocations(userIds);
+
+		assertEquals(30, visitedLocations.size());
+		userIds.forEach(userId -> assertEquals(userId, visitedLocations.get(userId).userId));
+		assertEquals(userIds.get(0), gpsUtilService.getUserLocationAsync(userIds.get(0)).join().userId);
+		gpsUtilService.shutdown();
+	}
+
+}
@@ -2,6 +2,9 @@ package tourGuide;
 
 import static org.junit.Assert.assertTrue;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -16,6 +19,10 @@ import org.junit.Test;
 import gpsUtil.location.Attraction;
 import gpsUtil.location.VisitedLocation;
 import rewardCentral.RewardCentral;
+import tourGuide.executor.BulkheadExecutionStrategy;
+import tourGuide.executor.ExecutionStrategy;
+import tourGuide.executor.ExecutorProperties;
+import tourGuide.executor.VirtualThreadExecutionStrategy;
 import tourGuide.helper.InternalTestHelper;
 import tourGuide.service.GpsUtilService;
 import tourGuide.service.RewardsService;
@@ -55,9 +62,24 @@ public class TestPerformance {
     
 	@Test
 	public void highVolumeTrackLocation() {
+		highVolumeTrackLocation("highVolumeTrackLocation", new BulkheadExecutionStrategy(new ExecutorProperties()));
+	}
+
+	@Test
+	public void highVolumeTrackLocationWithVirtualThreads() {
+		highVolumeTrackLocation("highVolumeTrackLocationWithVirtualThreads",
+				new VirtualThreadExecutionStrategy(new ExecutorProperties()));
+	}
+
+	/**
+	 * Track all users with an execution strategy, printing throughput, peak
+	 * thread count and heap used so that execution modes can be compared
+	 */
+	private void highVolumeTrackLocation(String name, ExecutionStrategy executionStrategy) {
 	
-		GpsUtilService gpsUtilService = new GpsUtilService();
-		RewardsService rewardsService = new RewardsService(gpsUtilService, new RewardCentral());
+		GpsUtilService gpsUtilService = new GpsUtilService(executionStrategy);
+		RewardsService rewardsService = new RewardsService(gpsUtilService, new RewardCentral(), executionStrategy,
+				RewardsService.DEFAULT_REWARD_POINTS_CACHE_SIZE, Duration.ZERO);
 		// Users should be incremented up to 100,000, and test finishes within 15
 		// minutes
 		InternalTestHelper.setInternalUserNumber(100000);
@@ -67,16 +89,24 @@ public class TestPerformance {
 		List<User> allUsers = new ArrayList<>();
 		allUsers = tourGuideService.getAllUsers();
 
+		ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		threadMXBean.resetPeakThreadCount();
+		Runtime runtime = Runtime.getRuntime();
+		long usedMemoryBefore = runtime.totalMemory() - runtime.freeMemory();
+
 		StopWatch stopWatch = new StopWatch();
 		stopWatch.start();
 		
 		tourGuideService.trackAllUserLocation(allUsers).join();
 		
 		stopWatch.stop();
+		long usedMemoryAfter = runtime.totalMemory() - runtime.freeMemory();
+		executionStrategy.shutdown();
 
-
-		System.out.println("highVolumeTrackLocation: Time Elapsed: "
-				+ TimeUnit.MILLISECONDS.toSeconds(stopWatch.getTime()) + " seconds.");
+		System.out.println(name + ": Time Elapsed: " + TimeUnit.MILLISECONDS.toSeconds(stopWatch.getTime())
+				+ " seconds, " + allUsers.size() * 1000L / Math.max(stopWatch.getTime(), 1) + " users/s, peak threads: "
+				+ threadMXBean.getPeakThreadCount() + ", heap growth: "
+				+ (usedMemoryAfter - usedMemoryBefore) / (1024 * 1024) + " MB.");
 		assertTrue(TimeUnit.MINUTES.toSeconds(15) >= TimeUnit.MILLISECONDS.toSeconds(stopWatch.getTime()));
 	}
 
@@ -5,20 +5,24 @@ import static org.junit.Assert.*;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Random;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import gpsUtil.GpsUtil;
 import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
 import rewardCentral.RewardCentral;
 import tourGuide.helper.InternalTestHelper;
 import tourGuide.service.GpsUtilService;
 import tourGuide.service.RewardsService;
 import tourGuide.service.TourGuideService;
+import tourGuide.user.RewardWatermark;
 import tourGuide.user.User;
 import tourGuide.user.UserReward;
 
@@ -51,6 +55,70 @@ public class TestRewardsService {
 	}
 
 
+	@Test
+	public void calculateRewardsOnlyEvaluatesNewLocations() {
+		AtomicInteger rewardCentralCalls = new AtomicInteger();
+		RewardCentral rewardCentral = new RewardCentral() {
+			@Override
+			public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+				rewardCentralCalls.incrementAndGet();
+				return 100;
+			}
+		};
+		GpsUtilService gpsUtilService = new GpsUtilService();
+		RewardsService rewardsService = new RewardsService(gpsUtilService, rewardCentral);
+		List<Attraction> attractions = gpsUtilService.getListOfAttractions();
+
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attractions.get(0), new Date()));
+		rewardsService.calculateRewards(user).join();
+		rewardsService.calculateRewards(user).join();
+
+		assertEquals(1, user.getUserRewards().size());
+		assertEquals(1, rewardCentralCalls.get());
+		assertEquals(1, user.getRewardWatermark().getEvaluatedLocations());
+
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attractions.get(0), new Date()));
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attractions.get(1), new Date()));
+		rewardsService.calculateRewards(user).join();
+
+		assertEquals(2, user.getUserRewards().size());
+		assertEquals(2, rewardCentralCalls.get());
+		assertEquals(3, user.getRewardWatermark().getEvaluatedLocations());
+
+		// a new proximity buffer evaluates the whole history again, without rewarding twice
+		RewardWatermark watermark = user.getRewardWatermark();
+		rewardsService.setProximityBuffer(Integer.MAX_VALUE);
+		rewardsService.calculateRewards(user).join();
+
+		assertTrue(user.getRewardWatermark().isAfter(watermark));
+		assertEquals(attractions.size(), user.getUserRewards().size());
+		assertEquals(attractions.size(), rewardCentralCalls.get());
+	}
+
+	@Test
+	public void rewardPointsAreCached() {
+		AtomicInteger rewardCentralCalls = new AtomicInteger();
+		RewardCentral rewardCentral = new RewardCentral() {
+			@Override
+			public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+				return rewardCentralCalls.incrementAndGet();
+			}
+		};
+		GpsUtilService gpsUtilService = new GpsUtilService();
+		RewardsService rewardsService = new RewardsService(gpsUtilService, rewardCentral);
+		Attraction attraction = gpsUtilService.getListOfAttractions().get(0);
+		UUID userId = UUID.randomUUID();
+
+		int rewardPoints = rewardsService.getRewardPoints(attraction, userId);
+
+		assertEquals(rewardPoints, rewardsService.getRewardPoints(attraction, userId));
+		assertEquals(Integer.valueOf(rewardPoints), rewardsService.getRewardPointsAsync(attraction, userId).join());
+		assertEquals(1, rewardCentralCalls.get());
+		assertEquals(2, rewardsService.getRewardPointsCache().getHitCount());
+		assertEquals(1, rewardsService.getRewardPointsCache().getMissCount());
+	}
+
 	@Test
 	public void isWithinAttractionProximity() {
 		GpsUtil gpsUtil = new GpsUtil();
@@ -60,6 +128,35 @@ public class TestRewardsService {
 		assertTrue(rewardsService.isWithinAttractionProximity(attraction, attraction));
 	}
 
+	@Test
+	public void distanceMatchesGreatCircleFormula() {
+		GpsUtilService gpsUtilService = new GpsUtilService();
+		RewardsService rewardsService = new RewardsService(gpsUtilService, new RewardCentral());
+		Random random = new Random(7);
+
+		for (int i = 0; i < 100000; i++) {
+			Location loc1 = new Location(-90 + random.nextDouble() * 180, -180 + random.nextDouble() * 360);
+			Location loc2 = new Location(-90 + random.nextDouble() * 180, -180 + random.nextDouble() * 360);
+			assertEquals(greatCircleDistance(loc1, loc2), rewardsService.getDistance(loc1, loc2), 1e-9);
+		}
+	}
+
+	@Test
+	public void isWithinAttractionProximityMatchesDistance() {
+		GpsUtilService gpsUtilService = new GpsUtilService();
+		RewardsService rewardsService = new RewardsService(gpsUtilService, new RewardCentral());
+		Attraction attraction = gpsUtilService.getListOfAttractions().get(0);
+		Random random = new Random(7);
+
+		for (int i = 0; i < 100000; i++) {
+			// locations around the attraction, on both sides of the 200 miles range
+			Location location = new Location(attraction.latitude - 5 + random.nextDouble() * 10,
+					attraction.longitude - 5 + random.nextDouble() * 10);
+			assertEquals(greatCircleDistance(attraction, location) <= 200,
+					rewardsService.isWithinAttractionProximity(attraction, location));
+		}
+	}
+
 	@Test
 	public void nearAllAttractions() throws InterruptedException, ExecutionException {
 	
@@ -78,4 +175,17 @@ public class TestRewardsService {
 		assertEquals(gpsUtilService.getListOfAttractions().size(), userRewards.size());
 	}
 
+	// reference formula used before the distance kernel
+	private double greatCircleDistance(Location loc1, Location loc2) {
+		double lat1 = Math.toRadians(loc1.latitude);
+		double lon1 = Math.toRadians(loc1.longitude);
+		double lat2 = Math.toRadians(loc2.latitude);
+		double lon2 = Math.toRadians(loc2.longitude);
+
+		double angle = Math
+				.acos(Math.sin(lat1) * Math.sin(lat2) + Math.cos(lat1) * Math.cos(lat2) * Math.cos(lon1 - lon2));
+
+		return 1.15077945 * 60 * Math.toDegrees(angle);
+	}
+
 }
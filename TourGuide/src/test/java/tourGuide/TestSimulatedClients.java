@@ -0,0 +1,145 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import tourGuide.client.LatencyDistribution;
+import tourGuide.client.LatencySettings;
+import tourGuide.client.SimulatedLocationClient;
+import tourGuide.client.SimulatedPricingClient;
+import tourGuide.client.SimulatedRewardClient;
+import tourGuide.executor.BulkheadExecutionStrategy;
+import tourGuide.helper.InternalTestHelper;
+import tourGuide.service.GpsUtilService;
+import tourGuide.service.RewardsService;
+import tourGuide.service.TourGuideOptions;
+import tourGuide.service.TourGuideService;
+import tourGuide.service.TripDealsService;
+import tourGuide.user.User;
+import tourGuide.user.UserReward;
+import tripPricer.Provider;
+
+public class TestSimulatedClients {
+
+	private static final LatencySettings NO_LATENCY = new LatencySettings();
+
+	@Before
+	public void setUp() {
+		Locale.setDefault(Locale.ENGLISH); // Setting locale date in English in order to avoid numberFormatException
+											// while using miles
+	}
+
+	@Test
+	public void sameSeedGivesSameAnswers() {
+		List<Attraction> attractions = Arrays.asList(new Attraction("Disneyland", "Anaheim", "CA", 33.817595,
+				-117.922008), new Attraction("Jackson Hole", "Jackson Hole", "WY", 43.582767, -110.821999));
+		// attractions of another run have other ids
+		List<Attraction> otherAttractions = Arrays.asList(new Attraction("Disneyland", "Anaheim", "CA", 33.817595,
+				-117.922008), new Attraction("Jackson Hole", "Jackson Hole", "WY", 43.582767, -110.821999));
+		SimulatedLocationClient locationClient = new SimulatedLocationClient(42, NO_LATENCY, attractions);
+		SimulatedLocationClient sameLocationClient = new SimulatedLocationClient(42, NO_LATENCY, otherAttractions);
+		SimulatedRewardClient rewardClient = new SimulatedRewardClient(42, NO_LATENCY, locationClient);
+		SimulatedRewardClient sameRewardClient = new SimulatedRewardClient(42, NO_LATENCY, sameLocationClient);
+		SimulatedPricingClient pricingClient = new SimulatedPricingClient(42, NO_LATENCY);
+		SimulatedPricingClient samePricingClient = new SimulatedPricingClient(42, NO_LATENCY);
+		UUID userId = UUID.randomUUID();
+
+		VisitedLocation first = locationClient.getUserLocation(userId);
+		VisitedLocation second = locationClient.getUserLocation(userId);
+		assertEquals(first.location.latitude, sameLocationClient.getUserLocation(userId).location.latitude, 0);
+		assertEquals(second.location.longitude, sameLocationClient.getUserLocation(userId).location.longitude, 0);
+		assertNotEquals(first.location.latitude, second.location.latitude, 0);
+
+		for (int i = 0; i < attractions.size(); i++) {
+			int rewardPoints = rewardClient.getAttractionRewardPoints(attractions.get(i).attractionId, userId);
+			assertEquals(rewardPoints,
+					sameRewardClient.getAttractionRewardPoints(otherAttractions.get(i).attractionId, userId));
+			assertTrue(rewardPoints >= 1 && rewardPoints < 1000);
+		}
+
+		for (int i = 0; i < 3; i++) {
+			List<Provider> providers = pricingClient.getPrice("key", UUID.randomUUID(), 2, 1, 7, 300);
+			List<Provider> sameProviders = samePricingClient.getPrice("key", UUID.randomUUID(), 2, 1, 7, 300);
+			assertEquals(5, providers.size());
+			for (int j = 0; j < providers.size(); j++) {
+				assertEquals(providers.get(j).name, sameProviders.get(j).name);
+				assertEquals(providers.get(j).price, sameProviders.get(j).price, 0);
+			}
+		}
+	}
+
+	@Test
+	public void latenciesFollowTheirDistribution() {
+		SplittableRandom random = new SplittableRandom(42);
+		LatencySettings fixed = new LatencySettings(LatencyDistribution.FIXED, Duration.ofMillis(25), Duration.ZERO,
+				Duration.ZERO);
+		LatencySettings uniform = new LatencySettings(LatencyDistribution.UNIFORM, Duration.ofMillis(30),
+				Duration.ZERO, Duration.ofMillis(100));
+		LatencySettings longTail = new LatencySettings(LatencyDistribution.LONG_TAIL, Duration.ofMillis(1),
+				Duration.ofMillis(20), Duration.ofSeconds(1));
+
+		int slowerThanMedian = 0;
+		long slowest = 0;
+		for (int i = 0; i < 10000; i++) {
+			assertEquals(TimeUnit.MILLISECONDS.toNanos(25), fixed.sampleNanos(random));
+			long uniformLatency = uniform.sampleNanos(random);
+			assertTrue(uniformLatency >= TimeUnit.MILLISECONDS.toNanos(30)
+					&& uniformLatency <= TimeUnit.MILLISECONDS.toNanos(100));
+			long longTailLatency = longTail.sampleNanos(random);
+			assertTrue(longTailLatency >= TimeUnit.MILLISECONDS.toNanos(1)
+					&& longTailLatency <= TimeUnit.SECONDS.toNanos(1));
+			if (longTailLatency > TimeUnit.MILLISECONDS.toNanos(20)) {
+				slowerThanMedian++;
+			}
+			slowest = Math.max(slowest, longTailLatency);
+		}
+		assertTrue(slowerThanMedian > 4500 && slowerThanMedian < 5500);
+		// a few calls are much slower than the median
+		assertTrue(slowest > TimeUnit.MILLISECONDS.toNanos(500));
+	}
+
+	@Test
+	public void simulatedUsersAreTrackedAndRewarded() {
+		InternalTestHelper.setInternalUserNumber(0);
+		SimulatedLocationClient locationClient = new SimulatedLocationClient(42, NO_LATENCY);
+		GpsUtilService gpsUtilService = new GpsUtilService(locationClient, BulkheadExecutionStrategy.getDefault());
+		RewardsService rewardsService = new RewardsService(gpsUtilService,
+				new SimulatedRewardClient(42, NO_LATENCY, locationClient));
+		TripDealsService tripDealsService = new TripDealsService(new SimulatedPricingClient(42, NO_LATENCY));
+		TourGuideService tourGuideService = new TourGuideService(gpsUtilService, rewardsService, tripDealsService,
+				new TourGuideOptions());
+		tourGuideService.tracker.stopTracking();
+
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		tourGuideService.addUser(user);
+		VisitedLocation visitedLocation = tourGuideService.trackUserLocation(user).join();
+		Attraction attraction = gpsUtilService.getListOfAttractions().get(0);
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attraction, new Date()));
+		rewardsService.calculateRewards(user).join();
+		List<Provider> tripDeals = tourGuideService.getTripDeals(user);
+		gpsUtilService.shutdown();
+
+		assertEquals(visitedLocation.location.latitude,
+				new SimulatedLocationClient(42, NO_LATENCY).getUserLocation(user.getUserId()).location.latitude, 0);
+		UserReward userReward = user.getUserRewards().stream()
+				.filter(reward -> reward.attraction.attractionId.equals(attraction.attractionId)).findFirst().get();
+		assertTrue(userReward.getRewardPoints() > 0);
+		assertTrue(tripDeals.size() > 0);
+	}
+
+}
@@ -1,25 +1,46 @@
 package tourGuide;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import gpsUtil.location.Attraction;
 import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
 import rewardCentral.RewardCentral;
+import tourGuide.client.LatencySettings;
+import tourGuide.client.LocationClient;
+import tourGuide.client.SimulatedLocationClient;
+import tourGuide.client.SimulatedRewardClient;
+import tourGuide.executor.BulkheadExecutionStrategy;
 import tourGuide.helper.InternalTestHelper;
 import tourGuide.model.NearbyAttractionsDTO;
 import tourGuide.service.GpsUtilService;
 import tourGuide.service.RewardsService;
 import tourGuide.service.TourGuideService;
 import tourGuide.user.User;
+import tourGuide.web.CurrentLocationsJsonWriter;
 import tripPricer.Provider;
 
 public class TestTourGuideService {
@@ -105,6 +126,123 @@ public class TestTourGuideService {
 		assertEquals(user.getUserId(), visitedLocation.userId);
 	}
 
+	@Test
+	public void concurrentTrackingsOfAUserAreShared() {
+
+		GpsUtilService gpsUtilService = new GpsUtilService();
+		RewardsService rewardsService = new RewardsService(gpsUtilService, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(0);
+		TourGuideService tourGuideService = new TourGuideService(gpsUtilService, rewardsService);
+		tourGuideService.tracker.stopTracking();
+
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		List<CompletableFuture<VisitedLocation>> trackings = IntStream.range(0, 10)
+				.mapToObj(i -> tourGuideService.trackUserLocation(user)).collect(Collectors.toList());
+		tourGuideService.trackAllUserLocation(Collections.singletonList(user)).join();
+
+		for (CompletableFuture<VisitedLocation> tracking : trackings) {
+			assertSame(trackings.get(0).join(), tracking.join());
+		}
+		assertEquals(1, user.getVisitedLocations().size());
+	}
+
+	@Test
+	public void trackingOfAUserWithoutLocationFails() {
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		MissingLocationClient locationClient = new MissingLocationClient(user.getUserId());
+		locationClient.release.countDown();
+		TourGuideService tourGuideService = missingLocationTourGuideService(locationClient);
+
+		CompletableFuture<VisitedLocation> tracking = tourGuideService.trackUserLocation(user);
+
+		assertTrue(noLocationFailure(tracking) instanceof IllegalStateException);
+		assertEquals(0, user.getVisitedLocations().size());
+		// the failed tracking is not in flight anymore
+		assertTrue(noLocationFailure(tourGuideService.trackUserLocation(user)) instanceof IllegalStateException);
+	}
+
+	@Test
+	public void trackingsJoiningABatchWithoutLocationFail() {
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		User user2 = new User(UUID.randomUUID(), "jon2", "000", "jon2@tourGuide.com");
+		MissingLocationClient locationClient = new MissingLocationClient(user.getUserId());
+		TourGuideService tourGuideService = missingLocationTourGuideService(locationClient);
+
+		// locations are held back so that the second tracking joins the batch
+		CompletableFuture<Void> batch = tourGuideService.trackAllUserLocation(Arrays.asList(user, user2));
+		CompletableFuture<VisitedLocation> tracking = tourGuideService.trackUserLocation(user);
+		locationClient.release.countDown();
+		batch.join();
+
+		assertTrue(noLocationFailure(tracking) instanceof IllegalStateException);
+		assertEquals(0, user.getVisitedLocations().size());
+		assertEquals(1, user2.getVisitedLocations().size());
+	}
+
+	private static TourGuideService missingLocationTourGuideService(MissingLocationClient locationClient) {
+		InternalTestHelper.setInternalUserNumber(0);
+		GpsUtilService gpsUtilService = new GpsUtilService(locationClient, BulkheadExecutionStrategy.getDefault());
+		RewardsService rewardsService = new RewardsService(gpsUtilService,
+				new SimulatedRewardClient(42, new LatencySettings(), locationClient.delegate));
+		TourGuideService tourGuideService = new TourGuideService(gpsUtilService, rewardsService);
+		tourGuideService.tracker.stopTracking();
+		return tourGuideService;
+	}
+
+	private static Throwable noLocationFailure(CompletableFuture<VisitedLocation> tracking) {
+		Throwable throwable = tracking.handle((visitedLocation, t) -> t).join();
+		return throwable instanceof CompletionException ? throwable.getCause() : throwable;
+	}
+
+	/**
+	 * Locations of a simulated client, none for one user, given once released
+	 */
+	private static class MissingLocationClient implements LocationClient {
+		private final SimulatedLocationClient delegate = new SimulatedLocationClient(42, new LatencySettings());
+		private final CountDownLatch release = new CountDownLatch(1);
+		private final UUID missingUserId;
+
+		MissingLocationClient(UUID missingUserId) {
+			this.missingUserId = missingUserId;
+		}
+
+		@Override
+		public VisitedLocation getUserLocation(UUID userId) {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return userId.equals(missingUserId) ? null : delegate.getUserLocation(userId);
+		}
+
+		@Override
+		public List<Attraction> getAttractions() {
+			return delegate.getAttractions();
+		}
+	}
+
+	@Test
+	public void nearbyAttractionsOfAnUnknownLocationAreGivenAsynchronously() {
+
+		GpsUtilService gpsUtilService = new GpsUtilService();
+		RewardsService rewardsService = new RewardsService(gpsUtilService, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(0);
+		TourGuideService tourGuideService = new TourGuideService(gpsUtilService, rewardsService);
+		tourGuideService.tracker.stopTracking();
+
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		// the user is tracked first, the calling thread does not wait for gpsUtil
+		CompletableFuture<VisitedLocation> location = tourGuideService.getUserLocationAsync(user);
+		assertFalse(location.isDone());
+		List<NearbyAttractionsDTO> attractions = location
+				.thenCompose(visitedLocation -> tourGuideService.getNearByAttractionsAsync(visitedLocation)).join();
+
+		assertEquals(5, attractions.size());
+		assertSame(user.getLastVisitedLocation(), location.join());
+		assertSame(location.join(), tourGuideService.getUserLocationAsync(user).join());
+	}
+
 	@Test
 	public void getNearbyAttractions() {
 		
@@ -123,6 +261,33 @@ public class TestTourGuideService {
 		assertEquals(5, attractions.size());
 	}
 
+	@Test
+	public void nearbyAttractionsAreKeptUntilUserMoves() {
+
+		GpsUtilService gpsUtilService = new GpsUtilService();
+		RewardsService rewardsService = new RewardsService(gpsUtilService, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(0);
+		TourGuideService tourGuideService = new TourGuideService(gpsUtilService, rewardsService);
+		tourGuideService.tracker.stopTracking();
+
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		VisitedLocation visitedLocation = tourGuideService.trackUserLocation(user).join();
+		List<NearbyAttractionsDTO> attractions = tourGuideService.getNearByAttractions(visitedLocation);
+		VisitedLocation movedLocation = new VisitedLocation(user.getUserId(),
+				new Location(visitedLocation.location.latitude + 1, visitedLocation.location.longitude), new Date());
+
+		assertSame(attractions, tourGuideService.getNearByAttractions(visitedLocation));
+		assertNotSame(attractions, tourGuideService.getNearByAttractions(movedLocation));
+		// nearest first, with the distance from the user
+		for (int i = 0; i < attractions.size(); i++) {
+			NearbyAttractionsDTO attraction = attractions.get(i);
+			assertEquals(rewardsService.getDistance(visitedLocation.location, attraction.getAttractionLocation()),
+					attraction.getDistanceBetweenUserLocationAndAttractionInMiles(), 1e-9);
+			assertTrue(i == 0 || attractions.get(i - 1).getDistanceBetweenUserLocationAndAttractionInMiles() <= attraction
+					.getDistanceBetweenUserLocationAndAttractionInMiles());
+		}
+	}
+
 	@Test 
 	public void getAllCurrentLocations() {
 		
@@ -136,18 +301,59 @@ public class TestTourGuideService {
 
 		tourGuideService.addUser(user);
 		tourGuideService.addUser(user2);
-		
+		// current locations are the ones already known, users are located first
+		tourGuideService.trackAllUserLocation(tourGuideService.getAllUsers()).join();
 
 		Map<String, Location> lastVisitedLocations = tourGuideService.getAllCurrentLocations();
 
 		tourGuideService.tracker.stopTracking();
 
 		assertEquals(lastVisitedLocations.size(), 2);
+		assertEquals(user.getLastVisitedLocation().location.latitude,
+				lastVisitedLocations.get(user.getUserId().toString()).latitude, 0);
 
 	
 
 	}
 
+	@Test
+	public void currentLocationsArePagedAndStreamed() throws IOException {
+		GpsUtilService gpsUtilService = new GpsUtilService();
+		RewardsService rewardsService = new RewardsService(gpsUtilService, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(0);
+		TourGuideService tourGuideService = new TourGuideService(gpsUtilService, rewardsService);
+		tourGuideService.tracker.stopTracking();
+
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			User user = new User(UUID.randomUUID(), "jon" + i, "000", "jon" + i + "@tourGuide.com");
+			// the third user has never been located
+			if (i != 2) {
+				user.addToVisitedLocations(
+						new VisitedLocation(user.getUserId(), new Location(i + 0.5, i + 0.25), new Date()));
+			}
+			tourGuideService.addUser(user);
+			users.add(user);
+		}
+
+		List<UUID> firstPage = new ArrayList<>();
+		int cursor = tourGuideService.visitCurrentLocations(0, 2,
+				(userId, latitude, longitude) -> firstPage.add(userId));
+		List<UUID> secondPage = new ArrayList<>();
+		int lastCursor = tourGuideService.visitCurrentLocations(cursor, 2,
+				(userId, latitude, longitude) -> secondPage.add(userId));
+
+		assertEquals(Arrays.asList(users.get(0).getUserId(), users.get(1).getUserId()), firstPage);
+		assertEquals(2, cursor);
+		assertEquals(Arrays.asList(users.get(3).getUserId(), users.get(4).getUserId()), secondPage);
+		assertEquals(-1, lastCursor);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new CurrentLocationsJsonWriter(tourGuideService).writePage(out, 4, 2);
+		assertEquals("{\"locations\":{\"" + users.get(4).getUserId()
+				+ "\":{\"longitude\":4.25,\"latitude\":4.5}},\"nextCursor\":-1}", out.toString("UTF-8"));
+	}
+
 	@Test
 	public void getTripDeals() {
 		GpsUtilService gpsUtilService = new GpsUtilService();
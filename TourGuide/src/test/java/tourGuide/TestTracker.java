@@ -0,0 +1,147 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import rewardCentral.RewardCentral;
+import tourGuide.helper.InternalTestHelper;
+import tourGuide.service.GpsUtilService;
+import tourGuide.service.RewardsService;
+import tourGuide.service.TourGuideOptions;
+import tourGuide.service.TourGuideService;
+import tourGuide.service.TripDealsService;
+import tourGuide.tracker.LocationAgeHistogram;
+import tourGuide.tracker.RateLimiter;
+import tourGuide.tracker.TrackerProperties;
+import tourGuide.tracker.TrackerStatus;
+import tourGuide.user.User;
+import tourGuide.user.UserRepository;
+import tripPricer.TripPricer;
+
+public class TestTracker {
+
+	@Before
+	public void setUp() {
+		Locale.setDefault(Locale.ENGLISH); // Setting locale date in English in order to avoid numberFormatException
+											// while using miles
+	}
+
+	@Test
+	public void trackerTracksEveryUserOncePerCycle() throws InterruptedException {
+		GpsUtilService gpsUtilService = new GpsUtilService();
+		RewardsService rewardsService = new RewardsService(gpsUtilService, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(20);
+		TrackerProperties trackerProperties = new TrackerProperties();
+		trackerProperties.setPollingInterval(Duration.ofSeconds(1));
+		trackerProperties.setShardCount(4);
+		trackerProperties.setMaxTrackingsInFlight(5);
+
+		TourGuideOptions options = new TourGuideOptions();
+		options.setTrackerProperties(trackerProperties);
+
+		TourGuideService tourGuideService = new TourGuideService(gpsUtilService, rewardsService,
+				new TripDealsService(new TripPricer()), options);
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (tourGuideService.tracker.getCompletedCycleCount() == 0 && System.nanoTime() < deadline) {
+			TimeUnit.MILLISECONDS.sleep(50);
+		}
+		tourGuideService.tracker.stopTracking();
+
+		assertEquals(20, tourGuideService.tracker.getLastCycleUserCount());
+		// the last shard starts 3/4 of the polling interval after the first one
+		assertTrue(tourGuideService.tracker.getLastCycleDurationMillis() >= 750);
+		for (User user : tourGuideService.getAllUsers()) {
+			// 3 generated locations and at least the tracked one
+			assertTrue(user.getVisitedLocations().size() >= 4);
+		}
+		assertEquals(0, tourGuideService.tracker.getFailedTrackingCount());
+	}
+
+	@Test
+	public void trackerStatusReportsCycleProgressAndLocationAges() throws InterruptedException {
+		GpsUtilService gpsUtilService = new GpsUtilService();
+		RewardsService rewardsService = new RewardsService(gpsUtilService, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(20);
+		TrackerProperties trackerProperties = new TrackerProperties();
+		// the next cycle does not start before the status is read
+		trackerProperties.setPollingInterval(Duration.ofSeconds(30));
+		trackerProperties.setShardCount(1);
+
+		TourGuideOptions options = new TourGuideOptions();
+		options.setTrackerProperties(trackerProperties);
+
+		TourGuideService tourGuideService = new TourGuideService(gpsUtilService, rewardsService,
+				new TripDealsService(new TripPricer()), options);
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (tourGuideService.tracker.getCompletedCycleCount() == 0 && System.nanoTime() < deadline) {
+			TimeUnit.MILLISECONDS.sleep(50);
+		}
+		TrackerStatus status = tourGuideService.tracker.getStatus();
+		tourGuideService.tracker.stopTracking();
+
+		assertFalse(status.isCycleRunning());
+		assertEquals(1, status.getCompletedCycleCount());
+		assertEquals(20, status.getCycleUserCount());
+		assertEquals(20, status.getCycleCompleted());
+		assertEquals(0, status.getCycleFailed());
+		assertEquals(0, status.getCyclePending());
+		assertFalse(status.getLastCycleEnd().isBefore(status.getCycleStart()));
+		LocationAgeHistogram locationAge = status.getLocationAge();
+		assertEquals(0, locationAge.getNeverTracked());
+		// every user was tracked less than half a polling interval ago
+		assertEquals(20, locationAge.getBuckets().get(0).getUsers());
+		assertTrue(locationAge.getOldestAgeMillis() >= 0);
+	}
+
+	@Test
+	public void locationAgesAreCountedInPollingIntervals() {
+		long now = System.currentTimeMillis();
+		UserRepository userRepository = new UserRepository();
+		long[] ages = { 0, 400, 1000, 1500, 3000, 10000 };
+		for (long age : ages) {
+			User user = new User(UUID.randomUUID(), "user" + age, "000", "user@tourGuide.com");
+			user.setLatestLocationTimestamp(new Date(now - age));
+			userRepository.add(user);
+		}
+		userRepository.add(new User(UUID.randomUUID(), "untracked", "000", "untracked@tourGuide.com"));
+
+		LocationAgeHistogram locationAge = LocationAgeHistogram.of(userRepository, now, Duration.ofSeconds(1));
+
+		List<LocationAgeHistogram.Bucket> buckets = locationAge.getBuckets();
+		assertEquals(5, buckets.size());
+		assertEquals(500L, (long) buckets.get(0).getMaxAgeMillis());
+		assertEquals(2, buckets.get(0).getUsers());
+		assertEquals(1, buckets.get(1).getUsers());
+		assertEquals(1, buckets.get(2).getUsers());
+		assertEquals(1, buckets.get(3).getUsers());
+		assertNull(buckets.get(4).getMaxAgeMillis());
+		assertEquals(1, buckets.get(4).getUsers());
+		assertEquals(1, locationAge.getNeverTracked());
+		assertEquals(10000, locationAge.getOldestAgeMillis());
+	}
+
+	@Test
+	public void rateLimiterSpacesPermits() throws InterruptedException {
+		RateLimiter rateLimiter = new RateLimiter(100);
+
+		long start = System.nanoTime();
+		for (int i = 0; i < 51; i++) {
+			rateLimiter.acquire();
+		}
+
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(500));
+	}
+
+}
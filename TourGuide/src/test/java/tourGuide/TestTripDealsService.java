@@ -0,0 +1,89 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.javamoney.moneta.Money;
+import org.junit.Before;
+import org.junit.Test;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import tourGuide.service.TripDealsService;
+import tourGuide.user.User;
+import tourGuide.user.UserReward;
+import tripPricer.Provider;
+import tripPricer.TripPricer;
+
+public class TestTripDealsService {
+
+	@Before
+	public void setUp() {
+		Locale.setDefault(Locale.ENGLISH); // Setting locale date in English in order to avoid numberFormatException
+											// while using miles
+	}
+
+	@Test
+	public void tripDealsAreWithinPricePointsAndSharedByCloseRewards() {
+		TripDealsService tripDealsService = new TripDealsService(new TripPricer());
+		User user = newUser("jon");
+		User user2 = newUser("jon2");
+		// 50 points are rounded down to the same bucket as no points
+		addReward(user2, 50);
+
+		List<Provider> tripDeals = tripDealsService.getTripDeals(user);
+		List<Provider> tripDeals2 = tripDealsService.getTripDeals(user2);
+
+		assertTrue(tripDeals.size() <= 5);
+		for (Provider provider : tripDeals) {
+			assertTrue(provider.price <= 600);
+			assertEquals(user.getUserId(), provider.tripId);
+		}
+		assertEquals(prices(tripDeals), prices(tripDeals2));
+		assertEquals(user2.getUserId(), tripDeals2.get(0).tripId);
+		assertSame(tripDeals, user.getTripDeals());
+		assertEquals(1, tripDealsService.getQuotesCache().getMissCount());
+	}
+
+	@Test
+	public void tripDealsAreRefreshedInBackgroundWhenRewardsChange() {
+		TripDealsService tripDealsService = new TripDealsService(new TripPricer());
+		User user = newUser("jon");
+		List<Provider> tripDeals = tripDealsService.getTripDeals(user);
+
+		addReward(user, 250);
+		// deals already given are returned while the new trip is quoted
+		assertSame(tripDeals, tripDealsService.getTripDeals(user));
+		tripDealsService.refreshTripDeals(user).join();
+
+		assertNotSame(tripDeals, user.getTripDeals());
+		assertEquals(2, tripDealsService.getQuotesCache().getMissCount());
+		assertEquals(prices(user.getTripDeals()), prices(tripDealsService.getTripDeals(user)));
+	}
+
+	private static User newUser(String userName) {
+		User user = new User(UUID.randomUUID(), userName, "000", userName + "@tourGuide.com");
+		user.getUserPreferences()
+				.setHighPricePoint(Money.of(600, user.getUserPreferences().getHighPricePoint().getCurrency()));
+		return user;
+	}
+
+	private static void addReward(User user, int rewardPoints) {
+		Attraction attraction = new Attraction("Disneyland", "Anaheim", "CA", 33.817595D, -117.922008D);
+		user.addUserReward(
+				new UserReward(new VisitedLocation(user.getUserId(), attraction, new Date()), attraction, rewardPoints));
+	}
+
+	private static List<Double> prices(List<Provider> providers) {
+		return providers.stream().map(provider -> provider.price).collect(Collectors.toList());
+	}
+
+}
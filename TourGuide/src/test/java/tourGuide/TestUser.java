@@ -0,0 +1,135 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import tourGuide.user.LocationCursor;
+import tourGuide.user.LocationHistoryRetention;
+import tourGuide.user.User;
+import tourGuide.user.UserReward;
+
+public class TestUser {
+
+	@Test
+	public void concurrentRewardsAreAddedOncePerAttraction() {
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		VisitedLocation visitedLocation = new VisitedLocation(user.getUserId(), new Location(0, 0), new Date());
+		List<Attraction> attractions = IntStream.range(0, 50)
+				.mapToObj(i -> new Attraction("attraction" + i, "city", "state", i, i)).collect(Collectors.toList());
+
+		List<CompletableFuture<Void>> additions = IntStream.range(0, 8)
+				.mapToObj(t -> CompletableFuture.runAsync(() -> {
+					for (Attraction attraction : attractions) {
+						user.addUserReward(new UserReward(visitedLocation, attraction, t));
+						user.getUserRewards().forEach(UserReward::getRewardPoints);
+					}
+				})).collect(Collectors.toList());
+		CompletableFuture.allOf(additions.toArray(new CompletableFuture[additions.size()])).join();
+
+		assertEquals(attractions.size(), user.getUserRewards().size());
+		assertEquals(attractions.size(), user.getUserRewardCount());
+	}
+
+	@Test
+	public void concurrentLocationsAreNotLost() {
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com",
+				new LocationHistoryRetention(80000, 0, Duration.ofHours(1)));
+
+		List<CompletableFuture<Void>> additions = IntStream.range(0, 8)
+				.mapToObj(t -> CompletableFuture.runAsync(() -> {
+					for (int i = 0; i < 10000; i++) {
+						user.addToVisitedLocations(
+								new VisitedLocation(user.getUserId(), new Location(t, i), new Date()));
+						long count = user.getVisitedLocationCount();
+						user.getVisitedLocations(count - 1, count);
+					}
+				})).collect(Collectors.toList());
+		CompletableFuture.allOf(additions.toArray(new CompletableFuture[additions.size()])).join();
+
+		assertEquals(80000, user.getVisitedLocations().size());
+		assertEquals(80000, user.getVisitedLocationCount());
+	}
+
+	@Test
+	public void visitedLocationsAreASnapshot() {
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		VisitedLocation first = new VisitedLocation(user.getUserId(), new Location(1, 1), new Date());
+		user.addToVisitedLocations(first);
+		List<VisitedLocation> visitedLocations = user.getVisitedLocations();
+
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(2, 2), new Date()));
+		user.clearVisitedLocations();
+
+		assertEquals(1, visitedLocations.size());
+		assertEquals(first.location.latitude, visitedLocations.get(0).location.latitude, 0);
+		assertEquals(first.timeVisited, visitedLocations.get(0).timeVisited);
+		assertNull(user.getLastVisitedLocation());
+	}
+
+	@Test
+	public void olderLocationsAreAggregatedPerInterval() {
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com",
+				new LocationHistoryRetention(4, 2, Duration.ofHours(1)));
+		long hour = Duration.ofHours(1).toMillis();
+		// two locations per hour during 5 hours
+		for (int i = 0; i < 10; i++) {
+			user.addToVisitedLocations(
+					new VisitedLocation(user.getUserId(), new Location(i, 0), new Date(i / 2 * hour + i % 2)));
+		}
+
+		List<VisitedLocation> visitedLocations = user.getVisitedLocations();
+		// hour 0 dropped, hours 1 and 2 aggregated, hours 3 and 4 recent
+		assertEquals(6, visitedLocations.size());
+		assertEquals(2.5, visitedLocations.get(0).location.latitude, 0);
+		assertEquals(4.5, visitedLocations.get(1).location.latitude, 0);
+		assertEquals(2 * hour + 1, visitedLocations.get(1).timeVisited.getTime());
+		assertEquals(6, visitedLocations.get(2).location.latitude, 0);
+		assertEquals(9, user.getLastVisitedLocation().location.latitude, 0);
+		assertEquals(10, user.getVisitedLocationCount());
+		// only recent locations are found again by position
+		assertEquals(3, user.getVisitedLocations(0, 9).size());
+		assertEquals(6, user.getVisitedLocations(0, 9).get(0).location.latitude, 0);
+	}
+
+	@Test
+	public void cursorsReadLocationsAcrossTheEndOfTheRing() {
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com",
+				new LocationHistoryRetention(5, 0, Duration.ofHours(1)));
+		for (int i = 0; i < 12; i++) {
+			user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(i, -i), new Date(i)));
+		}
+
+		// locations 7 to 11 are recent, older positions are left out
+		LocationCursor range = user.getVisitedLocationCursor(3, 11);
+		for (int i = 7; i < 11; i++) {
+			assertTrue(range.next());
+			assertEquals(i, range.getLatitude(), 0);
+			assertEquals(-i, range.getLongitude(), 0);
+			assertEquals(i, range.getTime());
+		}
+		assertFalse(range.next());
+
+		LocationCursor all = user.getVisitedLocationCursor();
+		for (int i = 7; i < 12; i++) {
+			assertTrue(all.next());
+			assertEquals(i, all.getLatitude(), 0);
+		}
+		assertFalse(all.next());
+	}
+
+}
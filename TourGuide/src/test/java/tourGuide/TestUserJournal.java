@@ -0,0 +1,303 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import rewardCentral.RewardCentral;
+import tourGuide.helper.InternalTestHelper;
+import tourGuide.location.AttractionCatalog;
+import tourGuide.persistence.UserJournal;
+import tourGuide.service.GpsUtilService;
+import tourGuide.service.RewardsService;
+import tourGuide.service.TourGuideOptions;
+import tourGuide.service.TourGuideService;
+import tourGuide.service.TripDealsService;
+import tourGuide.tracker.TrackerProperties;
+import tourGuide.user.LocationHistoryRetention;
+import tourGuide.user.User;
+import tourGuide.user.UserReward;
+import tripPricer.TripPricer;
+
+public class TestUserJournal {
+
+	private Path directory;
+
+	@Before
+	public void setUp() throws IOException {
+		Locale.setDefault(Locale.ENGLISH); // Setting locale date in English in order to avoid numberFormatException
+											// while using miles
+		directory = Files.createTempDirectory("journal");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		try (Stream<Path> paths = Files.walk(directory)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	@Test
+	public void usersAreRecoveredFromSnapshotAndLog() throws InterruptedException {
+		AttractionCatalog attractionCatalog = new GpsUtilService().getAttractionCatalog();
+		UserJournal userJournal = new UserJournal(directory);
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < 10000; i++) {
+			User user = new User(UUID.randomUUID(), "jon" + i, "000", "jon" + i + "@tourGuide.com");
+			addToVisitedLocations(userJournal, user, i);
+			userJournal.logUserAdded(user);
+			users.add(user);
+		}
+
+		// users keep moving and being rewarded while the snapshot is written
+		AtomicBoolean moving = new AtomicBoolean(true);
+		Thread mover = new Thread(() -> {
+			for (int round = 1; moving.get() || round < 10; round++) {
+				for (User user : users) {
+					addToVisitedLocations(userJournal, user, round);
+				}
+			}
+		});
+		mover.start();
+		userJournal.snapshot(users);
+		moving.set(false);
+		mover.join();
+		for (int i = 0; i < users.size(); i += 10) {
+			User user = users.get(i);
+			UserReward userReward = new UserReward(user.getLastVisitedLocation(),
+					attractionCatalog.get(i % attractionCatalog.size()), i);
+			user.addUserReward(userReward);
+			userJournal.logUserReward(user, userReward);
+		}
+		userJournal.close();
+
+		long start = System.nanoTime();
+		UserJournal recoveredJournal = new UserJournal(directory);
+		List<User> recoveredUsers = recoveredJournal.recover(LocationHistoryRetention.DEFAULT, null,
+				attractionCatalog);
+		long recoveryMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		recoveredJournal.close();
+
+		System.out.println("usersAreRecoveredFromSnapshotAndLog: " + users.size() + " users recovered in "
+				+ recoveryMillis + " ms.");
+		assertEquals(users.size(), recoveredUsers.size());
+		for (int i = 0; i < users.size(); i++) {
+			User user = users.get(i);
+			User recoveredUser = recoveredUsers.get(i);
+			assertEquals(user.getUserId(), recoveredUser.getUserId());
+			assertEquals(user.getUserName(), recoveredUser.getUserName());
+			// locations both in the snapshot and in the log are restored once
+			assertEquals(user.getVisitedLocationCount(), recoveredUser.getVisitedLocationCount());
+			assertEquals(user.getLastVisitedLocation().location.latitude,
+					recoveredUser.getLastVisitedLocation().location.latitude, 0);
+			assertEquals(user.getUserRewardCount(), recoveredUser.getUserRewardCount());
+		}
+		UserReward recoveredReward = recoveredUsers.get(10).getUserRewards().get(0);
+		assertTrue(recoveredReward.attraction == attractionCatalog.get(10));
+		assertEquals(10, recoveredReward.getRewardPoints());
+		assertTrue(recoveryMillis < TimeUnit.SECONDS.toMillis(30));
+	}
+
+	@Test
+	public void recordsLoggedTogetherAreCommittedTogether() {
+		UserJournal userJournal = new UserJournal(directory);
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			users.add(new User(UUID.randomUUID(), "jon" + i, "000", "jon" + i + "@tourGuide.com"));
+		}
+
+		long start = System.nanoTime();
+		List<CompletableFuture<Void>> committed = users.parallelStream().flatMap(user -> {
+			List<CompletableFuture<Void>> futures = new ArrayList<>();
+			for (int i = 0; i < 100; i++) {
+				VisitedLocation visitedLocation = new VisitedLocation(user.getUserId(), new Location(i, i),
+						new Date());
+				futures.add(userJournal.logVisitedLocation(user, user.addToVisitedLocations(visitedLocation),
+						visitedLocation));
+			}
+			return futures.stream();
+		}).collect(Collectors.toList());
+		CompletableFuture.allOf(committed.toArray(new CompletableFuture[committed.size()])).join();
+		long elapsedMillis = Math.max(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), 1);
+		long recordCount = userJournal.getWriteAheadLog().getRecordCount();
+		long commitCount = userJournal.getWriteAheadLog().getCommitCount();
+		userJournal.close();
+
+		System.out.println("recordsLoggedTogetherAreCommittedTogether: " + recordCount * 1000 / elapsedMillis
+				+ " records/s, " + recordCount / commitCount + " records per sync.");
+		assertEquals(100000, recordCount);
+		assertTrue(commitCount < recordCount);
+	}
+
+	@Test
+	public void tornRecordAtTheEndOfTheLogIsIgnored() throws IOException {
+		UserJournal userJournal = new UserJournal(directory);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		userJournal.logUserAdded(user);
+		for (int i = 0; i < 10; i++) {
+			addToVisitedLocations(userJournal, user, i);
+		}
+		userJournal.close();
+		// a crash in the middle of a record
+		try (Stream<Path> paths = Files.list(directory)) {
+			Path log = paths.filter(path -> path.toString().endsWith(".log")).findFirst().get();
+			Files.write(log, new byte[] { 0, 0, 0, 49, 1, 2, 3 }, StandardOpenOption.APPEND);
+		}
+
+		UserJournal recoveredJournal = new UserJournal(directory);
+		List<User> recoveredUsers = recoveredJournal.recover(LocationHistoryRetention.DEFAULT, null,
+				new GpsUtilService().getAttractionCatalog());
+		recoveredJournal.close();
+
+		assertEquals(1, recoveredUsers.size());
+		assertEquals(10, recoveredUsers.get(0).getVisitedLocationCount());
+	}
+
+	@Test
+	public void replayStopsAtAMissingLocation() {
+		AttractionCatalog attractionCatalog = new GpsUtilService().getAttractionCatalog();
+		UserJournal userJournal = new UserJournal(directory);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		userJournal.logUserAdded(user);
+		for (long position : new long[] { 0, 1, 1, 3, 4 }) {
+			// location 1 is logged twice and location 2 is missing
+			userJournal.logVisitedLocation(user, position,
+					new VisitedLocation(user.getUserId(), new Location(position, 0), new Date(position)));
+		}
+		userJournal.logUserReward(user, new UserReward(
+				new VisitedLocation(user.getUserId(), new Location(4, 0), new Date(4)), attractionCatalog.get(0), 10));
+		userJournal.close();
+
+		UserJournal recoveredJournal = new UserJournal(directory);
+		List<User> recoveredUsers = recoveredJournal.recover(LocationHistoryRetention.DEFAULT, null,
+				attractionCatalog);
+		recoveredJournal.close();
+
+		List<VisitedLocation> locations = recoveredUsers.get(0).getVisitedLocations();
+		assertEquals(2, locations.size());
+		assertEquals(0, locations.get(0).timeVisited.getTime());
+		assertEquals(1, locations.get(1).timeVisited.getTime());
+		assertEquals(0, recoveredUsers.get(0).getUserRewardCount());
+	}
+
+	@Test
+	public void trackedUsersAreRecoveredAfterRestart() throws InterruptedException {
+		GpsUtilService gpsUtilService = new GpsUtilService();
+		RewardsService rewardsService = new RewardsService(gpsUtilService, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(5);
+		TrackerProperties trackerProperties = new TrackerProperties();
+		trackerProperties.setPollingInterval(Duration.ofSeconds(1));
+		trackerProperties.setShardCount(1);
+		TourGuideOptions options = new TourGuideOptions();
+		options.setTrackerProperties(trackerProperties);
+
+		UserJournal userJournal = new UserJournal(directory);
+		options.setUserJournal(userJournal);
+		TourGuideService tourGuideService = new TourGuideService(gpsUtilService, rewardsService,
+				new TripDealsService(new TripPricer()), options);
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (tourGuideService.tracker.getCompletedCycleCount() == 0 && System.nanoTime() < deadline) {
+			TimeUnit.MILLISECONDS.sleep(50);
+		}
+		tourGuideService.tracker.stopTracking();
+		userJournal.close();
+
+		UserJournal restartedJournal = new UserJournal(directory);
+		options.setUserJournal(restartedJournal);
+		TourGuideService restartedService = new TourGuideService(gpsUtilService, rewardsService,
+				new TripDealsService(new TripPricer()), options);
+		restartedService.tracker.stopTracking();
+		restartedJournal.close();
+
+		assertEquals(5, restartedService.getAllUsers().size());
+		for (User user : tourGuideService.getAllUsers()) {
+			User restartedUser = restartedService.getUser(user.getUserName());
+			assertEquals(user.getUserId(), restartedUser.getUserId());
+			// generated and tracked locations, the restarted tracker may have added more
+			List<VisitedLocation> locations = user.getVisitedLocations();
+			List<VisitedLocation> restartedLocations = restartedUser.getVisitedLocations();
+			assertTrue(locations.size() >= 4 && restartedLocations.size() >= locations.size());
+			for (int i = 0; i < locations.size(); i++) {
+				assertEquals(locations.get(i).timeVisited, restartedLocations.get(i).timeVisited);
+			}
+			assertTrue(restartedUser.getUserRewardCount() >= user.getUserRewardCount());
+		}
+	}
+
+	@Test
+	public void trackingIsAnsweredOnceItsRecordsAreCommitted() {
+		GpsUtilService gpsUtilService = new GpsUtilService();
+		RewardsService rewardsService = new RewardsService(gpsUtilService, new RewardCentral());
+		rewardsService.setProximityBuffer(Integer.MAX_VALUE);
+		InternalTestHelper.setInternalUserNumber(0);
+		UserJournal userJournal = new UserJournal(directory);
+		TourGuideOptions options = new TourGuideOptions();
+		options.setUserJournal(userJournal);
+		TourGuideService tourGuideService = new TourGuideService(gpsUtilService, rewardsService,
+				new TripDealsService(new TripPricer()), options);
+		tourGuideService.tracker.stopTracking();
+
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		tourGuideService.addUser(user).join();
+		tourGuideService.trackUserLocation(user).join();
+		long recordCount = userJournal.getWriteAheadLog().getRecordCount();
+		userJournal.close();
+
+		// the user, its location and a reward for every attraction
+		assertEquals(2 + gpsUtilService.getListOfAttractions().size(), recordCount);
+		assertEquals(gpsUtilService.getListOfAttractions().size(), user.getUserRewardCount());
+	}
+
+	@Test
+	public void directoryIsUsedByOneJournalAtATime() {
+		UserJournal userJournal = new UserJournal(directory);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		userJournal.logUserAdded(user).join();
+
+		try {
+			new UserJournal(directory);
+			fail("Directory opened by a second journal");
+		} catch (IllegalStateException e) {
+			// the log of the first journal is left as it is
+		}
+		userJournal.logUserAdded(new User(UUID.randomUUID(), "jon2", "000", "jon2@tourGuide.com")).join();
+		userJournal.close();
+
+		UserJournal recoveredJournal = new UserJournal(directory);
+		List<User> recoveredUsers = recoveredJournal.recover(LocationHistoryRetention.DEFAULT, null,
+				new GpsUtilService().getAttractionCatalog());
+		recoveredJournal.close();
+
+		assertEquals(2, recoveredUsers.size());
+	}
+
+	private static void addToVisitedLocations(UserJournal userJournal, User user, int i) {
+		VisitedLocation visitedLocation = new VisitedLocation(user.getUserId(), new Location(i % 90, i % 180),
+				new Date());
+		userJournal.logVisitedLocation(user, user.addToVisitedLocations(visitedLocation), visitedLocation);
+	}
+
+}
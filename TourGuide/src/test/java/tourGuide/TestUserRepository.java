@@ -0,0 +1,134 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import tourGuide.user.LastLocationTable;
+import tourGuide.user.User;
+import tourGuide.user.UserRepository;
+
+public class TestUserRepository {
+
+	@Test
+	public void usersAreFoundByNameAndId() {
+		UserRepository userRepository = new UserRepository();
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		User sameName = new User(UUID.randomUUID(), "jon", "000", "jon2@tourGuide.com");
+
+		assertTrue(userRepository.add(user));
+		assertFalse(userRepository.add(sameName));
+
+		assertSame(user, userRepository.getUser("jon"));
+		assertSame(user, userRepository.getUser(user.getUserId()));
+		assertNull(userRepository.getUser(sameName.getUserId()));
+		assertEquals(1, userRepository.size());
+		assertEquals(0, userRepository.indexOf(user.getUserId()));
+		assertEquals(-1, userRepository.indexOf(sameName.getUserId()));
+	}
+
+	@Test
+	public void concurrentAdditionsAreAllVisible() {
+		UserRepository userRepository = new UserRepository();
+		List<CompletableFuture<Void>> additions = IntStream.range(0, 8)
+				.mapToObj(t -> CompletableFuture.runAsync(() -> {
+					for (int i = 0; i < 5000; i++) {
+						String userName = "user" + t + "-" + i;
+						userRepository.add(new User(UUID.randomUUID(), userName, "000", userName + "@tourGuide.com"));
+					}
+				})).collect(Collectors.toList());
+		CompletableFuture.allOf(additions.toArray(new CompletableFuture[additions.size()])).join();
+
+		List<User> allUsers = userRepository.getAllUsers();
+		Set<String> userNames = new HashSet<>();
+		allUsers.forEach(user -> userNames.add(user.getUserName()));
+		assertEquals(40000, allUsers.size());
+		assertEquals(40000, userNames.size());
+		assertEquals(40000, allUsers.parallelStream().filter(user -> user != null).count());
+	}
+
+	@Test
+	public void allUsersViewFollowsAdditions() {
+		UserRepository userRepository = new UserRepository();
+		List<User> allUsers = userRepository.getAllUsers();
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+
+		userRepository.add(user);
+
+		assertEquals(1, allUsers.size());
+		assertSame(user, allUsers.get(0));
+	}
+
+	@Test
+	public void partitionsCoverAllUsersOnce() {
+		UserRepository userRepository = new UserRepository();
+		for (int i = 0; i < 1001; i++) {
+			userRepository.add(new User(UUID.randomUUID(), "user" + i, "000", "user" + i + "@tourGuide.com"));
+		}
+
+		List<List<User>> partitions = userRepository.partition(7);
+
+		assertEquals(7, partitions.size());
+		int index = 0;
+		for (List<User> partition : partitions) {
+			assertTrue(partition.size() >= 142 && partition.size() <= 143);
+			for (User user : partition) {
+				assertSame(userRepository.get(index++), user);
+			}
+		}
+		assertEquals(1001, index);
+	}
+
+	@Test
+	public void partitionsAreNeverEmpty() {
+		UserRepository userRepository = new UserRepository();
+		userRepository.add(new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com"));
+		userRepository.add(new User(UUID.randomUUID(), "jane", "000", "jane@tourGuide.com"));
+
+		List<List<User>> partitions = userRepository.partition(5);
+
+		assertEquals(2, partitions.size());
+		assertEquals(1, partitions.get(0).size());
+		assertEquals(1, partitions.get(1).size());
+	}
+
+	@Test
+	public void lastLocationTableKeepsLastLocationOfEachUser() {
+		LastLocationTable lastLocations = new LastLocationTable();
+		UUID userId = UUID.randomUUID();
+
+		lastLocations.update(0, new VisitedLocation(userId, new Location(1, 2), new Date(1000)));
+		lastLocations.update(2000, new VisitedLocation(userId, new Location(3, 4), new Date(2000)));
+		LastLocationTable.Snapshot snapshot = lastLocations.snapshot();
+		lastLocations.update(0, new VisitedLocation(userId, new Location(5, 6), new Date(3000)));
+
+		assertEquals(2001, snapshot.size());
+		assertTrue(snapshot.isKnown(0));
+		assertFalse(snapshot.isKnown(1));
+		assertEquals(1, snapshot.getLatitude(0), 0);
+		assertEquals(4, snapshot.getLongitude(2000), 0);
+		assertEquals(2000, snapshot.getTime(2000));
+		assertEquals(5, lastLocations.snapshot().getLatitude(0), 0);
+		// a range is read with the indexes of the table and stops at its size
+		LastLocationTable.Snapshot range = lastLocations.snapshot(1500, 3000);
+		assertEquals(1500, range.getFrom());
+		assertEquals(2001, range.size());
+		assertEquals(3, range.getLatitude(2000), 0);
+	}
+
+}